@@ -0,0 +1,87 @@
+package com.smartship.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PackingExecutorConfig {
+
+    @Value("${app.packing.executor.threads:0}")
+    private int threads;
+
+    @Value("${app.packing.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.calculation.executor.threads:0}")
+    private int calculationThreads;
+
+    @Value("${app.calculation.executor.queue-capacity:64}")
+    private int calculationQueueCapacity;
+
+    /**
+     * Dedicated pool for 3D packing work, kept separate from Tomcat request
+     * threads so a burst of carts cannot starve the rest of the API.
+     *
+     * When the queue is full the submitting request thread runs the task
+     * itself, which throttles callers instead of failing the calculation.
+     */
+    @Bean(name = "packingExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService packingExecutor() {
+        int poolSize = threads > 0 ? threads : Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new PackingThreadFactory("packing-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs the async calculate endpoints, one task per request. Tasks are
+     * cancelled by interrupting their thread, so they never run on a request
+     * thread: when the queue is full the request is rejected instead.
+     */
+    @Bean(name = "calculationExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService calculationExecutor() {
+        int poolSize = calculationThreads > 0
+                ? calculationThreads
+                : Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, calculationQueueCapacity)),
+                new PackingThreadFactory("calculation-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class PackingThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger sequence = new AtomicInteger(1);
+
+        private PackingThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.smartship.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Turns on {@code @Scheduled} background jobs such as the carrier catalog refresh. */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,60 @@
+package com.smartship.controller;
+
+import com.smartship.dto.response.CarrierCatalogResponse;
+import com.smartship.dto.response.ProductCatalogResponse;
+import com.smartship.service.CarrierCatalog;
+import com.smartship.service.ProductCatalog;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Operator endpoints. Disabled unless {@code app.admin.token} is set; callers
+ * send the token in the {@code X-Admin-Token} header.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final CarrierCatalog carrierCatalog;
+    private final ProductCatalog productCatalog;
+    private final String adminToken;
+
+    public AdminController(CarrierCatalog carrierCatalog, ProductCatalog productCatalog,
+            @Value("${app.admin.token:}") String adminToken) {
+        this.carrierCatalog = carrierCatalog;
+        this.productCatalog = productCatalog;
+        this.adminToken = adminToken;
+    }
+
+    /** Re-reads the carrier table after it was edited, without a restart. */
+    @PostMapping("/carriers/reload")
+    public CarrierCatalogResponse reloadCarriers(
+            @RequestHeader(name = "X-Admin-Token", required = false) String token) {
+        requireAdmin(token);
+        CarrierCatalog.Snapshot snapshot = carrierCatalog.reload();
+        return new CarrierCatalogResponse(snapshot.version(), snapshot.carriers().size(), snapshot.loadedAt());
+    }
+
+    /** Re-reads the product table and re-serializes the product list responses. */
+    @PostMapping("/products/reload")
+    public ProductCatalogResponse reloadProducts(
+            @RequestHeader(name = "X-Admin-Token", required = false) String token) {
+        requireAdmin(token);
+        ProductCatalog.Snapshot snapshot = productCatalog.reload();
+        return new ProductCatalogResponse(snapshot.version(), snapshot.size(), snapshot.loadedAt());
+    }
+
+    private void requireAdmin(String token) {
+        if (adminToken.isBlank() || token == null || !MessageDigest.isEqual(
+                adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admin access required.");
+        }
+    }
+}
@@ -1,53 +1,68 @@
 package com.smartship.controller;
 
-import com.smartship.dto.response.ProductResponse;
-import com.smartship.entity.ProductReference;
-import com.smartship.repository.ProductRepository;
-import java.util.List;
-import org.springframework.data.domain.Sort;
+import com.smartship.service.ProductCatalog;
+import com.smartship.service.ProductCatalog.Payload;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+/**
+ * Product list endpoints, served from the pre-serialized {@link ProductCatalog}
+ * bodies. Responses carry a strong ETag, so a matching {@code If-None-Match}
+ * gets 304 Not Modified; clients that accept gzip get the compressed body.
+ */
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
-    private final ProductRepository productRepository;
+    private final ProductCatalog productCatalog;
 
-    public ProductController(ProductRepository productRepository) {
-        this.productRepository = productRepository;
+    public ProductController(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
     }
 
     @GetMapping
-    public List<ProductResponse> getProducts(@RequestParam(required = false) String category) {
-        List<ProductReference> products;
-        if (category == null || category.isBlank()) {
-            products = productRepository.findAll(Sort.by("category", "name"));
-        } else {
-            products = productRepository.findByCategoryIgnoreCaseOrderByNameAsc(category);
-        }
-        return products.stream().map(this::toResponse).toList();
+    public ResponseEntity<byte[]> getProducts(@RequestParam(required = false) String category,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve(productCatalog.snapshot().products(category), acceptEncoding);
     }
 
     @GetMapping("/categories")
-    public List<String> getCategories() {
-        return productRepository.findDistinctCategories();
+    public ResponseEntity<byte[]> getCategories(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return serve(productCatalog.snapshot().categories(), acceptEncoding);
+    }
+
+    private ResponseEntity<byte[]> serve(Payload payload, String acceptEncoding) {
+        // Spring compares the ETag with If-None-Match and answers 304 without a body.
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return response.eTag(payload.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(payload.gzip());
+        }
+        return response.eTag(payload.etag()).body(payload.json());
     }
 
-    private ProductResponse toResponse(ProductReference product) {
-        return new ProductResponse(
-            product.getId().longValue(),
-            product.getCategory(),
-            product.getName(),
-            product.getNameJp(),
-            product.getLengthCm(),
-            product.getWidthCm(),
-            product.getHeightCm(),
-            product.getWeightG(),
-            product.getImageIcon(),
-            "reference"
-        );
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 }
@@ -9,10 +9,14 @@ import com.smartship.dto.response.CalculationResponse;
 import com.smartship.dto.response.ShippingResultResponse;
 import com.smartship.entity.Account;
 import com.smartship.entity.ProductReference;
-import com.smartship.repository.ProductRepository;
+import com.smartship.service.AsyncCalculations;
 import com.smartship.service.AuthService;
+import com.smartship.service.CompiledProduct;
 import com.smartship.service.DimensionCalculator;
+import com.smartship.service.ItemGroup;
+import com.smartship.service.PackingContext;
 import com.smartship.service.PackingService;
+import com.smartship.service.ProductCatalog;
 import com.smartship.service.ShippingMatcher;
 import com.smartship.service.ShippingMatcher.ShippingMatch;
 import com.smartship.service.StatsService;
@@ -30,42 +34,57 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/api/shipping")
 public class ShippingController {
-    private static final int MAX_EXPANDED_ITEMS = 120;
+    private static final int MAX_CART_UNITS = 2000;
+    // Per-tab id sent by the frontend; a newer calculation from the same tab cancels the older one.
+    private static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
     private static final Logger log = LoggerFactory.getLogger(ShippingController.class);
 
-    private final ProductRepository productRepository;
+    private final ProductCatalog productCatalog;
     private final DimensionCalculator dimensionCalculator;
     private final ShippingMatcher shippingMatcher;
     private final PackingService packingService;
     private final StatsService statsService;
     private final AuthService authService;
     private final UserProductService userProductService;
+    private final AsyncCalculations asyncCalculations;
 
-    public ShippingController(ProductRepository productRepository,
+    public ShippingController(ProductCatalog productCatalog,
             DimensionCalculator dimensionCalculator,
             ShippingMatcher shippingMatcher,
             PackingService packingService,
             StatsService statsService,
             AuthService authService,
-            UserProductService userProductService) {
-        this.productRepository = productRepository;
+            UserProductService userProductService,
+            AsyncCalculations asyncCalculations) {
+        this.productCatalog = productCatalog;
         this.dimensionCalculator = dimensionCalculator;
         this.shippingMatcher = shippingMatcher;
         this.packingService = packingService;
         this.statsService = statsService;
         this.authService = authService;
         this.userProductService = userProductService;
+        this.asyncCalculations = asyncCalculations;
     }
 
     @PostMapping("/calculate/manual")
-    public CalculationResponse calculateManual(@Valid @RequestBody ManualDimensionRequest request) {
+    public DeferredResult<CalculationResponse> calculateManual(@Valid @RequestBody ManualDimensionRequest request,
+            @RequestHeader(name = CLIENT_ID_HEADER, required = false) String clientId,
+            HttpServletRequest httpRequest) {
+        return asyncCalculations.submit(supersedeKey("manual", clientId, httpRequest),
+                () -> computeManual(request));
+    }
+
+    private CalculationResponse computeManual(ManualDimensionRequest request) {
         Dimensions dims = dimensionCalculator.calculateFromManualInputGrams(
                 request.lengthCm(),
                 request.widthCm(),
@@ -77,7 +96,7 @@ public class ShippingController {
                 0, "Manual", "Manual Item", "手動入力",
                 request.lengthCm(), request.widthCm(), request.heightCm(), request.weightG(), null);
 
-        CalculationResponse response = buildResponse(new ArrayList<>(List.of(virtualProduct)), dims);
+        CalculationResponse response = buildResponse(packingService.newContext(List.of(virtualProduct)), dims);
         recordStatsEvent("manual", response);
         return response;
     }
@@ -85,21 +104,30 @@ public class ShippingController {
     // New endpoint: Returns packed dimensions AND placements (for real-time 3D
     // preview)
     @PostMapping("/calculate/dimensions")
-    public PackingResult calculateDimensions(@Valid @RequestBody CartCalculationRequest request, HttpServletRequest httpRequest) {
-        List<ProductReference> expandedItems = validateAndExpandCartItems(request, httpRequest);
-        PackingResult result = packingService.calculatePackedResult(expandedItems);
+    public DeferredResult<PackingResult> calculateDimensions(@Valid @RequestBody CartCalculationRequest request,
+            @RequestHeader(name = CLIENT_ID_HEADER, required = false) String clientId,
+            HttpServletRequest httpRequest) {
+        // Validation reads the request (auth, saved products), so it stays on the request thread.
+        List<ItemGroup> groups = validateCartItems(request, httpRequest);
+        return asyncCalculations.submit(supersedeKey("dimensions", clientId, httpRequest),
+                () -> computeDimensions(groups));
+    }
+
+    private PackingResult computeDimensions(List<ItemGroup> groups) {
+        PackingContext context = packingService.newContextForGroups(groups);
+        PackingResult result = packingService.calculatePackedResult(context);
 
         if (result == null || result.dimensions() == null) {
             throw new ResponseStatusException(
                     HttpStatus.SERVICE_UNAVAILABLE,
                     "3D packing preview is temporarily unavailable.");
         }
-        if (result.dimensions().getItemCount() != expandedItems.size()) {
+        if (result.dimensions().getItemCount() != context.items().size()) {
             throw new ResponseStatusException(
                     HttpStatus.SERVICE_UNAVAILABLE,
                     "Packed item count mismatch detected.");
         }
-        if (!expandedItems.isEmpty() && (result.placements() == null || result.placements().isEmpty())) {
+        if (!context.isEmpty() && (result.placements() == null || result.placements().isEmpty())) {
             throw new ResponseStatusException(
                     HttpStatus.SERVICE_UNAVAILABLE,
                     "3D packing preview is temporarily unavailable.");
@@ -109,18 +137,44 @@ public class ShippingController {
     }
 
     @PostMapping("/calculate/cart")
-    public CalculationResponse calculateCart(@Valid @RequestBody CartCalculationRequest request, HttpServletRequest httpRequest) {
-        List<ProductReference> expandedItems = validateAndExpandCartItems(request, httpRequest);
+    public DeferredResult<CalculationResponse> calculateCart(@Valid @RequestBody CartCalculationRequest request,
+            @RequestHeader(name = CLIENT_ID_HEADER, required = false) String clientId,
+            HttpServletRequest httpRequest) {
+        List<ItemGroup> groups = validateCartItems(request, httpRequest);
+        return asyncCalculations.submit(supersedeKey("cart", clientId, httpRequest),
+                () -> computeCart(groups));
+    }
+
+    private CalculationResponse computeCart(List<ItemGroup> groups) {
+        // One packing context per request: the packed dimensions shown to the user
+        // and every carrier check share the same cart model and packer results.
+        PackingContext context = packingService.newContextForGroups(groups);
         // Use PackingService to get REAL packed dimensions to show the user
-        Dimensions dims = packingService.calculatePackedDimensions(expandedItems);
+        Dimensions dims = packingService.calculatePackedDimensions(context);
 
-        CalculationResponse response = buildResponse(expandedItems, dims);
+        CalculationResponse response = buildResponse(context, dims);
         recordStatsEvent("cart", response);
         return response;
     }
 
-    private CalculationResponse buildResponse(List<ProductReference> items, Dimensions dims) {
-        List<ShippingMatch> matches = shippingMatcher.findBestOptions(items, dims);
+    /**
+     * Key under which a newer request from the same client replaces an older one,
+     * or null. The client id is chosen by the caller, so the key is scoped to the
+     * signed-in account, or to the remote address for anonymous calls; nobody
+     * can cancel another user's calculation by sending their id.
+     */
+    private String supersedeKey(String endpoint, String clientId, HttpServletRequest httpRequest) {
+        if (clientId == null || clientId.isBlank() || clientId.length() > MAX_CLIENT_ID_LENGTH) {
+            return null;
+        }
+        String owner = authService.getCurrentAccountId(httpRequest)
+                .map(accountId -> "account:" + accountId)
+                .orElseGet(() -> "ip:" + httpRequest.getRemoteAddr());
+        return endpoint + ":" + owner + ":" + clientId;
+    }
+
+    private CalculationResponse buildResponse(PackingContext context, Dimensions dims) {
+        List<ShippingMatch> matches = shippingMatcher.findBestOptions(context, dims);
         List<ShippingResultResponse> options = matches.stream()
                 .map(this::toResponse)
                 .toList();
@@ -128,7 +182,7 @@ public class ShippingController {
         return new CalculationResponse(dims, recommended, options);
     }
 
-    private List<ProductReference> validateAndExpandCartItems(CartCalculationRequest request, HttpServletRequest httpRequest) {
+    private List<ItemGroup> validateCartItems(CartCalculationRequest request, HttpServletRequest httpRequest) {
         if (request == null || request.items() == null || request.items().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart items are required.");
         }
@@ -146,24 +200,28 @@ public class ShippingController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart items are required.");
         }
 
-        List<ProductReference> products = productRepository.findAllById(productIds);
-        Map<Integer, ProductReference> productMap = products.stream()
-                .collect(Collectors.toMap(ProductReference::getId, product -> product));
-
-        if (productMap.size() != productIds.size()) {
-            Set<Integer> missing = new HashSet<>(productIds);
-            missing.removeAll(productMap.keySet());
+        // Reference products and their descriptors come from the catalog snapshot, not a query.
+        ProductCatalog.Snapshot catalog = productCatalog.snapshot();
+        Set<Integer> missing = new HashSet<>();
+        for (Integer productId : productIds) {
+            if (catalog.product(productId) == null) {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST,
                     "Unknown product IDs: " + missing);
         }
 
-        Account account = null;
+        Map<Long, CompiledProduct> savedProducts = Map.of();
         if (!savedProductIds.isEmpty()) {
-            account = authService.requireCurrentAccount(httpRequest);
+            Account account = authService.requireCurrentAccount(httpRequest);
+            savedProducts = userProductService.requireSavedProducts(account, savedProductIds);
         }
 
-        List<ProductReference> expandedItems = new ArrayList<>();
+        List<ItemGroup> groups = new ArrayList<>();
+        int totalUnits = 0;
         for (CartItemDto item : request.items()) {
             Integer productId = item.productId();
             Long savedProductId = item.savedProductId();
@@ -176,31 +234,25 @@ public class ShippingController {
                         "Each cart item must specify exactly one product source.");
             }
 
-            ProductReference product = hasReferenceProduct
-                    ? productMap.get(productId)
-                    : userProductService.requireSavedProductAsReference(account, savedProductId);
+            CompiledProduct product = hasReferenceProduct
+                    ? catalog.product(productId)
+                    : savedProducts.get(savedProductId);
 
-            if (product == null) {
+            // Quantities stay on the line; identical units are packed as one box group.
+            totalUnits += item.quantity();
+            if (totalUnits > MAX_CART_UNITS) {
                 throw new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST,
-                        hasReferenceProduct ? "Unknown product ID: " + productId : "Unknown saved product ID: " + savedProductId);
-            }
-
-            for (int i = 0; i < item.quantity(); i++) {
-                expandedItems.add(product);
-                if (expandedItems.size() > MAX_EXPANDED_ITEMS) {
-                    throw new ResponseStatusException(
-                            HttpStatus.PAYLOAD_TOO_LARGE,
-                            "Too many items for real-time packing. Please reduce quantity.");
-                }
+                        HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Too many items for real-time packing. Please reduce quantity.");
             }
+            groups.add(product.group(item.quantity()));
         }
 
-        if (expandedItems.isEmpty()) {
+        if (groups.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cart items are required.");
         }
 
-        return expandedItems;
+        return groups;
     }
 
     private ShippingResultResponse toResponse(ShippingMatch match) {
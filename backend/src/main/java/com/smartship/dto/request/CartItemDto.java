@@ -6,5 +6,5 @@ import jakarta.validation.constraints.Min;
 public record CartItemDto(
         Integer productId,
         Long savedProductId,
-        @Min(1) @Max(20) int quantity) {
+        @Min(1) @Max(1000) int quantity) {
 }
@@ -0,0 +1,9 @@
+package com.smartship.dto.response;
+
+import java.time.Instant;
+
+public record ProductCatalogResponse(
+        long version,
+        int productCount,
+        Instant loadedAt) {
+}
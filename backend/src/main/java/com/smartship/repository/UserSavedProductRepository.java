@@ -1,6 +1,7 @@
 package com.smartship.repository;
 
 import com.smartship.entity.UserSavedProduct;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,4 +10,6 @@ public interface UserSavedProductRepository extends JpaRepository<UserSavedProdu
     List<UserSavedProduct> findByAccountIdOrderByCreatedAtDesc(Long accountId);
 
     Optional<UserSavedProduct> findByIdAndAccountId(Long id, Long accountId);
+
+    List<UserSavedProduct> findAllByIdInAndAccountId(Collection<Long> ids, Long accountId);
 }
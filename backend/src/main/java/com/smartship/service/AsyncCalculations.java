@@ -0,0 +1,103 @@
+package com.smartship.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Runs calculations off the request thread and cancels the ones nobody waits for.
+ *
+ * A calculation is cancelled by interrupting its thread, which the packers
+ * check cooperatively (library interrupt hooks, portfolio stop, exact solver
+ * stop, compaction passes). That happens when the client disconnects, when the
+ * request times out, and when a newer request arrives with the same supersede
+ * key — the frontend recalculates on every cart edit, so only the latest
+ * answer matters.
+ */
+@Component
+public class AsyncCalculations {
+
+    private final ExecutorService executor;
+    private final long timeoutMs;
+    private final ConcurrentHashMap<String, Calculation<?>> latestByKey = new ConcurrentHashMap<>();
+
+    public AsyncCalculations(@Qualifier("calculationExecutor") ExecutorService executor,
+            @Value("${app.calculation.timeout-ms:15000}") long timeoutMs) {
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @param supersedeKey requests sharing a key cancel each other, newest wins;
+     *                     null when the caller cannot be identified
+     */
+    public <T> DeferredResult<T> submit(String supersedeKey, Supplier<T> work) {
+        DeferredResult<T> deferred = new DeferredResult<>(timeoutMs);
+        Calculation<T> calculation = new Calculation<>(deferred, work);
+
+        deferred.onTimeout(() -> {
+            calculation.cancel();
+            deferred.setErrorResult(new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Calculation timed out. Please retry."));
+        });
+        // Raised by the container when the client goes away mid-calculation.
+        deferred.onError(error -> calculation.cancel());
+        if (supersedeKey != null) {
+            deferred.onCompletion(() -> latestByKey.remove(supersedeKey, calculation));
+        }
+
+        if (supersedeKey != null) {
+            Calculation<?> previous = latestByKey.put(supersedeKey, calculation);
+            if (previous != null) {
+                previous.supersede();
+            }
+        }
+        try {
+            executor.execute(calculation.task);
+        } catch (RejectedExecutionException e) {
+            calculation.cancel();
+            deferred.setErrorResult(new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Too many calculations in progress. Please retry."));
+        }
+        return deferred;
+    }
+
+    private static final class Calculation<T> {
+        private final DeferredResult<T> deferred;
+        private final FutureTask<Void> task;
+
+        private Calculation(DeferredResult<T> deferred, Supplier<T> work) {
+            this.deferred = deferred;
+            this.task = new FutureTask<>(() -> {
+                try {
+                    T result = work.get();
+                    // A cancelled run may have been cut short; its answer is not sent.
+                    if (!Thread.currentThread().isInterrupted()) {
+                        deferred.setResult(result);
+                    }
+                } catch (RuntimeException e) {
+                    deferred.setErrorResult(e);
+                }
+                return null;
+            });
+        }
+
+        private void cancel() {
+            task.cancel(true);
+        }
+
+        private void supersede() {
+            cancel();
+            deferred.setErrorResult(new ResponseStatusException(
+                    HttpStatus.CONFLICT, "Superseded by a newer request."));
+        }
+    }
+}
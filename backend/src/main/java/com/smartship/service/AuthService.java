@@ -133,6 +133,13 @@ public class AuthService {
                 .flatMap(principal -> accountRepository.findById(principal.accountId()));
     }
 
+    /** Account id of a valid access token, without loading the account. */
+    public Optional<Long> getCurrentAccountId(HttpServletRequest request) {
+        return readBearerToken(request)
+                .flatMap(accessTokenService::parse)
+                .map(AccessTokenService.AccessTokenPrincipal::accountId);
+    }
+
     public Account requireCurrentAccount(HttpServletRequest request) {
         return getCurrentAccount(request)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "ログインが必要です。"));
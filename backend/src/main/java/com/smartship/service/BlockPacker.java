@@ -0,0 +1,275 @@
+package com.smartship.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block-building packer for large carts.
+ *
+ * Units of the same or nearly the same size (every sorted side within
+ * {@link #SIMILAR_SIZE_TOLERANCE} of the cluster's cell) are stacked into
+ * cuboid grid blocks first; only the blocks are then placed, on extreme
+ * points, largest first, each where it grows the bounding box least. The
+ * block count depends on the number of distinct sizes rather than on the
+ * number of units, so a cart of a few thousand units packs in milliseconds.
+ *
+ * Each unit keeps its own size inside its grid cell. Blocks are never
+ * mixed, so small carts of varied items are better served by the other
+ * packers; null means "no block layout fits", not "does not fit".
+ */
+final class BlockPacker {
+
+    private static final double SIMILAR_SIZE_TOLERANCE = 0.1;
+    private static final int[][] PERMUTATIONS = {
+            { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+
+    /** Units sharing one grid cell size (sorted, short to long). */
+    private static final class Cluster {
+        private final int[] cell;
+        private final List<Integer> members = new ArrayList<>();
+
+        private Cluster(int[] cell) {
+            this.cell = cell;
+        }
+    }
+
+    /**
+     * {@code nx×ny×nz} cells of the cluster's cell, turned so that block axis k
+     * runs along cell side {@code turn[k]}; filled x, then y, then z.
+     */
+    private record Block(int[] cell, int[] turn, int nx, int ny, int nz, List<Integer> members) {
+
+        int side(int axis) {
+            return cell[turn[axis]] * (axis == 0 ? nx : axis == 1 ? ny : nz);
+        }
+
+        long volume() {
+            return (long) side(0) * side(1) * side(2);
+        }
+    }
+
+    private BlockPacker() {
+    }
+
+    /**
+     * @param itemsMm   sides of every unit, sorted short to long
+     * @param container container size in mm, or null for an unbounded container
+     * @return one placement per unit, or null if the blocks do not fit
+     */
+    static List<ExactPacker.Placed> pack(List<int[]> itemsMm, int[] container) {
+        int[] limit = container == null ? null : sorted(container);
+        List<Block> blocks = new ArrayList<>();
+        for (Cluster cluster : cluster(itemsMm)) {
+            List<Block> clusterBlocks = buildBlocks(cluster, limit);
+            if (clusterBlocks == null) {
+                return null;
+            }
+            blocks.addAll(clusterBlocks);
+        }
+        blocks.sort((a, b) -> Long.compare(b.volume(), a.volume()));
+        return place(blocks, itemsMm, container);
+    }
+
+    private static List<Cluster> cluster(List<int[]> itemsMm) {
+        List<Integer> order = new ArrayList<>(itemsMm.size());
+        for (int i = 0; i < itemsMm.size(); i++) {
+            order.add(i);
+        }
+        // Largest first, so a cluster's cell is the largest size it holds.
+        order.sort((a, b) -> Long.compare(volume(itemsMm.get(b)), volume(itemsMm.get(a))));
+
+        List<Cluster> clusters = new ArrayList<>();
+        Map<Long, Cluster> bySize = new HashMap<>();
+        for (int index : order) {
+            int[] size = itemsMm.get(index);
+            Cluster cluster = bySize.computeIfAbsent(sizeKey(size), key -> {
+                for (Cluster existing : clusters) {
+                    if (isSimilar(size, existing.cell)) {
+                        return existing;
+                    }
+                }
+                Cluster created = new Cluster(size.clone());
+                clusters.add(created);
+                return created;
+            });
+            cluster.members.add(index);
+        }
+        return clusters;
+    }
+
+    private static boolean isSimilar(int[] size, int[] cell) {
+        for (int k = 0; k < 3; k++) {
+            if (size[k] > cell[k] || size[k] < cell[k] * (1 - SIMILAR_SIZE_TOLERANCE)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a cluster into as few blocks as the container allows, each shaped
+     * with the smallest size sum.
+     */
+    private static List<Block> buildBlocks(Cluster cluster, int[] limit) {
+        int count = cluster.members.size();
+        int perBlock = count;
+        if (limit != null) {
+            long capacity = 0;
+            for (int[] p : PERMUTATIONS) {
+                capacity = Math.max(capacity, (long) (limit[0] / cluster.cell[p[0]])
+                        * (limit[1] / cluster.cell[p[1]]) * (limit[2] / cluster.cell[p[2]]));
+            }
+            if (capacity == 0) {
+                return null;
+            }
+            int blockCount = (int) ((count + capacity - 1) / capacity);
+            perBlock = (count + blockCount - 1) / blockCount;
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        for (int from = 0; from < count; from += perBlock) {
+            List<Integer> members = cluster.members.subList(from, Math.min(count, from + perBlock));
+            Block block = shape(cluster.cell, members, limit);
+            if (block == null) {
+                return null;
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    private static Block shape(int[] cell, List<Integer> members, int[] limit) {
+        int count = members.size();
+        Block best = null;
+        long bestSum = Long.MAX_VALUE;
+        for (int[] turn : PERMUTATIONS) {
+            for (int nx = 1; nx <= count; nx++) {
+                int rows = (count + nx - 1) / nx;
+                for (int ny = 1; ny <= rows; ny++) {
+                    int nz = (count + nx * ny - 1) / (nx * ny);
+                    long x = (long) cell[turn[0]] * nx;
+                    long y = (long) cell[turn[1]] * ny;
+                    long z = (long) cell[turn[2]] * nz;
+                    if (limit != null && !fits(x, y, z, limit)) {
+                        continue;
+                    }
+                    // Flattest block wins a tie: lower centre of gravity, easier to stack on.
+                    long sum = x + y + z;
+                    if (sum < bestSum || sum == bestSum && z < best.side(2)) {
+                        best = new Block(cell, turn, nx, ny, nz, members);
+                        bestSum = sum;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static boolean fits(long x, long y, long z, int[] limit) {
+        long[] s = { x, y, z };
+        Arrays.sort(s);
+        return s[0] <= limit[0] && s[1] <= limit[1] && s[2] <= limit[2];
+    }
+
+    private static List<ExactPacker.Placed> place(List<Block> blocks, List<int[]> itemsMm, int[] container) {
+        List<int[]> placedBoxes = new ArrayList<>(blocks.size());
+        List<int[]> points = new ArrayList<>();
+        points.add(new int[3]);
+        int[] extent = new int[3];
+        List<ExactPacker.Placed> placements = new ArrayList<>(itemsMm.size());
+
+        for (Block block : blocks) {
+            int[] side = { block.side(0), block.side(1), block.side(2) };
+            int[] bestBox = null;
+            int[] bestTurn = null;
+            long bestSum = Long.MAX_VALUE;
+            long bestHeight = Long.MAX_VALUE;
+            int bestPoint = -1;
+            for (int e = 0; e < points.size(); e++) {
+                int[] p = points.get(e);
+                for (int[] turn : PERMUTATIONS) {
+                    int[] box = { p[0], p[1], p[2], side[turn[0]], side[turn[1]], side[turn[2]] };
+                    if (container != null && (box[0] + box[3] > container[0] || box[1] + box[4] > container[1]
+                            || box[2] + box[5] > container[2])) {
+                        continue;
+                    }
+                    long sum = (long) Math.max(extent[0], box[0] + box[3]) + Math.max(extent[1], box[1] + box[4])
+                            + Math.max(extent[2], box[2] + box[5]);
+                    long height = box[2] + box[5];
+                    if ((sum < bestSum || sum == bestSum && height < bestHeight) && !overlaps(box, placedBoxes)) {
+                        bestBox = box;
+                        bestTurn = turn;
+                        bestSum = sum;
+                        bestHeight = height;
+                        bestPoint = e;
+                    }
+                }
+            }
+            if (bestBox == null) {
+                return null;
+            }
+
+            placedBoxes.add(bestBox);
+            points.remove(bestPoint);
+            points.add(new int[] { bestBox[0] + bestBox[3], bestBox[1], bestBox[2] });
+            points.add(new int[] { bestBox[0], bestBox[1] + bestBox[4], bestBox[2] });
+            points.add(new int[] { bestBox[0], bestBox[1], bestBox[2] + bestBox[5] });
+            for (int k = 0; k < 3; k++) {
+                extent[k] = Math.max(extent[k], bestBox[k] + bestBox[k + 3]);
+            }
+            addUnits(block, bestBox, bestTurn, itemsMm, placements);
+        }
+        return placements;
+    }
+
+    private static boolean overlaps(int[] box, List<int[]> placedBoxes) {
+        for (int[] other : placedBoxes) {
+            if (box[0] < other[0] + other[3] && other[0] < box[0] + box[3]
+                    && box[1] < other[1] + other[4] && other[1] < box[1] + box[4]
+                    && box[2] < other[2] + other[5] && other[2] < box[2] + box[5]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Emits the block's units. Block axis k lies along container axis j where
+     * {@code placedTurn[j] == k}; unit sides follow the block's cell turn.
+     */
+    private static void addUnits(Block block, int[] box, int[] placedTurn, List<int[]> itemsMm,
+            List<ExactPacker.Placed> placements) {
+        int[] cellSide = { block.cell[block.turn[0]], block.cell[block.turn[1]], block.cell[block.turn[2]] };
+        for (int j = 0; j < block.members.size(); j++) {
+            int index = block.members.get(j);
+            int[] size = itemsMm.get(index);
+            int[] grid = { j % block.nx, (j / block.nx) % block.ny, j / (block.nx * block.ny) };
+            int[] origin = new int[3];
+            int[] extent = new int[3];
+            for (int axis = 0; axis < 3; axis++) {
+                int k = placedTurn[axis];
+                origin[axis] = box[axis] + grid[k] * cellSide[k];
+                extent[axis] = size[block.turn[k]];
+            }
+            placements.add(new ExactPacker.Placed(index, origin[0], origin[1], origin[2],
+                    extent[0], extent[1], extent[2]));
+        }
+    }
+
+    private static int[] sorted(int[] sides) {
+        int[] copy = sides.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static long volume(int[] size) {
+        return (long) size[0] * size[1] * size[2];
+    }
+
+    private static long sizeKey(int[] size) {
+        return ((long) size[0] << 42) ^ ((long) size[1] << 21) ^ size[2];
+    }
+}
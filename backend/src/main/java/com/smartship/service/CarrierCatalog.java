@@ -0,0 +1,167 @@
+package com.smartship.service;
+
+import com.github.skjolber.packing.api.Container;
+import com.smartship.entity.ShippingCarrier;
+import com.smartship.repository.ShippingCarrierRepository;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the carrier table, so requests never query it.
+ *
+ * The table is read into an immutable {@link Snapshot}: carriers sorted by
+ * price, their packing containers, the dominance DAG and the tracking flags.
+ * A reload builds a new snapshot and swaps it in atomically; requests that
+ * already hold the old one finish on it. Reloads happen at startup, from the
+ * admin endpoint, and on a schedule that swaps only when the rows changed.
+ */
+@Component
+public class CarrierCatalog {
+
+    /** One version of the carrier table. Carriers must be treated as read-only. */
+    public static final class Snapshot {
+
+        private final long version;
+        private final byte[] checksum;
+        private final Instant loadedAt;
+        private final List<ShippingCarrier> carriers;
+        private final boolean[] tracked;
+        private final CarrierDominance dominance;
+        private final Map<String, Container> containers;
+
+        private Snapshot(long version, byte[] checksum, Instant loadedAt, List<ShippingCarrier> carriers) {
+            this.version = version;
+            this.checksum = checksum;
+            this.loadedAt = loadedAt;
+            this.carriers = List.copyOf(carriers);
+            this.tracked = new boolean[this.carriers.size()];
+            Map<String, Container> byKey = new HashMap<>();
+            for (int i = 0; i < this.carriers.size(); i++) {
+                ShippingCarrier carrier = this.carriers.get(i);
+                tracked[i] = Boolean.TRUE.equals(carrier.getHasTracking());
+                if (carrier.getMaxLength() != null && carrier.getMaxWidth() != null && carrier.getMaxHeight() != null) {
+                    byKey.putIfAbsent(CartFingerprint.containerKey(carrier), compileContainer(carrier));
+                }
+            }
+            this.dominance = CarrierDominance.of(this.carriers);
+            this.containers = Map.copyOf(byKey);
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public Instant loadedAt() {
+            return loadedAt;
+        }
+
+        /** All carriers, cheapest first. */
+        public List<ShippingCarrier> carriers() {
+            return carriers;
+        }
+
+        /** Tracking flag of {@link #carriers()}{@code .get(index)}. */
+        public boolean hasTracking(int index) {
+            return tracked[index];
+        }
+
+        CarrierDominance dominance() {
+            return dominance;
+        }
+
+        /** Packing container for the carrier's box, or null if it is not in this snapshot. */
+        Container container(ShippingCarrier carrier) {
+            return containers.get(CartFingerprint.containerKey(carrier));
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CarrierCatalog.class);
+
+    private final ShippingCarrierRepository carrierRepository;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public CarrierCatalog(ShippingCarrierRepository carrierRepository) {
+        this.carrierRepository = carrierRepository;
+    }
+
+    /** The current snapshot; loads the table on first use if startup has not yet. */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot : reload();
+    }
+
+    /** Reads the table and swaps in a new snapshot, even if nothing changed. */
+    public synchronized Snapshot reload() {
+        List<ShippingCarrier> carriers = carrierRepository.findAllByOrderByPriceYenAsc();
+        return swap(carriers, checksum(carriers));
+    }
+
+    /** Scheduled version check: swaps only when the rows differ from the current snapshot. */
+    @Scheduled(initialDelayString = "${app.carriers.refresh-ms:300000}",
+            fixedDelayString = "${app.carriers.refresh-ms:300000}")
+    public synchronized void refreshIfChanged() {
+        try {
+            List<ShippingCarrier> carriers = carrierRepository.findAllByOrderByPriceYenAsc();
+            byte[] checksum = checksum(carriers);
+            Snapshot previous = current.get();
+            if (previous == null || !MessageDigest.isEqual(previous.checksum, checksum)) {
+                swap(carriers, checksum);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Carrier catalog refresh failed; keeping the current snapshot", e);
+        }
+    }
+
+    private Snapshot swap(List<ShippingCarrier> carriers, byte[] checksum) {
+        Snapshot previous = current.get();
+        Snapshot next = new Snapshot(previous == null ? 1 : previous.version + 1, checksum, Instant.now(), carriers);
+        current.set(next);
+        log.info("Carrier catalog v{} loaded: {} carriers", next.version, next.carriers.size());
+        return next;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Carrier catalog could not be loaded at startup; retrying on first use", e);
+        }
+    }
+
+    /** Library container for a carrier's box, in mm. */
+    static Container compileContainer(ShippingCarrier carrier) {
+        return Container.newBuilder()
+                .withDescription(carrier.getFullName())
+                .withSize(toMm(carrier.getMaxLength()), toMm(carrier.getMaxWidth()), toMm(carrier.getMaxHeight()))
+                .withEmptyWeight(0)
+                .withMaxLoadWeight(carrier.getMaxWeightG() != null ? carrier.getMaxWeightG() : 100_000)
+                .build();
+    }
+
+    /** SHA-256 of every carrier field, so an unchanged checksum means unchanged rows. */
+    private static byte[] checksum(List<ShippingCarrier> carriers) {
+        RowDigest digest = new RowDigest();
+        for (ShippingCarrier c : carriers) {
+            digest.add(c.getId()).add(c.getCompanyName()).add(c.getServiceName())
+                    .add(c.getMaxLength()).add(c.getMaxWidth()).add(c.getMaxHeight()).add(c.getMaxWeightG())
+                    .add(c.getSizeSumLimit()).add(c.getPriceYen()).add(c.getHasTracking())
+                    .add(c.getSendLocation()).add(c.getNotes());
+        }
+        return digest.finish();
+    }
+
+    private static int toMm(double cm) {
+        return (int) Math.round(cm * 10);
+    }
+}
@@ -0,0 +1,102 @@
+package com.smartship.service;
+
+import com.smartship.entity.ShippingCarrier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dominance DAG over a carrier list.
+ *
+ * Carrier B dominates carrier A when B's sorted container sides are all at
+ * least A's and B's weight limit is at least A's (no limit counts as
+ * unlimited). Any packing that fits A then fits B (rotated as a whole), and a
+ * cart that cannot be packed into B cannot be packed into A either. The
+ * relation is transitive, so each list already holds the full closure.
+ * Size-sum limits are not part of it; callers check them per packing.
+ */
+final class CarrierDominance {
+
+    private static final int[] NONE = new int[0];
+
+    private final int[][] dominators;
+    private final int[][] dominated;
+
+    private CarrierDominance(int[][] dominators, int[][] dominated) {
+        this.dominators = dominators;
+        this.dominated = dominated;
+    }
+
+    static CarrierDominance of(List<ShippingCarrier> carriers) {
+        int n = carriers.size();
+        int[][] sides = new int[n][];
+        long[] maxWeightG = new long[n];
+        for (int i = 0; i < n; i++) {
+            sides[i] = sortedSidesMm(carriers.get(i));
+            maxWeightG[i] = maxWeightG(carriers.get(i));
+        }
+
+        List<List<Integer>> up = new ArrayList<>(n);
+        List<List<Integer>> down = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            up.add(new ArrayList<>());
+            down.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j && covers(sides[j], sides[i]) && maxWeightG[j] >= maxWeightG[i]) {
+                    up.get(i).add(j);
+                    down.get(j).add(i);
+                }
+            }
+        }
+
+        int[][] dominators = new int[n][];
+        int[][] dominated = new int[n][];
+        for (int i = 0; i < n; i++) {
+            dominators[i] = toArray(up.get(i));
+            dominated[i] = toArray(down.get(i));
+        }
+        return new CarrierDominance(dominators, dominated);
+    }
+
+    /** Indices of carriers at least as large as carrier {@code index}. */
+    int[] dominatorsOf(int index) {
+        return dominators[index];
+    }
+
+    /** Indices of carriers no larger than carrier {@code index}. */
+    int[] dominatedBy(int index) {
+        return dominated[index];
+    }
+
+    private static boolean covers(int[] larger, int[] smaller) {
+        if (larger == null || smaller == null) {
+            return false;
+        }
+        return larger[0] >= smaller[0] && larger[1] >= smaller[1] && larger[2] >= smaller[2];
+    }
+
+    private static long maxWeightG(ShippingCarrier carrier) {
+        return carrier.getMaxWeightG() != null ? carrier.getMaxWeightG() : Long.MAX_VALUE;
+    }
+
+    private static int[] sortedSidesMm(ShippingCarrier carrier) {
+        if (carrier.getMaxLength() == null || carrier.getMaxWidth() == null || carrier.getMaxHeight() == null) {
+            return null;
+        }
+        int[] sides = {
+                (int) Math.round(carrier.getMaxLength() * 10),
+                (int) Math.round(carrier.getMaxWidth() * 10),
+                (int) Math.round(carrier.getMaxHeight() * 10) };
+        Arrays.sort(sides);
+        return sides;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return NONE;
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
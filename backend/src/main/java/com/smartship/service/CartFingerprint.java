@@ -0,0 +1,76 @@
+package com.smartship.service;
+
+import com.smartship.entity.ProductReference;
+import com.smartship.entity.ShippingCarrier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonical, order-independent cache keys for packing requests.
+ *
+ * Items are reduced to rotation-normalised mm dimensions (sorted ascending)
+ * plus weight and name, then counted as a multiset, so the same cart in any
+ * order or split across lines yields the same key. The name stays in the key
+ * because cached placements carry item labels.
+ */
+final class CartFingerprint {
+
+    static final String FREE_SIZE_CONTAINER = "free";
+
+    private CartFingerprint() {
+    }
+
+    static String of(List<ProductReference> items, String containerKey) {
+        return of(counts(items), containerKey);
+    }
+
+    /** Key for an item multiset as returned by {@link #counts(List)}. */
+    static String of(Map<String, Integer> counts, String containerKey) {
+        StringBuilder key = new StringBuilder(containerKey.length() + counts.size() * 32);
+        key.append(containerKey).append('#');
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            key.append(entry.getKey()).append('*').append(entry.getValue()).append(';');
+        }
+        return key.toString();
+    }
+
+    /** Item multiset as canonical item key to unit count, in key order. */
+    static Map<String, Integer> counts(List<ProductReference> items) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ProductReference item : items) {
+            counts.merge(itemKey(item), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /** Same as {@link #counts(List)}, without expanding groups into units. */
+    static Map<String, Integer> groupCounts(List<ItemGroup> groups) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ItemGroup group : groups) {
+            counts.merge(group.descriptor().key(), group.quantity(), Integer::sum);
+        }
+        return counts;
+    }
+
+    static String itemKey(ProductReference item) {
+        int[] dims = {
+                toMm(item.getLengthCm()), toMm(item.getWidthCm()), toMm(item.getHeightCm()) };
+        Arrays.sort(dims);
+        return itemKey(dims, item.getWeightG(), item.getName());
+    }
+
+    static String itemKey(int[] sortedMm, int weightG, String name) {
+        return sortedMm[0] + "x" + sortedMm[1] + "x" + sortedMm[2] + ":" + weightG + ":" + name;
+    }
+
+    static String containerKey(ShippingCarrier carrier) {
+        return "c:" + toMm(carrier.getMaxLength()) + "x" + toMm(carrier.getMaxWidth()) + "x"
+                + toMm(carrier.getMaxHeight()) + ":" + carrier.getMaxWeightG();
+    }
+
+    private static int toMm(double cm) {
+        return (int) Math.round(cm * 10);
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartship.service;
+
+import com.smartship.entity.ProductReference;
+
+/** A product ready for packing: the reference row plus its compiled {@link ItemDescriptor}. */
+public record CompiledProduct(ProductReference product, ItemDescriptor descriptor) {
+
+    public static CompiledProduct of(ProductReference product) {
+        return new CompiledProduct(product, ItemDescriptor.compile(product));
+    }
+
+    public ItemGroup group(int quantity) {
+        return new ItemGroup(product, quantity, descriptor);
+    }
+}
@@ -0,0 +1,169 @@
+package com.smartship.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Minimum enclosing box search: the smallest size sum (L+W+H) of a box that a
+ * feasibility packer (the oracle) can fill with the cart.
+ *
+ * Binary search on the size sum S, between the cart's lower bound and the
+ * best layout known so far. Each probe spreads the slack S leaves above the
+ * largest item sides over the three axes in a few ways and packs those boxes
+ * side by side ({@link PackingPortfolio}, first fit wins). A fit lowers the
+ * upper bound to the size sum of the packed layout itself, often well below
+ * S; a probe where every shape fails raises the lower end.
+ *
+ * Boxes the oracle failed on are remembered. A shape no larger on any sorted
+ * side than one of them is skipped without a call, as are shapes too small
+ * for the item volume or too big for the optional cap.
+ */
+final class EnclosingBoxSearch<T> {
+
+    /** Packs the cart into a box (mm, longest side first); null when it does not fit. */
+    @FunctionalInterface
+    interface Oracle<T> {
+        T pack(int[] box, long deadlineMillis, BooleanSupplier stop);
+    }
+
+    /**
+     * @param best         the tightest layout found (the seed if nothing beat it)
+     * @param sizeSumMm    its size sum
+     * @param lowerBoundMm the cart's lower bound on any size sum
+     * @param closed       true when the search met the lower end before the deadline
+     */
+    record Outcome<T>(T best, int sizeSumMm, int lowerBoundMm, boolean closed) {
+
+        /** Relative distance to the lower bound: 0 means provably minimal. */
+        double gap() {
+            return lowerBoundMm > 0 ? (double) (sizeSumMm - lowerBoundMm) / lowerBoundMm : 0;
+        }
+    }
+
+    // Slack split over the sorted sides (short, middle, long).
+    private static final int[][] SLACK_SPLITS = {
+            { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 0 }, { 1, 0, 1 }, { 0, 1, 1 }, { 1, 1, 1 } };
+
+    private final Executor executor;
+    private final Oracle<T> oracle;
+    private final ToIntFunction<T> sizeSumMm;
+    private final Queue<int[]> misses = new ConcurrentLinkedQueue<>();
+
+    EnclosingBoxSearch(Executor executor, Oracle<T> oracle, ToIntFunction<T> sizeSumMm) {
+        this.executor = executor;
+        this.oracle = oracle;
+        this.sizeSumMm = sizeSumMm;
+    }
+
+    /**
+     * @param maxSorted    largest item side per sorted position (short to long), mm
+     * @param totalVolume  item volume, mm³
+     * @param cap          sorted sides (short to long) no probe may exceed, or null
+     * @param seed         a known layout; its size sum is the starting upper bound
+     */
+    Outcome<T> search(int[] maxSorted, long totalVolume, int[] cap, T seed, long deadlineMillis) {
+        int lowerBound = (int) Math.ceil(PackingLowerBounds.minSizeSumMm(maxSorted, totalVolume) - 1e-6);
+        T best = seed;
+        int high = sizeSumMm.applyAsInt(seed);
+        int low = lowerBound;
+        while (low < high && System.currentTimeMillis() < deadlineMillis && !Thread.currentThread().isInterrupted()) {
+            int mid = (low + high) >>> 1;
+            List<int[]> shapes = shapes(maxSorted, totalVolume, cap, mid);
+            T fit = shapes.isEmpty() ? null : probe(shapes, probeDeadline(low, high, deadlineMillis));
+            if (fit != null && sizeSumMm.applyAsInt(fit) < high) {
+                best = fit;
+                high = sizeSumMm.applyAsInt(fit);
+            } else if (System.currentTimeMillis() < deadlineMillis) {
+                low = mid + 1;
+            }
+        }
+        return new Outcome<>(best, high, lowerBound, low >= high);
+    }
+
+    private T probe(List<int[]> shapes, long deadlineMillis) {
+        List<PackingPortfolio.Strategy<T>> strategies = new ArrayList<>(shapes.size());
+        for (int[] box : shapes) {
+            strategies.add((until, stop) -> {
+                T fit = oracle.pack(box, until, stop);
+                // Only a packer that gave up on its own is evidence of a miss.
+                if (fit == null && !stop.getAsBoolean() && System.currentTimeMillis() < until) {
+                    int[] sorted = box.clone();
+                    Arrays.sort(sorted);
+                    misses.add(sorted);
+                }
+                return fit;
+            });
+        }
+        return new PackingPortfolio<T>(executor,
+                (a, b) -> sizeSumMm.applyAsInt(a) < sizeSumMm.applyAsInt(b), r -> true)
+                .run(strategies, deadlineMillis)
+                .best();
+    }
+
+    /** Boxes with size sum {@code sum}, longest side first, worth asking the oracle about. */
+    List<int[]> shapes(int[] maxSorted, long totalVolume, int[] cap, int sum) {
+        int slack = sum - maxSorted[0] - maxSorted[1] - maxSorted[2];
+        List<int[]> shapes = new ArrayList<>(SLACK_SPLITS.length);
+        if (slack < 0) {
+            return shapes;
+        }
+        for (int[] split : SLACK_SPLITS) {
+            int parts = split[0] + split[1] + split[2];
+            int[] sides = new int[3];
+            int left = slack;
+            for (int k = 0; k < 3; k++) {
+                int add = slack * split[k] / parts;
+                sides[k] = maxSorted[k] + add;
+                left -= add;
+            }
+            for (int k = 0; k < 3 && left > 0; k++) {
+                if (split[k] > 0) {
+                    sides[k] += left;
+                    left = 0;
+                }
+            }
+            Arrays.sort(sides);
+            if ((long) sides[0] * sides[1] * sides[2] < totalVolume || exceeds(sides, cap)
+                    || isKnownMiss(sides) || contains(shapes, sides)) {
+                continue;
+            }
+            shapes.add(new int[] { sides[2], sides[1], sides[0] });
+        }
+        return shapes;
+    }
+
+    private boolean isKnownMiss(int[] sorted) {
+        for (int[] miss : misses) {
+            if (sorted[0] <= miss[0] && sorted[1] <= miss[1] && sorted[2] <= miss[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean exceeds(int[] sorted, int[] cap) {
+        return cap != null && (sorted[0] > cap[0] || sorted[1] > cap[1] || sorted[2] > cap[2]);
+    }
+
+    private static boolean contains(List<int[]> shapes, int[] sorted) {
+        for (int[] shape : shapes) {
+            if (shape[2] == sorted[0] && shape[1] == sorted[1] && shape[0] == sorted[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Even share of the time left for the probes a binary search over [low, high] still needs. */
+    private static long probeDeadline(int low, int high, long deadlineMillis) {
+        int probesLeft = 32 - Integer.numberOfLeadingZeros(Math.max(1, high - low));
+        long now = System.currentTimeMillis();
+        return now + Math.max(1, (deadlineMillis - now) / probesLeft);
+    }
+}
@@ -0,0 +1,358 @@
+package com.smartship.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Branch-and-bound packer for small carts: finds the layout whose bounding
+ * box has the smallest size sum (L+W+H), optionally inside a container.
+ *
+ * Boxes are placed one at a time. Each step branches on which box goes next
+ * (so every ordering is covered), its orientation and its position. A
+ * position must be pushed on all three axes: each coordinate is 0 or the far
+ * face of an earlier box it touches. The search is exhaustive over layouts
+ * built that way. Pruning:
+ * <ul>
+ * <li>identical boxes are placed in index order, and without a container the
+ * first box keeps one orientation (the size sum ignores axis order);</li>
+ * <li>a partial layout is dropped when a lower bound on its final size sum
+ * (its bounding box grown to hold every item side and the total volume, see
+ * {@link PackingLowerBounds#minSizeSumMm}) is not below the best so far;</li>
+ * <li>a partial layout already reached through another order is skipped;</li>
+ * <li>the search ends as soon as the best meets the cart's lower bound.</li>
+ * </ul>
+ * Children are tried in order of their bound, so good layouts come first and
+ * a search cut short by its deadline still returns the best one found.
+ */
+final class ExactPacker {
+
+    /** Item {@code index} at (x, y, z), occupying dx × dy × dz mm. */
+    record Placed(int index, int x, int y, int z, int dx, int dy, int dz) {
+    }
+
+    /**
+     * @param placements one per item in item order, or null when no layout was found
+     * @param complete   true when the search ran to the end, so nothing in its
+     *                   search space beats {@code placements} (or, with no
+     *                   placements, no layout in that space fits)
+     */
+    record Solution(List<Placed> placements, boolean complete) {
+    }
+
+    // Transposition table cap; past it, repeated states are searched again.
+    private static final int MAX_SEEN_STATES = 200_000;
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    private final int count;
+    private final int[][][] orientations;
+    private final int[] previousIdentical;
+    private final int[] container;
+    private final long totalVolume;
+    private final int[] maxSorted;
+    private final int[] grown = new int[3];
+    private final int lowerBound;
+    private final boolean firstFit;
+    private final long deadlineMillis;
+    private final BooleanSupplier stop;
+
+    private final int[] x;
+    private final int[] y;
+    private final int[] z;
+    private final int[] dx;
+    private final int[] dy;
+    private final int[] dz;
+    private final boolean[] placed;
+    private int placedCount;
+    private int maxX;
+    private int maxY;
+    private int maxZ;
+    private long stateHash;
+    private final Set<Long> seen = new HashSet<>();
+
+    private int bestSum;
+    private int[][] best;
+    private long nodes;
+    private boolean aborted;
+
+    private ExactPacker(List<int[]> itemsMm, int[] container, boolean firstFit, long deadlineMillis,
+            BooleanSupplier stop) {
+        this.count = itemsMm.size();
+        this.container = container;
+        this.firstFit = firstFit;
+        this.deadlineMillis = deadlineMillis;
+        this.stop = stop;
+        this.orientations = new int[count][][];
+        this.previousIdentical = new int[count];
+        this.maxSorted = new int[3];
+        long volume = 0;
+        int[][] sortedDims = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int[] dims = itemsMm.get(i);
+            orientations[i] = orientations(dims);
+            sortedDims[i] = dims.clone();
+            Arrays.sort(sortedDims[i]);
+            for (int k = 0; k < 3; k++) {
+                maxSorted[k] = Math.max(maxSorted[k], sortedDims[i][k]);
+            }
+            volume += (long) dims[0] * dims[1] * dims[2];
+            previousIdentical[i] = -1;
+            for (int j = i - 1; j >= 0; j--) {
+                if (Arrays.equals(sortedDims[i], sortedDims[j])) {
+                    previousIdentical[i] = j;
+                    break;
+                }
+            }
+        }
+        this.totalVolume = volume;
+        this.lowerBound = ceil(PackingLowerBounds.minSizeSumMm(maxSorted, totalVolume));
+        this.x = new int[count];
+        this.y = new int[count];
+        this.z = new int[count];
+        this.dx = new int[count];
+        this.dy = new int[count];
+        this.dz = new int[count];
+        this.placed = new boolean[count];
+        this.bestSum = Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param itemsMm        item sizes in mm, one entry per unit
+     * @param container      container size in mm (axes fixed, items rotate), or
+     *                       null for an unbounded container
+     * @param firstFit       stop at the first layout found (the first dive,
+     *                       already steered by the bound) instead of proving the
+     *                       best one; for a yes/no container check
+     * @param deadlineMillis absolute epoch millis after which the search gives up
+     * @param stop           polled with the deadline; true abandons the search
+     */
+    static Solution solve(List<int[]> itemsMm, int[] container, boolean firstFit, long deadlineMillis,
+            BooleanSupplier stop) {
+        if (itemsMm.isEmpty()) {
+            return new Solution(List.of(), true);
+        }
+        ExactPacker packer = new ExactPacker(itemsMm, container, firstFit, deadlineMillis, stop);
+        packer.search();
+        boolean proven = !packer.aborted && (!firstFit || packer.best == null || packer.bestSum <= packer.lowerBound);
+        return new Solution(packer.bestPlacements(), proven);
+    }
+
+    private void search() {
+        if (placedCount == count) {
+            int sum = maxX + maxY + maxZ;
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = new int[count][];
+                for (int i = 0; i < count; i++) {
+                    best[i] = new int[] { x[i], y[i], z[i], dx[i], dy[i], dz[i] };
+                }
+            }
+            return;
+        }
+        if (++nodes % DEADLINE_CHECK_INTERVAL == 0
+                && (System.currentTimeMillis() >= deadlineMillis || stop.getAsBoolean())) {
+            aborted = true;
+            return;
+        }
+
+        List<int[]> moves = moves();
+        moves.sort((a, b) -> a[5] != b[5] ? Integer.compare(a[5], b[5]) : Integer.compare(a[6], b[6]));
+        for (int[] move : moves) {
+            if (aborted || bestSum <= lowerBound || (firstFit && best != null)) {
+                return;
+            }
+            // Bounds only tighten, so recheck the ones computed before recursing.
+            if (move[5] >= bestSum) {
+                return;
+            }
+            int item = move[0];
+            int[] o = orientations[item][move[1]];
+            int savedX = maxX;
+            int savedY = maxY;
+            int savedZ = maxZ;
+            long placementHash = placementHash(item, move[2], move[3], move[4], o);
+            place(item, move[2], move[3], move[4], o);
+            stateHash ^= placementHash;
+            boolean tracked = placedCount >= 2 && placedCount < count;
+            if (!tracked || !seen.contains(stateHash)) {
+                if (tracked && seen.size() < MAX_SEEN_STATES) {
+                    seen.add(stateHash);
+                }
+                search();
+            }
+            stateHash ^= placementHash;
+            placed[item] = false;
+            placedCount--;
+            maxX = savedX;
+            maxY = savedY;
+            maxZ = savedZ;
+        }
+    }
+
+    /** Candidate steps as {item, orientation, x, y, z, bound, sizeSum}, already pruned by bound. */
+    private List<int[]> moves() {
+        int[] xs = coordinates(x, dx);
+        int[] ys = coordinates(y, dy);
+        int[] zs = coordinates(z, dz);
+        List<int[]> moves = new ArrayList<>(64);
+        for (int item = 0; item < count; item++) {
+            if (placed[item] || (previousIdentical[item] >= 0 && !placed[previousIdentical[item]])) {
+                continue;
+            }
+            int orientationCount = placedCount == 0 && container == null ? 1 : orientations[item].length;
+            for (int oi = 0; oi < orientationCount; oi++) {
+                int[] o = orientations[item][oi];
+                // The bound only grows with each coordinate and the coordinates
+                // ascend, so the first position over the best ends each loop.
+                int minY = Math.max(maxY, o[1]);
+                int minZ = Math.max(maxZ, o[2]);
+                for (int px : xs) {
+                    int ex = Math.max(maxX, px + o[0]);
+                    if ((container != null && px + o[0] > container[0]) || bound(ex, minY, minZ) >= bestSum) {
+                        break;
+                    }
+                    for (int py : ys) {
+                        int ey = Math.max(maxY, py + o[1]);
+                        if ((container != null && py + o[1] > container[1]) || bound(ex, ey, minZ) >= bestSum) {
+                            break;
+                        }
+                        for (int pz : zs) {
+                            int ez = Math.max(maxZ, pz + o[2]);
+                            if (container != null && pz + o[2] > container[2]) {
+                                break;
+                            }
+                            int bound = bound(ex, ey, ez);
+                            if (bound >= bestSum) {
+                                break;
+                            }
+                            if (isPushed(px, py, pz, o) && !overlaps(px, py, pz, o)) {
+                                moves.add(new int[] { item, oi, px, py, pz, bound, ex + ey + ez });
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    /** Lower bound on the final size sum once the bounding box has reached (ex, ey, ez). */
+    private int bound(int ex, int ey, int ez) {
+        int low = Math.min(ex, Math.min(ey, ez));
+        int high = Math.max(ex, Math.max(ey, ez));
+        int mid = ex + ey + ez - low - high;
+        grown[0] = Math.max(low, maxSorted[0]);
+        grown[1] = Math.max(mid, maxSorted[1]);
+        grown[2] = Math.max(high, maxSorted[2]);
+        return ceil(PackingLowerBounds.minSizeSumMm(grown, totalVolume));
+    }
+
+    private void place(int item, int px, int py, int pz, int[] o) {
+        x[item] = px;
+        y[item] = py;
+        z[item] = pz;
+        dx[item] = o[0];
+        dy[item] = o[1];
+        dz[item] = o[2];
+        placed[item] = true;
+        placedCount++;
+        maxX = Math.max(maxX, px + o[0]);
+        maxY = Math.max(maxY, py + o[1]);
+        maxZ = Math.max(maxZ, pz + o[2]);
+    }
+
+    /** 0 plus the far faces of the placed boxes along one axis. */
+    private int[] coordinates(int[] origin, int[] size) {
+        int[] values = new int[placedCount + 1];
+        int n = 1;
+        for (int i = 0; i < count; i++) {
+            if (placed[i]) {
+                values[n++] = origin[i] + size[i];
+            }
+        }
+        Arrays.sort(values, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, unique);
+    }
+
+    /** True when the box cannot slide towards the origin along any axis. */
+    private boolean isPushed(int px, int py, int pz, int[] o) {
+        boolean pushedX = px == 0;
+        boolean pushedY = py == 0;
+        boolean pushedZ = pz == 0;
+        for (int j = 0; j < count && !(pushedX && pushedY && pushedZ); j++) {
+            if (!placed[j]) {
+                continue;
+            }
+            boolean inX = px < x[j] + dx[j] && x[j] < px + o[0];
+            boolean inY = py < y[j] + dy[j] && y[j] < py + o[1];
+            boolean inZ = pz < z[j] + dz[j] && z[j] < pz + o[2];
+            pushedX |= x[j] + dx[j] == px && inY && inZ;
+            pushedY |= y[j] + dy[j] == py && inX && inZ;
+            pushedZ |= z[j] + dz[j] == pz && inX && inY;
+        }
+        return pushedX && pushedY && pushedZ;
+    }
+
+    private boolean overlaps(int px, int py, int pz, int[] o) {
+        for (int j = 0; j < count; j++) {
+            if (placed[j]
+                    && px < x[j] + dx[j] && x[j] < px + o[0]
+                    && py < y[j] + dy[j] && y[j] < py + o[1]
+                    && pz < z[j] + dz[j] && z[j] < pz + o[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Placed> bestPlacements() {
+        if (best == null) {
+            return null;
+        }
+        List<Placed> placements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int[] b = best[i];
+            placements.add(new Placed(i, b[0], b[1], b[2], b[3], b[4], b[5]));
+        }
+        return placements;
+    }
+
+    /** Order-independent state key: placements are combined with XOR. */
+    private static long placementHash(int item, int px, int py, int pz, int[] o) {
+        long h = item * 0x9E3779B97F4A7C15L;
+        h = (h ^ px) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ py) * 0x94D049BB133111EBL;
+        h = (h ^ pz) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ ((long) o[0] << 40 | (long) o[1] << 20 | o[2])) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static int[][] orientations(int[] dims) {
+        int[][] permutations = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+        List<int[]> distinct = new ArrayList<>(6);
+        for (int[] p : permutations) {
+            int[] o = { dims[p[0]], dims[p[1]], dims[p[2]] };
+            boolean seenBefore = false;
+            for (int[] other : distinct) {
+                seenBefore |= Arrays.equals(o, other);
+            }
+            if (!seenBefore) {
+                distinct.add(o);
+            }
+        }
+        return distinct.toArray(new int[0][]);
+    }
+
+    private static int ceil(double mm) {
+        return (int) Math.ceil(mm - 1e-6);
+    }
+}
@@ -0,0 +1,257 @@
+package com.smartship.service;
+
+import java.util.Arrays;
+
+/**
+ * Extreme points for the bounding-box rebuild in
+ * {@code PackingService.minimizeBoundingBoxWithExtremePoints}.
+ *
+ * Points are kept sorted by (x+y+z, z, x, y) in parallel arrays. Each point
+ * carries its residual space: the free distance to the nearest box face along
+ * +x, +y and +z. That gives a cheap necessary test ({@link #admits}) before the
+ * full collision query. Because a placement at (x, y, z) can never have a size
+ * sum below x+y+z plus the item's own size sum, a caller that scans in order
+ * can stop at the first point whose {@link #sum} already exceeds its best
+ * candidate.
+ *
+ * When a box is placed ({@link #place}):
+ * <ul>
+ * <li>points inside it are dropped, and residuals whose ray it cuts shrink;
+ * only the new box is checked, not every placement;</li>
+ * <li>its seven outer corners are added, plus the three classic projections
+ * of its (x2,y1,z1), (x1,y2,z1) and (x1,y1,z2) corners back onto the nearest
+ * surface along each of the other two axes;</li>
+ * <li>dominated points are dropped: a point is dominated when another point
+ * is no larger on every axis and its residual space reaches at least as far
+ * on every axis, so the other point admits every box this one does and
+ * scores no worse.</li>
+ * </ul>
+ */
+final class ExtremePointStore {
+
+    private int[] xs;
+    private int[] ys;
+    private int[] zs;
+    private int[] freeX;
+    private int[] freeY;
+    private int[] freeZ;
+    private int size;
+
+    ExtremePointStore(int capacity) {
+        int initial = Math.max(8, capacity * 8);
+        xs = new int[initial];
+        ys = new int[initial];
+        zs = new int[initial];
+        freeX = new int[initial];
+        freeY = new int[initial];
+        freeZ = new int[initial];
+        insert(0, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int x(int i) {
+        return xs[i];
+    }
+
+    int y(int i) {
+        return ys[i];
+    }
+
+    int z(int i) {
+        return zs[i];
+    }
+
+    /** Ordering key: lower bound on how much the point adds to a size sum. */
+    int sum(int i) {
+        return xs[i] + ys[i] + zs[i];
+    }
+
+    /** False when a w×d×h box at point {@code i} would certainly hit a placed box. */
+    boolean admits(int i, int bw, int bd, int bh) {
+        return bw <= freeX[i] && bd <= freeY[i] && bh <= freeZ[i];
+    }
+
+    /** Updates the points for placement {@code k}, which must already be in {@code placed}. */
+    void place(PlacementArrays placed, int k) {
+        int x1 = placed.x[k];
+        int y1 = placed.y[k];
+        int z1 = placed.z[k];
+        int x2 = x1 + placed.w[k];
+        int y2 = y1 + placed.d[k];
+        int z2 = z1 + placed.h[k];
+
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int px = xs[i];
+            int py = ys[i];
+            int pz = zs[i];
+            boolean inY = py >= y1 && py < y2;
+            boolean inZ = pz >= z1 && pz < z2;
+            boolean inX = px >= x1 && px < x2;
+            if (inX && inY && inZ) {
+                continue;
+            }
+            int fx = freeX[i];
+            int fy = freeY[i];
+            int fz = freeZ[i];
+            if (inY && inZ && x1 >= px) {
+                fx = Math.min(fx, x1 - px);
+            }
+            if (inX && inZ && y1 >= py) {
+                fy = Math.min(fy, y1 - py);
+            }
+            if (inX && inY && z1 >= pz) {
+                fz = Math.min(fz, z1 - pz);
+            }
+            xs[kept] = px;
+            ys[kept] = py;
+            zs[kept] = pz;
+            freeX[kept] = fx;
+            freeY[kept] = fy;
+            freeZ[kept] = fz;
+            kept++;
+        }
+        size = kept;
+
+        offer(placed, x2, y1, z1);
+        offer(placed, x1, y2, z1);
+        offer(placed, x1, y1, z2);
+        offer(placed, x2, y2, z1);
+        offer(placed, x2, y1, z2);
+        offer(placed, x1, y2, z2);
+        offer(placed, x2, y2, z2);
+
+        // Projections: slide each primary corner back onto the nearest surface
+        // (or wall/floor) so gaps beside and under overhangs become reachable.
+        offer(placed, x2, placed.projectBack(x2, y1, z1, 1), z1);
+        offer(placed, x2, y1, placed.projectBack(x2, y1, z1, 2));
+        offer(placed, placed.projectBack(x1, y2, z1, 0), y2, z1);
+        offer(placed, x1, y2, placed.projectBack(x1, y2, z1, 2));
+        offer(placed, placed.projectBack(x1, y1, z2, 0), y1, z2);
+        offer(placed, x1, placed.projectBack(x1, y1, z2, 1), z2);
+
+        removeDominated();
+    }
+
+    /**
+     * A dominating point has a strictly smaller x+y+z, so it sorts first; and
+     * dominance is transitive, so checking against the points kept so far is
+     * enough.
+     */
+    private void removeDominated() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            boolean dominated = false;
+            for (int k = 0; k < kept && !dominated; k++) {
+                dominated = dominates(k, i);
+            }
+            if (dominated) {
+                continue;
+            }
+            xs[kept] = xs[i];
+            ys[kept] = ys[i];
+            zs[kept] = zs[i];
+            freeX[kept] = freeX[i];
+            freeY[kept] = freeY[i];
+            freeZ[kept] = freeZ[i];
+            kept++;
+        }
+        size = kept;
+    }
+
+    private boolean dominates(int a, int b) {
+        return xs[a] <= xs[b] && ys[a] <= ys[b] && zs[a] <= zs[b]
+                && reach(xs[a], freeX[a]) >= reach(xs[b], freeX[b])
+                && reach(ys[a], freeY[a]) >= reach(ys[b], freeY[b])
+                && reach(zs[a], freeZ[a]) >= reach(zs[b], freeZ[b]);
+    }
+
+    /** Where a point's free space ends on one axis; an open ray never ends. */
+    private static long reach(int coordinate, int free) {
+        return free == Integer.MAX_VALUE ? Long.MAX_VALUE : (long) coordinate + free;
+    }
+
+    private void offer(PlacementArrays placed, int px, int py, int pz) {
+        if (px < 0 || py < 0 || pz < 0 || placed.isInsideAny(px, py, pz)) {
+            return;
+        }
+        int at = search(px, py, pz);
+        if (at >= 0) {
+            return;
+        }
+        int free0 = placed.freeAhead(px, py, pz, 0);
+        int free1 = placed.freeAhead(px, py, pz, 1);
+        int free2 = placed.freeAhead(px, py, pz, 2);
+        insertAt(-at - 1, px, py, pz, free0, free1, free2);
+    }
+
+    private void insert(int px, int py, int pz, int fx, int fy, int fz) {
+        int at = search(px, py, pz);
+        if (at < 0) {
+            insertAt(-at - 1, px, py, pz, fx, fy, fz);
+        }
+    }
+
+    private void insertAt(int at, int px, int py, int pz, int fx, int fy, int fz) {
+        if (size == xs.length) {
+            int grown = size * 2;
+            xs = Arrays.copyOf(xs, grown);
+            ys = Arrays.copyOf(ys, grown);
+            zs = Arrays.copyOf(zs, grown);
+            freeX = Arrays.copyOf(freeX, grown);
+            freeY = Arrays.copyOf(freeY, grown);
+            freeZ = Arrays.copyOf(freeZ, grown);
+        }
+        int tail = size - at;
+        System.arraycopy(xs, at, xs, at + 1, tail);
+        System.arraycopy(ys, at, ys, at + 1, tail);
+        System.arraycopy(zs, at, zs, at + 1, tail);
+        System.arraycopy(freeX, at, freeX, at + 1, tail);
+        System.arraycopy(freeY, at, freeY, at + 1, tail);
+        System.arraycopy(freeZ, at, freeZ, at + 1, tail);
+        xs[at] = px;
+        ys[at] = py;
+        zs[at] = pz;
+        freeX[at] = fx;
+        freeY[at] = fy;
+        freeZ[at] = fz;
+        size++;
+    }
+
+    /** Binary search in (sum, z, x, y) order; {@code -(insertion point) - 1} when absent. */
+    private int search(int px, int py, int pz) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(xs[mid], ys[mid], zs[mid], px, py, pz);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int compare(int ax, int ay, int az, int bx, int by, int bz) {
+        int cmp = Integer.compare(ax + ay + az, bx + by + bz);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Integer.compare(az, bz);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Integer.compare(ax, bx);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Integer.compare(ay, by);
+    }
+}
@@ -0,0 +1,105 @@
+package com.smartship.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Closed-form packer for carts made of N identical units.
+ *
+ * Enumerates the distinct orientations of the unit and every grid
+ * {@code nx × ny × nz} with {@code nx·ny·nz ≥ N} and no empty row or layer,
+ * and returns the arrangements whose bounding box fits the container.
+ * Arrangements with the same bounding box are reported once. No search is
+ * involved, so even a 200-unit cart resolves in microseconds.
+ *
+ * Grids are not exhaustive (mixed orientations can beat them), so an empty
+ * result means "no grid fits", not "does not fit".
+ */
+final class HomogeneousPacker {
+
+    /** Unit orientation {@code a×b×c} mm repeated {@code nx×ny×nz}, filled x, then y, then z. */
+    record Arrangement(int a, int b, int c, int nx, int ny, int nz) {
+
+        int lengthMm() {
+            return a * nx;
+        }
+
+        int widthMm() {
+            return b * ny;
+        }
+
+        int heightMm() {
+            return c * nz;
+        }
+
+        /** Origin of unit {@code index} in fill order. */
+        int[] position(int index) {
+            int perLayer = nx * ny;
+            int layer = index / perLayer;
+            int inLayer = index % perLayer;
+            return new int[] { (inLayer % nx) * a, (inLayer / nx) * b, layer * c };
+        }
+    }
+
+    private HomogeneousPacker() {
+    }
+
+    /**
+     * @param unitMm    unit size in mm
+     * @param count     number of units
+     * @param container container size in mm, or null for an unbounded container
+     */
+    static List<Arrangement> arrangements(int[] unitMm, int count, int[] container) {
+        List<Arrangement> result = new ArrayList<>();
+        if (count < 1) {
+            return result;
+        }
+        Set<Long> seenBoxes = new HashSet<>();
+        for (int[] o : orientations(unitMm)) {
+            int a = o[0];
+            int b = o[1];
+            int c = o[2];
+            int maxNx = container == null ? count : Math.min(count, container[0] / a);
+            for (int nx = 1; nx <= maxNx; nx++) {
+                int rows = ceilDiv(count, nx);
+                int maxNy = container == null ? rows : Math.min(rows, container[1] / b);
+                for (int ny = 1; ny <= maxNy; ny++) {
+                    int nz = ceilDiv(count, nx * ny);
+                    if (container != null && (long) nz * c > container[2]) {
+                        continue;
+                    }
+                    Arrangement arrangement = new Arrangement(a, b, c, nx, ny, nz);
+                    if (seenBoxes.add(boxKey(arrangement))) {
+                        result.add(arrangement);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<int[]> orientations(int[] unit) {
+        List<int[]> orientations = new ArrayList<>(6);
+        Set<String> seen = new HashSet<>();
+        int[][] permutations = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+        for (int[] p : permutations) {
+            int[] o = { unit[p[0]], unit[p[1]], unit[p[2]] };
+            if (o[0] > 0 && o[1] > 0 && o[2] > 0 && seen.add(Arrays.toString(o))) {
+                orientations.add(o);
+            }
+        }
+        return orientations;
+    }
+
+    private static long boxKey(Arrangement arrangement) {
+        return ((long) arrangement.lengthMm() << 42) ^ ((long) arrangement.widthMm() << 21)
+                ^ arrangement.heightMm();
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
@@ -0,0 +1,116 @@
+package com.smartship.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers carts that a container could not hold.
+ *
+ * A cart is stored as its item multiset per container geometry. Any later cart
+ * that contains a stored cart (same items, at least the same counts) is also
+ * answered as infeasible, because adding items to a cart that does not fit
+ * cannot make it fit.
+ */
+@Component
+public class InfeasibleCartCache {
+
+    private static final int DEFAULT_MAX_CONTAINERS = 256;
+    private static final int DEFAULT_MAX_CARTS_PER_CONTAINER = 64;
+    private static final long DEFAULT_TTL_MS = 30 * 60 * 1000L;
+
+    private final int maxContainers;
+    private final int maxCartsPerContainer;
+    private final long ttlMs;
+    private final Map<String, Deque<InfeasibleCart>> cartsByContainer;
+
+    @Autowired
+    public InfeasibleCartCache(
+            @Value("${app.packing.negative-cache.max-containers:256}") int maxContainers,
+            @Value("${app.packing.negative-cache.max-carts-per-container:64}") int maxCartsPerContainer,
+            @Value("${app.packing.cache.ttl-ms:1800000}") long ttlMs) {
+        this.maxContainers = Math.max(1, maxContainers);
+        this.maxCartsPerContainer = Math.max(1, maxCartsPerContainer);
+        this.ttlMs = ttlMs;
+        this.cartsByContainer = newLruMap();
+    }
+
+    // For tests or non-spring usage
+    InfeasibleCartCache() {
+        this(DEFAULT_MAX_CONTAINERS, DEFAULT_MAX_CARTS_PER_CONTAINER, DEFAULT_TTL_MS);
+    }
+
+    private Map<String, Deque<InfeasibleCart>> newLruMap() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Deque<InfeasibleCart>> eldest) {
+                return size() > maxContainers;
+            }
+        };
+    }
+
+    /**
+     * @return true when this cart, or a cart it contains, is known not to fit
+     *         the container
+     */
+    public boolean isKnownInfeasible(String containerKey, Map<String, Integer> cart) {
+        long now = System.currentTimeMillis();
+        synchronized (cartsByContainer) {
+            Deque<InfeasibleCart> carts = cartsByContainer.get(containerKey);
+            if (carts == null) {
+                return false;
+            }
+            Iterator<InfeasibleCart> iterator = carts.iterator();
+            while (iterator.hasNext()) {
+                InfeasibleCart known = iterator.next();
+                if (known.expiresAtMs <= now) {
+                    iterator.remove();
+                    continue;
+                }
+                if (isSubMultiset(known.items, cart)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public void recordInfeasible(String containerKey, Map<String, Integer> cart) {
+        synchronized (cartsByContainer) {
+            Deque<InfeasibleCart> carts = cartsByContainer.computeIfAbsent(containerKey, key -> new ArrayDeque<>());
+            // Stored supersets add nothing once the smaller cart is known.
+            carts.removeIf(known -> isSubMultiset(cart, known.items));
+            carts.addFirst(new InfeasibleCart(Map.copyOf(cart), System.currentTimeMillis() + ttlMs));
+            while (carts.size() > maxCartsPerContainer) {
+                carts.removeLast();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (cartsByContainer) {
+            cartsByContainer.clear();
+        }
+    }
+
+    private static boolean isSubMultiset(Map<String, Integer> smaller, Map<String, Integer> larger) {
+        if (smaller.size() > larger.size()) {
+            return false;
+        }
+        for (Map.Entry<String, Integer> entry : smaller.entrySet()) {
+            Integer count = larger.get(entry.getKey());
+            if (count == null || count < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record InfeasibleCart(Map<String, Integer> items, long expiresAtMs) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartship.service;
+
+import com.smartship.entity.ProductReference;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Packing view of a product, compiled once per product: {@link ProductCatalog}
+ * and {@link SavedProductCache} compile rows as they load them, and a cart
+ * line built without one compiles its product in {@link ItemGroup}.
+ *
+ * Holds everything the packers read from a {@link ProductReference}: sizes in
+ * mm (as listed, sorted, and after compression), weight and the cache key.
+ * The compression class is found from the product's name and category at
+ * compile time. Packing code reads these instead of converting centimetres
+ * and matching keywords again on every call.
+ *
+ * Instances are immutable; the arrays returned by the accessors are shared
+ * and must not be modified.
+ */
+public final class ItemDescriptor {
+
+    /** How far an item gives when packed; the factors scale its sides. */
+    private enum Compression {
+        NONE(1.0, 1.0),
+        /** Clothing: the height folds down. */
+        SOFT(1.0, 0.8),
+        /** Plush toys (ぬいぐるみ/ちびぐるみ/plush) squash on every side. */
+        PLUSH(0.6, 0.6);
+
+        private final double footprintFactor;
+        private final double heightFactor;
+
+        Compression(double footprintFactor, double heightFactor) {
+            this.footprintFactor = footprintFactor;
+            this.heightFactor = heightFactor;
+        }
+    }
+
+    private final int[] sizeMm;
+    private final int[] sortedMm;
+    private final int[] compressedMm;
+    private final int weightG;
+    private final String key;
+
+    private ItemDescriptor(ProductReference product) {
+        this.sizeMm = new int[] {
+                toMm(product.getLengthCm()), toMm(product.getWidthCm()), toMm(product.getHeightCm()) };
+        this.sortedMm = sizeMm.clone();
+        Arrays.sort(sortedMm);
+        this.weightG = product.getWeightG();
+        Compression compression = compressionOf(product);
+        this.compressedMm = new int[] {
+                toMm(product.getLengthCm() * compression.footprintFactor),
+                toMm(product.getWidthCm() * compression.footprintFactor),
+                toMm(product.getHeightCm() * compression.heightFactor) };
+        this.key = CartFingerprint.itemKey(sortedMm, weightG, product.getName());
+    }
+
+    public static ItemDescriptor compile(ProductReference product) {
+        return new ItemDescriptor(product);
+    }
+
+    /** Length, width, height in mm, as listed. */
+    int[] sizeMm() {
+        return sizeMm;
+    }
+
+    /** Sides in mm, short to long. */
+    int[] sortedMm() {
+        return sortedMm;
+    }
+
+    /** Length, width, height in mm after the product's compression. */
+    int[] compressedMm() {
+        return compressedMm;
+    }
+
+    int weightG() {
+        return weightG;
+    }
+
+    /** Rotation-normalised item key, see {@link CartFingerprint#itemKey(ProductReference)}. */
+    String key() {
+        return key;
+    }
+
+    private static Compression compressionOf(ProductReference product) {
+        if (containsPlushKeyword(product.getName()) || containsPlushKeyword(product.getNameJp())) {
+            return Compression.PLUSH;
+        }
+        String category = product.getCategory();
+        if (category != null && ("fashion".equalsIgnoreCase(category) || category.contains("ファッション"))) {
+            return Compression.SOFT;
+        }
+        return Compression.NONE;
+    }
+
+    private static boolean containsPlushKeyword(String value) {
+        if (value == null || value.isBlank()) {
+            return false;
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        return lower.contains("plush") || value.contains("ぬいぐるみ") || value.contains("ちびぐるみ");
+    }
+
+    private static int toMm(double cm) {
+        return (int) Math.round(cm * 10);
+    }
+}
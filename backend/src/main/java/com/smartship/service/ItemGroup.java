@@ -0,0 +1,74 @@
+package com.smartship.service;
+
+import com.smartship.entity.ProductReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A run of identical units in a cart: one product plus its quantity.
+ *
+ * Carts are packed from groups rather than one {@link ProductReference} per
+ * unit, so identical units share a single library box
+ * ({@code BoxItem(box, quantity)}) and placement labels map back by group.
+ * The product's {@link ItemDescriptor} is compiled with the group and shared
+ * by all its units.
+ */
+public record ItemGroup(ProductReference product, int quantity, ItemDescriptor descriptor) {
+
+    public ItemGroup {
+        if (product == null) {
+            throw new IllegalArgumentException("product is required");
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        if (descriptor == null) {
+            throw new IllegalArgumentException("descriptor is required");
+        }
+    }
+
+    public ItemGroup(ProductReference product, int quantity) {
+        this(product, quantity, product == null ? null : ItemDescriptor.compile(product));
+    }
+
+    /**
+     * Merges identical units (same rotation-normalised size, weight and name)
+     * into groups, keeping the order in which each product first appears.
+     */
+    public static List<ItemGroup> group(List<ProductReference> items) {
+        Map<String, ItemGroup> groups = new LinkedHashMap<>();
+        for (ProductReference item : items) {
+            // Compile each product once, not once per unit.
+            groups.compute(CartFingerprint.itemKey(item),
+                    (key, group) -> group == null ? new ItemGroup(item, 1) : group.withQuantity(group.quantity + 1));
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /** Same as {@link #group(List)} for groups, merging repeated cart lines. */
+    public static List<ItemGroup> merge(List<ItemGroup> lines) {
+        Map<String, ItemGroup> groups = new LinkedHashMap<>();
+        for (ItemGroup line : lines) {
+            groups.merge(line.descriptor().key(), line, ItemGroup::plus);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    public static int totalQuantity(List<ItemGroup> groups) {
+        int total = 0;
+        for (ItemGroup group : groups) {
+            total += group.quantity();
+        }
+        return total;
+    }
+
+    private ItemGroup plus(ItemGroup other) {
+        return withQuantity(quantity + other.quantity());
+    }
+
+    private ItemGroup withQuantity(int newQuantity) {
+        return new ItemGroup(product, newQuantity, descriptor);
+    }
+}
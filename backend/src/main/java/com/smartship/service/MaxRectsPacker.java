@@ -0,0 +1,159 @@
+package com.smartship.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Single-layer packer for flat-mail containers (MaxRects, best short side fit).
+ *
+ * Used when no two items can be stacked: every item's smallest side exceeds
+ * half the container height, so the 3D problem is exactly 2D rectangle
+ * packing on the container floor. Each item may stand on any face whose
+ * height fits, rotated freely on the floor. A few item orders are tried;
+ * the first complete packing wins, preferring flat (smallest side up) runs.
+ */
+final class MaxRectsPacker {
+
+    /** Item {@code index} at floor position (x, y), occupying dx × dy × dz mm. */
+    record Placed(int index, int x, int y, int dx, int dy, int dz) {
+    }
+
+    private record Rect(int x, int y, int w, int h) {
+
+        boolean contains(Rect other) {
+            return other.x >= x && other.y >= y && other.x + other.w <= x + w && other.y + other.h <= y + h;
+        }
+
+        boolean intersects(int ox, int oy, int ow, int oh) {
+            return ox < x + w && x < ox + ow && oy < y + h && y < oy + oh;
+        }
+    }
+
+    private static final List<Comparator<int[]>> ORDERS = List.of(
+            Comparator.comparingLong((int[] d) -> -(long) d[1] * d[2]),
+            Comparator.comparingInt((int[] d) -> -d[2]),
+            Comparator.comparingInt((int[] d) -> -(d[1] + d[2])));
+
+    private MaxRectsPacker() {
+    }
+
+    /**
+     * True when the items form a single layer in a container of the given
+     * height: each fits upright and no two can be stacked.
+     */
+    static boolean isSingleLayer(List<int[]> sortedItems, int height) {
+        for (int[] d : sortedItems) {
+            if (d[0] > height || d[0] * 2 <= height) {
+                return false;
+            }
+        }
+        return !sortedItems.isEmpty();
+    }
+
+    /**
+     * @param sortedItems item sides in mm, each sorted ascending
+     * @param width       floor width in mm
+     * @param depth       floor depth in mm
+     * @param height      container height in mm
+     * @return one placement per item, or null when no order packs them all
+     */
+    static List<Placed> pack(List<int[]> sortedItems, int width, int depth, int height) {
+        for (boolean flatOnly : new boolean[] { true, false }) {
+            for (Comparator<int[]> order : ORDERS) {
+                List<Placed> placed = packInOrder(sortedItems, width, depth, height, order, flatOnly);
+                if (placed != null) {
+                    return placed;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Placed> packInOrder(List<int[]> items, int width, int depth, int height,
+            Comparator<int[]> order, boolean flatOnly) {
+        List<Integer> indices = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            indices.add(i);
+        }
+        indices.sort((a, b) -> order.compare(items.get(a), items.get(b)));
+
+        List<Rect> free = new ArrayList<>();
+        free.add(new Rect(0, 0, width, depth));
+        List<Placed> placed = new ArrayList<>(items.size());
+
+        for (int index : indices) {
+            int[] d = items.get(index);
+            Placed best = null;
+            long bestShort = Long.MAX_VALUE;
+            long bestLong = Long.MAX_VALUE;
+            // Up face: the smallest side, or (when allowed) any side that fits the height.
+            int faces = flatOnly ? 1 : 3;
+            for (int up = 0; up < faces; up++) {
+                if (d[up] > height) {
+                    continue;
+                }
+                int a = d[up == 0 ? 1 : 0];
+                int b = d[up == 2 ? 1 : 2];
+                for (Rect r : free) {
+                    for (int turn = 0; turn < 2; turn++) {
+                        int w = turn == 0 ? a : b;
+                        int h = turn == 0 ? b : a;
+                        if (w > r.w || h > r.h) {
+                            continue;
+                        }
+                        long leftoverShort = Math.min(r.w - w, r.h - h);
+                        long leftoverLong = Math.max(r.w - w, r.h - h);
+                        if (leftoverShort < bestShort || (leftoverShort == bestShort && leftoverLong < bestLong)) {
+                            bestShort = leftoverShort;
+                            bestLong = leftoverLong;
+                            best = new Placed(index, r.x, r.y, w, h, d[up]);
+                        }
+                    }
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            placed.add(best);
+            split(free, best.x(), best.y(), best.dx(), best.dy());
+        }
+        return placed;
+    }
+
+    private static void split(List<Rect> free, int x, int y, int w, int h) {
+        List<Rect> next = new ArrayList<>(free.size() + 4);
+        for (Rect r : free) {
+            if (!r.intersects(x, y, w, h)) {
+                next.add(r);
+                continue;
+            }
+            if (x > r.x) {
+                next.add(new Rect(r.x, r.y, x - r.x, r.h));
+            }
+            if (x + w < r.x + r.w) {
+                next.add(new Rect(x + w, r.y, r.x + r.w - x - w, r.h));
+            }
+            if (y > r.y) {
+                next.add(new Rect(r.x, r.y, r.w, y - r.y));
+            }
+            if (y + h < r.y + r.h) {
+                next.add(new Rect(r.x, y + h, r.w, r.y + r.h - y - h));
+            }
+        }
+        free.clear();
+        for (int i = 0; i < next.size(); i++) {
+            Rect candidate = next.get(i);
+            boolean redundant = false;
+            for (int j = 0; j < next.size() && !redundant; j++) {
+                if (i != j && next.get(j).contains(candidate)
+                        && (!candidate.contains(next.get(j)) || j < i)) {
+                    redundant = true;
+                }
+            }
+            if (!redundant) {
+                free.add(candidate);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.smartship.service;
+
+import com.github.skjolber.packing.api.Packager;
+import com.github.skjolber.packing.packer.bruteforce.FastBruteForcePackager;
+import com.github.skjolber.packing.packer.laff.FastLargestAreaFitFirstPackager;
+import com.github.skjolber.packing.packer.laff.LargestAreaFitFirstPackager;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of reusable packager instances.
+ *
+ * A packager is used by one thread at a time: {@code borrow} hands out an
+ * idle instance (or builds one when none is idle) and closing the lease
+ * returns it. At most {@code max-idle} instances per packager type are kept;
+ * extra instances built under a burst are closed on return.
+ */
+@Component
+public class PackagerPool {
+
+    private static final int DEFAULT_MAX_IDLE = 16;
+
+    private final Pool<LargestAreaFitFirstPackager> laff;
+    private final Pool<FastLargestAreaFitFirstPackager> fastLaff;
+    private final Pool<FastBruteForcePackager> bruteForce;
+
+    @Autowired
+    public PackagerPool(@Value("${app.packing.packager-pool.max-idle:16}") int maxIdle) {
+        int idle = Math.max(1, maxIdle);
+        this.laff = new Pool<>(() -> LargestAreaFitFirstPackager.newBuilder().build(), idle);
+        this.fastLaff = new Pool<>(() -> FastLargestAreaFitFirstPackager.newBuilder().build(), idle);
+        this.bruteForce = new Pool<>(() -> FastBruteForcePackager.newBuilder().build(), idle);
+    }
+
+    // For tests or non-spring usage
+    PackagerPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    public Lease<LargestAreaFitFirstPackager> laff() {
+        return laff.borrow();
+    }
+
+    public Lease<FastLargestAreaFitFirstPackager> fastLaff() {
+        return fastLaff.borrow();
+    }
+
+    public Lease<FastBruteForcePackager> bruteForce() {
+        return bruteForce.borrow();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        laff.drain();
+        fastLaff.drain();
+        bruteForce.drain();
+    }
+
+    /** Exclusive use of one pooled packager until {@link #close()}. */
+    public static final class Lease<P extends Packager<?>> implements AutoCloseable {
+
+        private final Pool<P> pool;
+        private P packager;
+
+        private Lease(Pool<P> pool, P packager) {
+            this.pool = pool;
+            this.packager = packager;
+        }
+
+        public P packager() {
+            if (packager == null) {
+                throw new IllegalStateException("Lease already returned");
+            }
+            return packager;
+        }
+
+        @Override
+        public void close() {
+            if (packager != null) {
+                pool.release(packager);
+                packager = null;
+            }
+        }
+    }
+
+    private static final class Pool<P extends Packager<?>> {
+
+        private final Supplier<P> factory;
+        private final int maxIdle;
+        private final ConcurrentLinkedDeque<P> idle = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        Pool(Supplier<P> factory, int maxIdle) {
+            this.factory = factory;
+            this.maxIdle = maxIdle;
+        }
+
+        Lease<P> borrow() {
+            P packager = idle.pollFirst();
+            if (packager != null) {
+                idleCount.decrementAndGet();
+                return new Lease<>(this, packager);
+            }
+            return new Lease<>(this, factory.get());
+        }
+
+        void release(P packager) {
+            if (idleCount.incrementAndGet() <= maxIdle) {
+                idle.offerFirst(packager);
+            } else {
+                idleCount.decrementAndGet();
+                closeQuietly(packager);
+            }
+        }
+
+        void drain() {
+            P packager;
+            while ((packager = idle.pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                closeQuietly(packager);
+            }
+        }
+
+        private static void closeQuietly(Packager<?> packager) {
+            try {
+                packager.close();
+            } catch (Exception ignored) {
+                // ignore cleanup errors
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.smartship.service;
+
+import com.github.skjolber.packing.api.BoxItem;
+import com.smartship.dto.PackingResult;
+import com.smartship.entity.ProductReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Request-scoped packing state for one cart.
+ *
+ * Holds the item model and the compiled library boxes once, plus every packer
+ * result produced while serving the request: the free-size bounding box and
+ * the per-carrier fits and misfits. The free-size estimate and the carrier
+ * checks of one {@code /calculate/cart} call share this object, so work done
+ * for one is reused by the other. Safe for use from the packing executor.
+ *
+ * The cart is kept as {@link ItemGroup}s; {@link #items()} is a read-only
+ * per-unit view over them, with each group's units stored contiguously.
+ * {@link #sortedDimsMm()} is a parallel view over the groups' compiled
+ * {@link ItemDescriptor}s.
+ *
+ * Create instances with {@link PackingService#newContext(List)} or
+ * {@link PackingService#newContextForGroups(List)}.
+ */
+public final class PackingContext {
+
+    private final List<ItemGroup> groups;
+    private final List<ProductReference> items;
+    private final List<int[]> sortedDimsMm;
+    private final List<BoxItem> boxItems;
+    private final Map<String, Integer> cart;
+    private final Map<String, PackingResult> carrierFits = new ConcurrentHashMap<>();
+    private final Set<String> carrierMisfits = ConcurrentHashMap.newKeySet();
+    private volatile PackingResult freeSizeResult;
+
+    PackingContext(List<ItemGroup> groups, List<BoxItem> boxItems) {
+        this.groups = List.copyOf(groups);
+        this.items = new UnitView<>(this.groups, ItemGroup::product);
+        this.sortedDimsMm = new UnitView<>(this.groups, group -> group.descriptor().sortedMm());
+        this.boxItems = List.copyOf(boxItems);
+        this.cart = CartFingerprint.groupCounts(this.groups);
+    }
+
+    public List<ItemGroup> groups() {
+        return groups;
+    }
+
+    /** Per-unit view of the cart, group by group. */
+    public List<ProductReference> items() {
+        return items;
+    }
+
+    /** Per-unit sides in mm, short to long, parallel to {@link #items()}; read-only arrays. */
+    List<int[]> sortedDimsMm() {
+        return sortedDimsMm;
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    List<BoxItem> boxItems() {
+        return boxItems;
+    }
+
+    /** Item multiset used by the result caches. */
+    Map<String, Integer> cart() {
+        return cart;
+    }
+
+    String fingerprint(String containerKey) {
+        return CartFingerprint.of(cart, containerKey);
+    }
+
+    PackingResult freeSizeResult() {
+        return freeSizeResult;
+    }
+
+    void setFreeSizeResult(PackingResult freeSizeResult) {
+        this.freeSizeResult = freeSizeResult;
+    }
+
+    PackingResult carrierFit(String containerKey) {
+        return carrierFits.get(containerKey);
+    }
+
+    boolean isCarrierMisfit(String containerKey) {
+        return carrierMisfits.contains(containerKey);
+    }
+
+    void recordCarrierResult(String containerKey, PackingResult result) {
+        if (result != null) {
+            carrierFits.put(containerKey, result);
+        } else {
+            carrierMisfits.add(containerKey);
+        }
+    }
+
+    private static final class UnitView<T> extends AbstractList<T> {
+
+        private final List<ItemGroup> groups;
+        private final Function<ItemGroup, T> unit;
+        private final int[] ends;
+
+        UnitView(List<ItemGroup> groups, Function<ItemGroup, T> unit) {
+            this.groups = groups;
+            this.unit = unit;
+            this.ends = new int[groups.size()];
+            int end = 0;
+            for (int g = 0; g < groups.size(); g++) {
+                end += groups.get(g).quantity();
+                ends[g] = end;
+            }
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int g = Arrays.binarySearch(ends, index + 1);
+            if (g < 0) {
+                g = -g - 1;
+            }
+            return unit.apply(groups.get(g));
+        }
+
+        @Override
+        public int size() {
+            return ends.length == 0 ? 0 : ends[ends.length - 1];
+        }
+    }
+}
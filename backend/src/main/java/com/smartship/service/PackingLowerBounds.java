@@ -0,0 +1,224 @@
+package com.smartship.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Provable lower bounds for packing a cart into one container.
+ *
+ * Every check here only rejects carts that no packer could ever fit, so a
+ * rejection can skip the 3D packer entirely. All geometry is in mm and every
+ * item may be rotated in 3D, matching the boxes handed to the library.
+ */
+final class PackingLowerBounds {
+
+    private static final int[][] ORIENTATIONS = {
+            { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+
+    private PackingLowerBounds() {
+    }
+
+    /**
+     * @param names     item names (one per unit), used in rejection reasons
+     * @param dimsMm    item dimensions in mm (one row per unit)
+     * @param container container inner size in mm (length, width, height)
+     * @param sizeSumLimitCm carrier size-sum limit, or null when not applicable
+     * @return reason the cart provably cannot fit, or null when no bound rules
+     *         it out
+     */
+    static String findInfeasibilityReason(List<String> names, List<int[]> dimsMm, int[] container,
+            Integer sizeSumLimitCm) {
+        if (dimsMm.isEmpty()) {
+            return null;
+        }
+
+        int[] sortedContainer = sorted(container);
+        int[] maxSorted = new int[3];
+        long totalVolume = 0;
+        for (int i = 0; i < dimsMm.size(); i++) {
+            int[] item = sorted(dimsMm.get(i));
+            // 1. Each item must fit on its own: sorted dims against sorted container.
+            if (item[0] > sortedContainer[0] || item[1] > sortedContainer[1] || item[2] > sortedContainer[2]) {
+                return String.format("寸法超過 (%s %.1f×%.1f×%.1fcm)",
+                        names.get(i), toCm(item[2]), toCm(item[1]), toCm(item[0]));
+            }
+            for (int k = 0; k < 3; k++) {
+                maxSorted[k] = Math.max(maxSorted[k], item[k]);
+            }
+            totalVolume += (long) item[0] * item[1] * item[2];
+        }
+
+        // 2. Total item volume against container volume.
+        long containerVolume = (long) container[0] * container[1] * container[2];
+        if (totalVolume > containerVolume) {
+            return String.format("容量超過 (商品合計 %.0fcm³ > 箱容量 %.0fcm³)",
+                    totalVolume / 1000.0, containerVolume / 1000.0);
+        }
+
+        // 3. Smallest bounding box any packing could have, against the size-sum limit.
+        if (sizeSumLimitCm != null) {
+            double minSizeSumCm = minSizeSumMm(maxSorted, totalVolume) / 10.0;
+            if (minSizeSumCm > sizeSumLimitCm + 1e-6) {
+                return String.format("サイズ超過 (3辺合計 最小 %.1fcm > %dcm)", minSizeSumCm, sizeSumLimitCm);
+            }
+        }
+
+        // 4. Martello-style L1/L2 bounds, one per choice of stacking axis.
+        List<ItemType> types = groupTypes(dimsMm, container);
+        for (int axis = 0; axis < 3; axis++) {
+            String reason = checkStackingAxis(types, container, axis);
+            if (reason != null) {
+                return reason;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lower bound on L+W+H of any box holding the items: each sorted side must be
+     * at least the largest matching sorted item side, and the volume must cover
+     * the item volume. The optimum raises the short sides to a common level t.
+     */
+    static double minSizeSumMm(int[] maxSorted, long totalVolume) {
+        double s0 = Math.min(maxSorted[0], Math.min(maxSorted[1], maxSorted[2]));
+        double s2 = Math.max(maxSorted[0], Math.max(maxSorted[1], maxSorted[2]));
+        double s1 = (double) maxSorted[0] + maxSorted[1] + maxSorted[2] - s0 - s2;
+        if (s0 * s1 * s2 >= totalVolume) {
+            return s0 + s1 + s2;
+        }
+        // The volume max(s0,t)·max(s1,t)·max(s2,t) is t·s1·s2, then t²·s2, then
+        // t³ as t passes s1 and s2; solve the piece that reaches the volume.
+        double t = totalVolume / (s1 * s2);
+        if (t <= s1) {
+            return t + s1 + s2;
+        }
+        t = Math.sqrt(totalVolume / s2);
+        if (t <= s2) {
+            return 2 * t + s2;
+        }
+        return 3 * Math.cbrt((double) totalVolume);
+    }
+
+    /**
+     * L1: items that are longer than half the container on both cross axes in
+     * every feasible orientation can never sit side by side, so they stack along
+     * the remaining axis.
+     *
+     * L2: for thresholds (p, q), items longer than A-p and B-q block any item at
+     * least p by q from sharing their slab, so those items must fit into the
+     * volume left over by the slabs.
+     */
+    private static String checkStackingAxis(List<ItemType> types, int[] container, int axis) {
+        int a = (axis + 1) % 3;
+        int b = (axis + 2) % 3;
+        int lengthA = container[a];
+        int lengthB = container[b];
+        int lengthC = container[axis];
+
+        long conflictingStack = 0;
+        for (ItemType type : types) {
+            if (type.minExtent[a] * 2 > lengthA && type.minExtent[b] * 2 > lengthB) {
+                conflictingStack += (long) type.count * type.minExtent[axis];
+            }
+        }
+        if (conflictingStack > lengthC) {
+            return String.format("積み重ね超過 (重ねた高さ %.1fcm > %.1fcm)",
+                    toCm(conflictingStack), toCm(lengthC));
+        }
+
+        long crossSection = (long) lengthA * lengthB;
+        for (int p : thresholds(types, a, lengthA)) {
+            for (int q : thresholds(types, b, lengthB)) {
+                long slabs = 0;
+                long blockedVolume = 0;
+                for (ItemType type : types) {
+                    if (type.minExtent[a] > lengthA - p && type.minExtent[b] > lengthB - q) {
+                        slabs += (long) type.count * type.minExtent[axis];
+                    } else if (type.minExtent[a] >= p && type.minExtent[b] >= q) {
+                        blockedVolume += type.count * type.volume;
+                    }
+                }
+                if (slabs > lengthC || blockedVolume > (lengthC - slabs) * crossSection) {
+                    return "積み合わせ不可 (大きな商品の周りに残りの商品が入りません)";
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Breakpoints in [1, L/2] where the L2 item sets can change. */
+    private static List<Integer> thresholds(List<ItemType> types, int axis, int length) {
+        TreeSet<Integer> values = new TreeSet<>();
+        int half = length / 2;
+        for (ItemType type : types) {
+            int extent = type.minExtent[axis];
+            if (extent >= 1 && extent <= half) {
+                values.add(extent);
+            }
+            int complement = length - extent + 1;
+            if (complement >= 1 && complement <= half) {
+                values.add(complement);
+            }
+        }
+        if (values.isEmpty()) {
+            values.add(Math.max(1, half));
+        }
+        return new ArrayList<>(values);
+    }
+
+    private static List<ItemType> groupTypes(List<int[]> dimsMm, int[] container) {
+        List<ItemType> types = new ArrayList<>();
+        for (int[] dims : dimsMm) {
+            int[] key = sorted(dims);
+            ItemType match = null;
+            for (ItemType type : types) {
+                if (Arrays.equals(type.sortedDims, key)) {
+                    match = type;
+                    break;
+                }
+            }
+            if (match == null) {
+                match = new ItemType(key, container);
+                types.add(match);
+            }
+            match.count++;
+        }
+        return types;
+    }
+
+    private static int[] sorted(int[] dims) {
+        int[] copy = dims.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static double toCm(long mm) {
+        return mm / 10.0;
+    }
+
+    private static final class ItemType {
+        private final int[] sortedDims;
+        private final long volume;
+        // Smallest extent along each container axis over every orientation that fits.
+        private final int[] minExtent = { Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE };
+        private int count;
+
+        private ItemType(int[] sortedDims, int[] container) {
+            this.sortedDims = sortedDims;
+            this.volume = (long) sortedDims[0] * sortedDims[1] * sortedDims[2];
+            for (int[] orientation : ORIENTATIONS) {
+                int x = sortedDims[orientation[0]];
+                int y = sortedDims[orientation[1]];
+                int z = sortedDims[orientation[2]];
+                if (x > container[0] || y > container[1] || z > container[2]) {
+                    continue;
+                }
+                minExtent[0] = Math.min(minExtent[0], x);
+                minExtent[1] = Math.min(minExtent[1], y);
+                minExtent[2] = Math.min(minExtent[2], z);
+            }
+        }
+    }
+}
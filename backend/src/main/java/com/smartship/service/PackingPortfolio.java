@@ -0,0 +1,166 @@
+package com.smartship.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Anytime portfolio: runs several packing strategies side by side under one
+ * deadline and keeps the best result any of them has produced so far.
+ *
+ * Every strategy gets the same absolute deadline plus a stop signal that is
+ * raised when a result can no longer be beaten (see {@code unbeatable}), when
+ * the caller is interrupted, or when {@link #run} returns; the library
+ * packers poll it through {@code withInterrupt}, so losers release their
+ * threads promptly.
+ *
+ * The calling thread works too: after handing the strategies to the
+ * executor it runs, in order, any strategy no pool thread has picked up yet.
+ * A portfolio started from a packing thread therefore never waits on tasks
+ * queued behind itself, and with a busy pool it degrades to the old
+ * sequential loop instead of stalling until the deadline.
+ */
+final class PackingPortfolio<T> {
+
+    /** One packing attempt; returns null when it found nothing. */
+    @FunctionalInterface
+    interface Strategy<T> {
+        T attempt(long deadlineMillis, BooleanSupplier stop);
+    }
+
+    /**
+     * @param best     the best result found, or null
+     * @param complete true when every strategy ran to its own end: none failed,
+     *                 was skipped, or was cut short by the deadline or the stop
+     *                 signal. Only then does a null {@code best} mean that no
+     *                 strategy can find anything.
+     */
+    record Outcome<T>(T best, boolean complete) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PackingPortfolio.class);
+
+    // Extra wait after the deadline so a packer can hand back what it found.
+    private static final long RESULT_GRACE_MS = 100;
+
+    private final Executor executor;
+    private final BiPredicate<T, T> isBetter;
+    private final Predicate<T> unbeatable;
+    private final AtomicReference<T> best = new AtomicReference<>();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /**
+     * @param isBetter   true when the first result beats the second
+     * @param unbeatable true for a result nothing else can improve on, which
+     *                   stops the remaining strategies
+     */
+    PackingPortfolio(Executor executor, BiPredicate<T, T> isBetter, Predicate<T> unbeatable) {
+        this.executor = executor;
+        this.isBetter = isBetter;
+        this.unbeatable = unbeatable;
+    }
+
+    /** Runs the strategies until all are done, one is unbeatable, or the deadline passes. */
+    Outcome<T> run(List<Strategy<T>> strategies, long deadlineMillis) {
+        Thread caller = Thread.currentThread();
+        BooleanSupplier stop = () -> stopped.get() || caller.isInterrupted() && stopAll()
+                || Thread.currentThread().isInterrupted();
+
+        @SuppressWarnings("unchecked")
+        Slot<T>[] slots = new Slot[strategies.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot<>(strategies.get(i));
+        }
+        boolean complete = true;
+        try {
+            for (int i = 1; i < slots.length; i++) {
+                Slot<T> slot = slots[i];
+                try {
+                    executor.execute(() -> runSlot(slot, deadlineMillis, stop));
+                } catch (RejectedExecutionException e) {
+                    // Shutting down: the caller picks it up below.
+                }
+            }
+            for (Slot<T> slot : slots) {
+                runSlot(slot, deadlineMillis, stop);
+            }
+            for (Slot<T> slot : slots) {
+                long remainingMs = Math.max(0, deadlineMillis - System.currentTimeMillis()) + RESULT_GRACE_MS;
+                try {
+                    complete &= slot.done.get(remainingMs, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException e) {
+                    complete = false;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            complete = false;
+            caller.interrupt();
+        } finally {
+            stopped.set(true);
+        }
+        return new Outcome<>(best.get(), complete);
+    }
+
+    private void runSlot(Slot<T> slot, long deadlineMillis, BooleanSupplier stop) {
+        if (!slot.claimed.compareAndSet(false, true)) {
+            return;
+        }
+        boolean finished = false;
+        try {
+            if (!stop.getAsBoolean() && System.currentTimeMillis() < deadlineMillis) {
+                offer(slot.strategy.attempt(deadlineMillis, stop));
+                // A strategy that saw the deadline or the stop signal may have given up early.
+                finished = !stop.getAsBoolean() && System.currentTimeMillis() < deadlineMillis;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Packing strategy failed", e);
+        } finally {
+            // Completed even when an Error escapes, so run() never waits out the deadline for it.
+            slot.done.complete(finished);
+        }
+    }
+
+    private void offer(T result) {
+        if (result == null) {
+            return;
+        }
+        T current;
+        do {
+            current = best.get();
+            if (current != null && !isBetter.test(result, current)) {
+                return;
+            }
+        } while (!best.compareAndSet(current, result));
+        if (unbeatable.test(result)) {
+            stopped.set(true);
+        }
+    }
+
+    private boolean stopAll() {
+        stopped.set(true);
+        return true;
+    }
+
+    private static final class Slot<T> {
+        private final Strategy<T> strategy;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        // True when the strategy ran to its own end (see Outcome#complete).
+        private final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        private Slot(Strategy<T> strategy) {
+            this.strategy = strategy;
+        }
+    }
+}
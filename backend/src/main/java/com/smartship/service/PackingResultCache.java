@@ -0,0 +1,119 @@
+package com.smartship.service;
+
+import com.smartship.dto.PackingResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process LRU cache of packing results keyed by {@link CartFingerprint}.
+ *
+ * Entries expire after a fixed TTL and the least recently used entry is
+ * evicted once the cache is full. Hits and misses are exported to the
+ * actuator metrics endpoint as {@code smartship.packing.cache.requests}.
+ */
+@Component
+public class PackingResultCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 2000;
+    private static final long DEFAULT_TTL_MS = 30 * 60 * 1000L;
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Map<String, CachedResult> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public PackingResultCache(
+            @Value("${app.packing.cache.max-entries:2000}") int maxEntries,
+            @Value("${app.packing.cache.ttl-ms:1800000}") long ttlMs,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttlMs;
+        this.entries = newLruMap();
+        meterRegistry.ifAvailable(this::registerMetrics);
+    }
+
+    // For tests or non-spring usage
+    PackingResultCache() {
+        this.maxEntries = DEFAULT_MAX_ENTRIES;
+        this.ttlMs = DEFAULT_TTL_MS;
+        this.entries = newLruMap();
+    }
+
+    private Map<String, CachedResult> newLruMap() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public PackingResult get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedResult entry = entries.get(key);
+            if (entry != null && entry.expiresAtMs > now) {
+                hits.incrementAndGet();
+                return entry.result;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, PackingResult result) {
+        if (result == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new CachedResult(result, System.currentTimeMillis() + ttlMs));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("smartship.packing.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("smartship.packing.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("smartship.packing.cache.size", this, PackingResultCache::size)
+                .register(registry);
+    }
+
+    private record CachedResult(PackingResult result, long expiresAtMs) {
+    }
+}
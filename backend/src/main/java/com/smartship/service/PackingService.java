@@ -15,38 +15,114 @@ import com.smartship.dto.PackingResult;
 import com.smartship.dto.PlacementInfo;
 import com.smartship.entity.ProductReference;
 import com.smartship.entity.ShippingCarrier;
-import com.smartship.repository.ShippingCarrierRepository;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class PackingService {
 
-    private final ShippingCarrierRepository carrierRepository;
+    private static final Logger log = LoggerFactory.getLogger(PackingService.class);
+
+    private final CarrierCatalog carrierCatalog;
+    private final PackingResultCache resultCache;
+    private final InfeasibleCartCache infeasibleCartCache;
+    private final PackagerPool packagerPool;
+    // Runs the packers of a portfolio side by side (see PackingPortfolio).
+    private final Executor portfolioExecutor;
+    // Free-size box: multi-sort search instead of the single library call.
+    private final boolean strategySearchEnabled;
+    private final long strategySearchBudgetMs;
+    // Carts of at most exactMaxItems units go to the exact solver first.
+    private final int exactMaxItems;
+    private final long exactBudgetMs;
+    // Carts of at least blockMinItems units skip the search packers for BlockPacker.
+    private final int blockMinItems;
+    // Time the free-size estimate may spend shrinking its box; 0 turns it off.
+    private final long enclosingSearchBudgetMs;
+    // Cap on the exact solver, heuristic and box search together; each gets at most its own budget.
+    private final long freeSizeBudgetMs;
+    // Identical carts packed at the same time share one search (keyed like resultCache).
+    private final SingleFlight<String, PackingResult> inFlight = new SingleFlight<>();
+    // Precompiled carrier containers keyed by geometry; a changed carrier gets a new key.
+    private final Map<String, Container> carrierContainers = new ConcurrentHashMap<>();
     private static final String LIB_BOX_ID_PREFIX = "lib#";
 
-    private static final boolean USE_LIBRARY_ONLY = true;
     private static final int BRUTE_FORCE_ITEM_LIMIT = 8;
     private static final int THIN_ITEM_HEIGHT_MM = 10; // 1 cm
     private static final int COMPACTION_PASSES = 4;
+    // The defensive compaction pass tries every anchor triple, O(n^3) per item;
+    // larger carts skip the extreme-point rebuild and the compaction passes.
+    private static final int COMPACTION_MAX_ITEMS = 24;
+    private static final long CARRIER_DEADLINE_MS = 1800;
+    private static final int MAX_CARRIER_CONTAINERS = 256;
+    private static final List<SortStrategy> SORT_STRATEGIES = List.of(
+            new SortStrategy("VolumeDesc", (a, b) -> Double.compare(b.getVolumeCm3(), a.getVolumeCm3())),
+            new SortStrategy("VolumeAsc", (a, b) -> Double.compare(a.getVolumeCm3(), b.getVolumeCm3())),
+            new SortStrategy("FootprintDesc",
+                    (a, b) -> Double.compare(b.getWidthCm() * b.getLengthCm(), a.getWidthCm() * a.getLengthCm())),
+            new SortStrategy("HeightDesc", (a, b) -> Double.compare(b.getHeightCm(), a.getHeightCm())));
+    // Built once: containers are immutable templates, only their packed copies hold stacks.
+    private static final List<Container> FALLBACK_CONTAINERS = buildFallbackContainers();
+    private static final String[] PLACEMENT_COLORS = {
+            "#4ade80", "#60a5fa", "#f472b6", "#facc15", "#a78bfa", "#fb923c" };
 
     @Autowired
-    public PackingService(ShippingCarrierRepository carrierRepository) {
-        this.carrierRepository = carrierRepository;
+    public PackingService(CarrierCatalog carrierCatalog, PackingResultCache resultCache,
+            InfeasibleCartCache infeasibleCartCache, PackagerPool packagerPool,
+            @Qualifier("packingExecutor") ExecutorService packingExecutor,
+            @Value("${app.packing.strategy-search.enabled:true}") boolean strategySearchEnabled,
+            @Value("${app.packing.strategy-search.budget-ms:2000}") long strategySearchBudgetMs,
+            @Value("${app.packing.exact.max-items:6}") int exactMaxItems,
+            @Value("${app.packing.exact.budget-ms:500}") long exactBudgetMs,
+            @Value("${app.packing.block.min-items:100}") int blockMinItems,
+            @Value("${app.packing.enclosing-search.budget-ms:500}") long enclosingSearchBudgetMs,
+            @Value("${app.packing.free-size.budget-ms:2500}") long freeSizeBudgetMs) {
+        this.carrierCatalog = carrierCatalog;
+        this.resultCache = resultCache;
+        this.infeasibleCartCache = infeasibleCartCache;
+        this.packagerPool = packagerPool;
+        this.portfolioExecutor = packingExecutor;
+        this.strategySearchEnabled = strategySearchEnabled;
+        this.strategySearchBudgetMs = strategySearchBudgetMs;
+        this.exactMaxItems = exactMaxItems;
+        this.exactBudgetMs = exactBudgetMs;
+        this.blockMinItems = blockMinItems;
+        this.enclosingSearchBudgetMs = enclosingSearchBudgetMs;
+        this.freeSizeBudgetMs = freeSizeBudgetMs;
     }
 
     // For tests or non-spring usage
     public PackingService() {
-        this.carrierRepository = null;
+        this.carrierCatalog = null;
+        this.resultCache = new PackingResultCache();
+        this.infeasibleCartCache = new InfeasibleCartCache();
+        this.packagerPool = new PackagerPool();
+        this.portfolioExecutor = ForkJoinPool.commonPool();
+        // The single library call, so tests see every item at its listed size.
+        this.strategySearchEnabled = false;
+        this.strategySearchBudgetMs = 2000;
+        this.exactMaxItems = 6;
+        this.exactBudgetMs = 500;
+        this.blockMinItems = 100;
+        this.enclosingSearchBudgetMs = 500;
+        this.freeSizeBudgetMs = 2500;
     }
 
-    private static final double SOFT_ITEM_COMPRESSION = 0.8;
-    private static final double PLUSH_ITEM_COMPRESSION = 0.6; // Plush toys can be compressed more
-
     /**
      * Check if items can fit into a carrier's container using 3D bin packing.
      *
@@ -66,10 +142,10 @@ public class PackingService {
         List<ContainerItem> containerItems = ContainerItem.newListBuilder()
                 .withContainer(container)
                 .build();
-        List<BoxItem> boxItems = createBoxItemsLibraryNative(items);
+        List<BoxItem> boxItems = createBoxItemsLibraryNative(ItemGroup.group(items));
 
-        try (LargestAreaFitFirstPackager laffPackager = LargestAreaFitFirstPackager.newBuilder().build()) {
-            PackagerResult result = laffPackager.newResultBuilder()
+        try (PackagerPool.Lease<LargestAreaFitFirstPackager> laff = packagerPool.laff()) {
+            PackagerResult result = laff.packager().newResultBuilder()
                     .withContainerItems(containerItems)
                     .withBoxItems(boxItems)
                     .withMaxContainerCount(1)
@@ -79,397 +155,790 @@ public class PackingService {
         }
     }
 
+    /**
+     * Cheap pre-filter run before any packer: checks provable lower bounds
+     * (item size, total volume, minimum size sum, Martello-style L1/L2) against
+     * the carrier container.
+     *
+     * @return the rejection reason, or null when the carrier may still fit
+     */
+    public String findInfeasibilityReason(List<ProductReference> items, ShippingCarrier carrier) {
+        if (items == null || items.isEmpty() || carrier == null) {
+            return null;
+        }
+        return findInfeasibilityReason(newContext(items), carrier);
+    }
+
+    /** Same as {@link #findInfeasibilityReason(List, ShippingCarrier)} on a compiled cart. */
+    public String findInfeasibilityReason(PackingContext context, ShippingCarrier carrier) {
+        if (context == null || context.isEmpty() || carrier == null
+                || carrier.getMaxLength() == null || carrier.getMaxWidth() == null || carrier.getMaxHeight() == null) {
+            return null;
+        }
+
+        int[] container = {
+                toMm(carrier.getMaxLength()), toMm(carrier.getMaxWidth()), toMm(carrier.getMaxHeight()) };
+        return findInfeasibilityReason(context, container, carrier.getSizeSumLimit());
+    }
+
+    private String findInfeasibilityReason(PackingContext context, int[] containerMm, Integer sizeSumLimit) {
+        List<ProductReference> items = context.items();
+        List<String> names = new ArrayList<>(items.size());
+        for (ProductReference item : items) {
+            names.add(item.getNameJp() != null ? item.getNameJp() : item.getName());
+        }
+        return PackingLowerBounds.findInfeasibilityReason(names, context.sortedDimsMm(), containerMm, sizeSumLimit);
+    }
+
+    /**
+     * @return true when the packer has already failed this cart (or a cart it
+     *         contains) for the carrier's container
+     */
+    public boolean isKnownInfeasible(List<ProductReference> items, ShippingCarrier carrier) {
+        if (items == null || items.isEmpty() || carrier == null) {
+            return false;
+        }
+        return infeasibleCartCache.isKnownInfeasible(CartFingerprint.containerKey(carrier),
+                CartFingerprint.counts(items));
+    }
+
     public Dimensions calculatePackedDimensions(List<ProductReference> items) {
         return calculatePackedResult(items).dimensions();
     }
 
+    public Dimensions calculatePackedDimensions(PackingContext context) {
+        return calculatePackedResult(context).dimensions();
+    }
+
     /**
      * Calculate packed result for a specific carrier container.
      *
-     * Uses native library `LargestAreaFitFirstPackager` directly.
+     * Tries the cheap exact paths first (the request's free-size packing, the
+     * homogeneous grid, MaxRects for single-layer carts, the exact solver for
+     * small carts) and races the library packers for the rest. A cart over the
+     * carrier's weight limit never fits.
      *
      * @return carrier-specific packed result, or null if the items do not fit this
      *         carrier
      */
     public PackingResult calculatePackedResultForCarrier(List<ProductReference> items, ShippingCarrier carrier) {
+        return calculatePackedResultForCarrier(items, carrier, System.currentTimeMillis() + CARRIER_DEADLINE_MS);
+    }
+
+    /**
+     * Same as {@link #calculatePackedResultForCarrier(List, ShippingCarrier)}, but
+     * bounded by an absolute deadline shared with the caller.
+     *
+     * The packer also stops early when the running thread is interrupted, so a
+     * cancelled future releases its packing thread promptly.
+     *
+     * @param deadlineMillis absolute epoch millis after which packing gives up
+     */
+    public PackingResult calculatePackedResultForCarrier(List<ProductReference> items, ShippingCarrier carrier,
+            long deadlineMillis) {
         if (items == null || items.isEmpty() || carrier == null) {
             return null;
         }
+        return calculatePackedResultForCarrier(newContext(items), carrier, deadlineMillis);
+    }
+
+    /**
+     * Request-scoped variant: results are recorded on the context, and the
+     * context's free-size packing is reused when it already fits the carrier.
+     */
+    public PackingResult calculatePackedResultForCarrier(PackingContext context, ShippingCarrier carrier,
+            long deadlineMillis) {
+        if (context == null || context.isEmpty() || carrier == null) {
+            return null;
+        }
+
+        String containerKey = CartFingerprint.containerKey(carrier);
+        PackingResult known = context.carrierFit(containerKey);
+        if (known != null || context.isCarrierMisfit(containerKey)) {
+            return known;
+        }
+
+        PackingResult packed = packForCarrier(context, carrier, containerKey, deadlineMillis);
+        context.recordCarrierResult(containerKey, packed);
+        return packed;
+    }
+
+    private PackingResult packForCarrier(PackingContext context, ShippingCarrier carrier, String containerKey,
+            long deadlineMillis) {
+        String cacheKey = context.fingerprint(containerKey);
+        PackingResult cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        if (infeasibleCartCache.isKnownInfeasible(containerKey, context.cart())) {
+            return null;
+        }
+        // Waiting callers take a miss only once it is recorded as infeasible; a miss
+        // cut short by the leader's deadline says nothing to callers with time left.
+        return inFlight.run(cacheKey, deadlineMillis,
+                () -> searchCarrierFit(context, carrier, containerKey, cacheKey, deadlineMillis),
+                packed -> packed != null || infeasibleCartCache.isKnownInfeasible(containerKey, context.cart()));
+    }
+
+    private PackingResult searchCarrierFit(PackingContext context, ShippingCarrier carrier, String containerKey,
+            String cacheKey, long deadlineMillis) {
+        List<ProductReference> items = context.items();
+
+        // Shared work: the free-size packing already computed for this request is
+        // a valid placement for any carrier whose container holds its bounding box.
+        PackingResult freeSize = context.freeSizeResult();
+        if (freeSize != null && fitsCarrier(freeSize, carrier)) {
+            resultCache.put(cacheKey, freeSize);
+            return freeSize;
+        }
+
+        if (isHomogeneous(context) && (carrier.getMaxWeightG() == null
+                || items.get(0).getWeightG() * items.size() <= carrier.getMaxWeightG())) {
+            int[] containerMm = {
+                    toMm(carrier.getMaxLength()), toMm(carrier.getMaxWidth()), toMm(carrier.getMaxHeight()) };
+            PackingResult grid = packHomogeneous(context, containerMm);
+            if (grid != null) {
+                resultCache.put(cacheKey, grid);
+                return grid;
+            }
+        }
 
+        List<int[]> sortedItemsMm = context.sortedDimsMm();
+        int totalWeight = items.stream().mapToInt(ProductReference::getWeightG).sum();
+        boolean overweight = carrier.getMaxWeightG() != null && totalWeight > carrier.getMaxWeightG();
         Container container = createContainer(carrier);
-        List<ContainerItem> containerItems = ContainerItem.newListBuilder().withContainer(container).build();
-        List<BoxItem> boxItems = createBoxItemsLibraryNative(items);
 
-        try (LargestAreaFitFirstPackager packager = LargestAreaFitFirstPackager.newBuilder().build()) {
-            PackagerResult result = packager.newResultBuilder()
-                    .withContainerItems(containerItems)
-                    .withBoxItems(boxItems)
-                    .withMaxContainerCount(1)
-                    .withDeadline(System.currentTimeMillis() + 1800)
-                    .build();
-            if (!result.isSuccess()) {
+        // Bulk carts: the search packers below scale too badly, so blocks go first
+        // and fast LAFF gets the rest of the deadline when they miss. Both are
+        // heuristics, so a miss is not recorded as infeasible.
+        if (items.size() >= blockMinItems) {
+            if (overweight) {
                 return null;
             }
-            Container packedContainer = result.get(0);
-            if (packedContainer.getStack() == null) {
-                return null;
+            List<ExactPacker.Placed> layout = BlockPacker.pack(sortedItemsMm,
+                    new int[] { container.getDx(), container.getDy(), container.getDz() });
+            PackingResult packed = layout != null
+                    ? buildLayoutResult(context, layout)
+                    : carrierAttempt(packagerPool.fastLaff(),
+                            ContainerItem.newListBuilder().withContainer(container).build(), context,
+                            Math.min(deadlineMillis, System.currentTimeMillis() + CARRIER_DEADLINE_MS),
+                            Thread.currentThread()::isInterrupted);
+            if (packed != null) {
+                resultCache.put(cacheKey, packed);
             }
-            return buildPackingResult(packedContainer, items);
+            return packed;
         }
-    }
 
-    public PackingResult calculatePackedResult(List<ProductReference> items) {
-        if (items == null || items.isEmpty()) {
-            return new PackingResult(new Dimensions(0, 0, 0, 0, 0), List.of());
+        // Flat-mail fast path: when nothing can be stacked in the container, the
+        // problem is 2D rectangle packing and MaxRects usually answers it directly.
+        // MaxRects is a greedy heuristic, so a miss proves nothing and falls through.
+        int[] carrierMm = { toMm(carrier.getMaxLength()), toMm(carrier.getMaxWidth()), toMm(carrier.getMaxHeight()) };
+        Arrays.sort(carrierMm);
+        if (MaxRectsPacker.isSingleLayer(sortedItemsMm, carrierMm[0])) {
+            if (overweight) {
+                return null;
+            }
+            List<MaxRectsPacker.Placed> layer =
+                    MaxRectsPacker.pack(sortedItemsMm, carrierMm[2], carrierMm[1], carrierMm[0]);
+            if (layer != null) {
+                PackingResult flat = buildSingleLayerResult(context, layer);
+                resultCache.put(cacheKey, flat);
+                return flat;
+            }
         }
 
-        if (USE_LIBRARY_ONLY) {
-            return calculatePackedResultLibrary(items);
+        // Small carts: the exact solver settles most fits within milliseconds. A
+        // search that ran to the end without a layout proves the misfit; anything
+        // cut short is left to the packers below.
+        if (items.size() <= exactMaxItems && !overweight) {
+            int[] containerMm = { container.getDx(), container.getDy(), container.getDz() };
+            ExactPacker.Solution exact = ExactPacker.solve(sortedItemsMm, containerMm, true,
+                    Math.min(deadlineMillis, System.currentTimeMillis() + exactBudgetMs),
+                    Thread.currentThread()::isInterrupted);
+            if (exact.placements() != null) {
+                PackingResult packed = buildLayoutResult(context, exact.placements());
+                resultCache.put(cacheKey, packed);
+                return packed;
+            }
+            if (exact.complete()) {
+                infeasibleCartCache.recordInfeasible(containerKey, context.cart());
+                return null;
+            }
         }
 
-        // Try multiple sorting strategies and pick the one with the most
-        // shipping-efficient bounding box.
-        // Prefer smaller size sum (L+W+H), then smaller max dimension, then smaller
-        // volume.
-        List<SortStrategy> strategies = List.of(
-                new SortStrategy("VolumeDesc", (a, b) -> Double.compare(b.getVolumeCm3(), a.getVolumeCm3())),
-                new SortStrategy("VolumeAsc", (a, b) -> Double.compare(a.getVolumeCm3(), b.getVolumeCm3())),
-                new SortStrategy("FootprintDesc",
-                        (a, b) -> Double.compare(b.getWidthCm() * b.getLengthCm(), a.getWidthCm() * a.getLengthCm())),
-                new SortStrategy("HeightDesc", (a, b) -> Double.compare(b.getHeightCm(), a.getHeightCm())));
+        List<ContainerItem> containerItems = ContainerItem.newListBuilder().withContainer(container).build();
+        long deadline = Math.min(deadlineMillis, System.currentTimeMillis() + CARRIER_DEADLINE_MS);
 
-        PackingResult bestResult = null;
-        PackingScore bestScore = null;
-        String bestStrategy = "";
-
-        for (SortStrategy strategy : strategies) {
-            PackingResult result = tryPackWithSort(items, strategy.comparator);
-            if (result != null && result.dimensions() != null) {
-                PackingScore score = score(result.dimensions());
-                if (score.volume() > 0 && (bestScore == null || isBetter(score, bestScore))) {
-                    bestScore = score;
-                    bestResult = result;
-                    bestStrategy = strategy.name;
-                }
+        // Race the packers: for a carrier the question is whether the cart fits,
+        // so the first packing found settles it and stops the others.
+        List<PackingPortfolio.Strategy<PackingResult>> strategies = new ArrayList<>(3);
+        strategies.add((until, stop) -> carrierAttempt(packagerPool.laff(), containerItems, context, until, stop));
+        strategies.add((until, stop) -> carrierAttempt(packagerPool.fastLaff(), containerItems, context, until, stop));
+        if (items.size() <= BRUTE_FORCE_ITEM_LIMIT) {
+            strategies.add((until, stop) ->
+                    carrierAttempt(packagerPool.bruteForce(), containerItems, context, until, stop));
+        }
+        PackingPortfolio.Outcome<PackingResult> outcome =
+                new PackingPortfolio<PackingResult>(portfolioExecutor, this::isBetter, r -> true)
+                        .run(strategies, deadline);
+        PackingResult packed = outcome.best();
+        if (packed == null) {
+            // Only packers that all finished on their own are evidence of a misfit;
+            // a timeout, cancellation or failed packer says nothing about the cart.
+            if (outcome.complete()) {
+                infeasibleCartCache.recordInfeasible(containerKey, context.cart());
             }
+            return null;
         }
+        resultCache.put(cacheKey, packed);
+        return packed;
+    }
 
-        if (bestResult != null) {
-            return bestResult;
+    private PackingResult carrierAttempt(PackagerPool.Lease<? extends Packager<?>> lease,
+            List<ContainerItem> containerItems, PackingContext context, long deadlineMillis, BooleanSupplier stop) {
+        try (lease) {
+            PackagerResult result = lease.packager().newResultBuilder()
+                    .withContainerItems(containerItems)
+                    .withBoxItems(context.boxItems())
+                    .withMaxContainerCount(1)
+                    .withDeadline(deadlineMillis)
+                    .withInterrupt(stop)
+                    .build();
+            if (!result.isSuccess() || result.get(0).getStack() == null) {
+                return null;
+            }
+            return buildPackingResult(result.get(0), context.items());
         }
-
-        // Fallback to basic sum if all strategies fail
-        return new PackingResult(basicSum(items), List.of());
     }
 
-    private record SortStrategy(String name, java.util.Comparator<ProductReference> comparator) {
-    }
+    private PackingResult buildSingleLayerResult(PackingContext context, List<MaxRectsPacker.Placed> layer) {
+        List<ProductReference> items = context.items();
+        int[] firstUnit = firstUnitIndexes(context);
 
-    private record PackingScore(double sizeSum, double footprintAspect, double maxDim, double volume) {
+        int maxX = 0;
+        int maxY = 0;
+        int maxZ = 0;
+        List<PlacementInfo> placements = new ArrayList<>(layer.size());
+        for (MaxRectsPacker.Placed p : layer) {
+            placements.add(new PlacementInfo(items.get(p.index()).getName(), p.x(), p.y(), 0,
+                    p.dx(), p.dy(), p.dz(), PLACEMENT_COLORS[firstUnit[p.index()] % PLACEMENT_COLORS.length]));
+            maxX = Math.max(maxX, p.x() + p.dx());
+            maxY = Math.max(maxY, p.y() + p.dy());
+            maxZ = Math.max(maxZ, p.dz());
+        }
+        int totalWeight = items.stream().mapToInt(ProductReference::getWeightG).sum();
+        Dimensions dims = new Dimensions(toCm(maxX), toCm(maxY), toCm(maxZ), totalWeight, items.size());
+        return new PackingResult(dims, placements);
     }
 
-    private PackingScore score(Dimensions dims) {
-        double length = dims.getLengthCm();
-        double width = dims.getWidthCm();
-        double height = dims.getHeightCm();
-        double sizeSum = length + width + height;
-        double footprintAspect = aspectRatio(length, width);
-        double maxDim = Math.max(length, Math.max(width, height));
-        double volume = length * width * height;
-        return new PackingScore(sizeSum, footprintAspect, maxDim, volume);
-    }
+    /** Result for a unit-indexed layout from {@link ExactPacker} or {@link BlockPacker}. */
+    private PackingResult buildLayoutResult(PackingContext context, List<ExactPacker.Placed> layout) {
+        List<ProductReference> items = context.items();
+        int[] firstUnit = firstUnitIndexes(context);
 
-    private boolean isBetter(PackingScore candidate, PackingScore best) {
-        final double eps = 1e-6;
-        if (candidate.sizeSum() < best.sizeSum() - eps) {
-            return true;
+        int maxX = 0;
+        int maxY = 0;
+        int maxZ = 0;
+        List<PlacementInfo> placements = new ArrayList<>(layout.size());
+        for (ExactPacker.Placed p : layout) {
+            placements.add(new PlacementInfo(items.get(p.index()).getName(), p.x(), p.y(), p.z(),
+                    p.dx(), p.dy(), p.dz(), PLACEMENT_COLORS[firstUnit[p.index()] % PLACEMENT_COLORS.length]));
+            maxX = Math.max(maxX, p.x() + p.dx());
+            maxY = Math.max(maxY, p.y() + p.dy());
+            maxZ = Math.max(maxZ, p.z() + p.dz());
         }
-        if (Math.abs(candidate.sizeSum() - best.sizeSum()) <= eps) {
-            if (candidate.footprintAspect() < best.footprintAspect() - eps) {
-                return true;
-            }
-            if (Math.abs(candidate.footprintAspect() - best.footprintAspect()) <= eps) {
-                if (candidate.maxDim() < best.maxDim() - eps) {
-                    return true;
-                }
-                if (Math.abs(candidate.maxDim() - best.maxDim()) <= eps) {
-                    return candidate.volume() < best.volume() - eps;
-                }
+        int totalWeight = items.stream().mapToInt(ProductReference::getWeightG).sum();
+        Dimensions dims = new Dimensions(toCm(maxX), toCm(maxY), toCm(maxZ), totalWeight, items.size());
+        return new PackingResult(dims, placements);
+    }
+
+    /**
+     * Index of each unit's group's first unit in {@link PackingContext#items()};
+     * placements are coloured by group, as buildPackingResult does via box ids.
+     */
+    private int[] firstUnitIndexes(PackingContext context) {
+        int[] firstUnit = new int[context.items().size()];
+        int offset = 0;
+        for (ItemGroup group : context.groups()) {
+            for (int q = 0; q < group.quantity(); q++) {
+                firstUnit[offset + q] = offset;
             }
+            offset += group.quantity();
         }
-        return false;
+        return firstUnit;
     }
 
-    private double aspectRatio(double a, double b) {
-        double min = Math.min(a, b);
-        double max = Math.max(a, b);
-        if (min <= 0) {
-            return Double.POSITIVE_INFINITY;
+    /**
+     * True when a packing's bounding box fits the carrier container in some
+     * rotation and also passes the carrier's size-sum and weight limits.
+     */
+    private boolean fitsCarrier(PackingResult packed, ShippingCarrier carrier) {
+        if (packed.placements().isEmpty() || carrier.getMaxLength() == null
+                || carrier.getMaxWidth() == null || carrier.getMaxHeight() == null) {
+            return false;
         }
-        return max / min;
+        Dimensions dims = packed.dimensions();
+        if (carrier.getSizeSumLimit() != null && dims.getSizeSum() > carrier.getSizeSumLimit()) {
+            return false;
+        }
+        if (carrier.getMaxWeightG() != null && dims.getWeightG() > carrier.getMaxWeightG()) {
+            return false;
+        }
+        int[] box = { toMm(dims.getLengthCm()), toMm(dims.getWidthCm()), toMm(dims.getHeightCm()) };
+        int[] inner = { toMm(carrier.getMaxLength()), toMm(carrier.getMaxWidth()), toMm(carrier.getMaxHeight()) };
+        Arrays.sort(box);
+        Arrays.sort(inner);
+        return box[0] <= inner[0] && box[1] <= inner[1] && box[2] <= inner[2];
     }
 
-    private PackingResult tryPackWithSort(List<ProductReference> items,
-            java.util.Comparator<ProductReference> comparator) {
-        List<Container> containers = getStandardContainers();
-        List<BoxItem> boxItems = createBoxItemsWithSort(items, comparator);
+    /**
+     * Builds the request-scoped packing context: item model and library boxes are
+     * compiled once and shared by the free-size estimate and every carrier check.
+     */
+    public PackingContext newContext(List<ProductReference> items) {
+        return newContextForGroups(items == null ? List.of() : ItemGroup.group(items));
+    }
 
-        Packager<?> fastPackager = FastLargestAreaFitFirstPackager.newBuilder().build();
-        Packager<?> brutePackager = items.size() <= BRUTE_FORCE_ITEM_LIMIT
-                ? FastBruteForcePackager.newBuilder().build()
-                : null;
+    /** Same as {@link #newContext(List)} for a cart already grouped by quantity. */
+    public PackingContext newContextForGroups(List<ItemGroup> groups) {
+        List<ItemGroup> merged = groups == null ? List.of() : ItemGroup.merge(groups);
+        return new PackingContext(merged, createBoxItemsLibraryNative(merged));
+    }
 
-        try {
-            for (Container container : containers) {
-                PackingCandidate bestCandidate = null;
+    public PackingResult calculatePackedResult(List<ProductReference> items) {
+        if (items == null || items.isEmpty()) {
+            return new PackingResult(new Dimensions(0, 0, 0, 0, 0), List.of());
+        }
+        return calculatePackedResult(newContext(items));
+    }
 
-                PackagerResult fastResult = packInContainer(fastPackager, container, boxItems, 1200);
-                bestCandidate = considerCandidate(bestCandidate, fastResult, items);
+    public PackingResult calculatePackedResult(PackingContext context) {
+        if (context == null || context.isEmpty()) {
+            return new PackingResult(new Dimensions(0, 0, 0, 0, 0), List.of());
+        }
+        PackingResult known = context.freeSizeResult();
+        if (known != null) {
+            return known;
+        }
+        PackingResult packed = calculateFreeSizeResult(context);
+        context.setFreeSizeResult(packed);
+        return packed;
+    }
 
-                if (brutePackager != null) {
-                    PackagerResult bruteResult = returnIfSuccess(brutePackager, container, boxItems, 1500);
-                    bestCandidate = considerCandidate(bestCandidate, bruteResult, items);
-                }
+    private PackingResult calculateFreeSizeResult(PackingContext context) {
+        String cacheKey = context.fingerprint(CartFingerprint.FREE_SIZE_CONTAINER);
+        PackingResult cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        long deadline = System.currentTimeMillis() + freeSizeBudgetMs;
+        return inFlight.run(cacheKey, deadline, () -> searchFreeSize(context, cacheKey, deadline), packed -> true);
+    }
 
-                if (bestCandidate != null) {
-                    return bestCandidate.result();
-                }
+    /**
+     * Free-size box for the cart. The exact solver, the heuristic (sort search or
+     * library call) and the enclosing-box search can run one after another, so
+     * they share {@code deadline}, {@code freeSizeBudgetMs} after the call, and each stops at
+     * the earlier of that and its own budget. With the defaults the worst case
+     * is 2.5 s instead of the 3 s the three budgets add up to; a box search left
+     * without time keeps the heuristic's layout.
+     */
+    private PackingResult searchFreeSize(PackingContext context, String cacheKey, long deadline) {
+        PackingResult packed = isHomogeneous(context) ? packHomogeneousFreeSize(context) : null;
+        if (packed == null && context.items().size() >= blockMinItems) {
+            packed = buildLayoutResult(context, BlockPacker.pack(context.sortedDimsMm(), null));
+        }
+        if (packed == null && context.items().size() <= exactMaxItems) {
+            // Only a finished search is used: a layout cut short by the budget
+            // depends on timing, and the heuristics below are repeatable.
+            ExactPacker.Solution exact = solveExactFreeSize(context, deadline);
+            if (exact.complete() && exact.placements() != null) {
+                packed = buildLayoutResult(context, exact.placements());
             }
+        }
+        if (packed == null) {
+            PackingResult heuristic = strategySearchEnabled
+                    ? searchSortStrategies(context, deadline)
+                    : calculatePackedResultLibrary(context, deadline);
+            packed = minimizeEnclosingBox(context, heuristic, deadline);
+        }
+        // A search cancelled midway is worse than the cart deserves; keep it out of the cache.
+        if (!Thread.currentThread().isInterrupted()) {
+            resultCache.put(cacheKey, packed);
+        }
+        return packed;
+    }
 
-            // Try with huge container as a last resort
-            Container huge = Container.newBuilder()
-                    .withDescription("Huge")
-                    .withSize(3000, 3000, 3000)
-                    .withEmptyWeight(0)
-                    .withMaxLoadWeight(100_000_000)
-                    .build();
-
-            PackagerResult hugeResult = packInContainer(fastPackager, huge, boxItems, 500);
-            if (!hugeResult.isSuccess()) {
+    /**
+     * Shrinks a free-size layout with {@link EnclosingBoxSearch}, using fast LAFF
+     * as the feasibility oracle. Probes stay inside the first fallback container
+     * that holds the seed, so the estimate never moves up a size class. Without
+     * a seed (nothing fits a fallback container) the search starts from a plain
+     * stack of the items and is not capped.
+     */
+    private PackingResult minimizeEnclosingBox(PackingContext context, PackingResult seed, long deadlineMillis) {
+        PackingResult start = seed != null ? seed : stackLayout(context);
+        long searchDeadline = Math.min(deadlineMillis, System.currentTimeMillis() + enclosingSearchBudgetMs);
+        if (enclosingSearchBudgetMs <= 0 || searchDeadline <= System.currentTimeMillis()) {
+            return start;
+        }
+        List<int[]> sortedDims = context.sortedDimsMm();
+        EnclosingBoxSearch.Outcome<PackingResult> outcome = new EnclosingBoxSearch<PackingResult>(portfolioExecutor,
+                (box, until, stop) -> packInBox(context, box, until, stop),
+                r -> toMm(r.dimensions().getSizeSum()))
+                .search(maxSortedMm(sortedDims), volumeMm(sortedDims), seed != null ? holdingContainer(seed) : null,
+                        start, searchDeadline);
+        log.debug("Free-size box {} mm, {}% above the {} mm lower bound{}", outcome.sizeSumMm(),
+                Math.round(outcome.gap() * 1000) / 10.0, outcome.lowerBoundMm(),
+                outcome.closed() ? "" : " (search cut short)");
+        return outcome.best();
+    }
+
+    /** Feasibility oracle: fast LAFF into a box of the given size (mm). */
+    private PackingResult packInBox(PackingContext context, int[] box, long deadlineMillis, BooleanSupplier stop) {
+        Container container = Container.newBuilder()
+                .withDescription("Probe")
+                .withSize(box[0], box[1], box[2])
+                .withEmptyWeight(0)
+                .withMaxLoadWeight(100_000_000)
+                .build();
+        try (PackagerPool.Lease<FastLargestAreaFitFirstPackager> fast = packagerPool.fastLaff()) {
+            PackagerResult result = packInContainer(fast.packager(), container, context.boxItems(), deadlineMillis, stop);
+            if (!result.isSuccess() || result.get(0).getStack() == null) {
                 return null;
             }
+            return buildPackingResult(result.get(0), context.items());
+        }
+    }
 
-            Container packedContainer = hugeResult.get(0);
-            if (packedContainer.getStack() == null) {
-                return null;
+    /** Sorted sides of the first fallback container holding the layout's box, or null. */
+    private int[] holdingContainer(PackingResult packed) {
+        Dimensions dims = packed.dimensions();
+        int[] box = { toMm(dims.getLengthCm()), toMm(dims.getWidthCm()), toMm(dims.getHeightCm()) };
+        Arrays.sort(box);
+        for (Container container : getFallbackContainers()) {
+            int[] sides = { container.getDx(), container.getDy(), container.getDz() };
+            Arrays.sort(sides);
+            if (box[0] <= sides[0] && box[1] <= sides[1] && box[2] <= sides[2]) {
+                return sides;
             }
+        }
+        return null;
+    }
 
-            return extractPackingResult(packedContainer, items);
-        } finally {
-            closeQuietly(fastPackager);
-            closeQuietly(brutePackager);
+    /**
+     * Always-valid layout: every item lies on its largest face, stacked in one
+     * column. Replaces the old sum-of-sides estimate, which had no placements.
+     */
+    private PackingResult stackLayout(PackingContext context) {
+        List<ProductReference> items = context.items();
+        List<int[]> sortedDims = context.sortedDimsMm();
+        int[] firstUnit = firstUnitIndexes(context);
+        int[] footprint = maxSortedMm(sortedDims);
+
+        List<PlacementInfo> placements = new ArrayList<>(items.size());
+        int z = 0;
+        for (int i = 0; i < items.size(); i++) {
+            int[] d = sortedDims.get(i);
+            placements.add(new PlacementInfo(items.get(i).getName(), 0, 0, z, d[2], d[1], d[0],
+                    PLACEMENT_COLORS[firstUnit[i] % PLACEMENT_COLORS.length]));
+            z += d[0];
         }
+        int totalWeight = items.stream().mapToInt(ProductReference::getWeightG).sum();
+        Dimensions dims = new Dimensions(toCm(footprint[2]), toCm(footprint[1]), toCm(z), totalWeight, items.size());
+        return new PackingResult(dims, placements);
     }
 
-    private PackingResult calculatePackedResultLibrary(List<ProductReference> items) {
-        List<BoxItem> boxItems = createBoxItemsLibraryNative(items);
-        List<ContainerItem> containerItems = ContainerItem.newListBuilder()
-                .withContainers(getFallbackContainers())
-                .build();
+    /**
+     * Exact free-size packing for a small cart: the fallback containers are tried
+     * in the library path's order and the first one the solver packs decides.
+     * Containers it rules out are passed over; running out of budget ends the
+     * walk, leaving the cart to the heuristics.
+     */
+    private ExactPacker.Solution solveExactFreeSize(PackingContext context, long deadlineMillis) {
+        List<int[]> itemsMm = context.sortedDimsMm();
+        long deadline = Math.min(deadlineMillis, System.currentTimeMillis() + exactBudgetMs);
+        for (Container container : getFallbackContainers()) {
+            int[] containerMm = { container.getDx(), container.getDy(), container.getDz() };
+            if (findInfeasibilityReason(context, containerMm, null) != null) {
+                continue;
+            }
+            ExactPacker.Solution solution = ExactPacker.solve(itemsMm, containerMm, false, deadline,
+                    Thread.currentThread()::isInterrupted);
+            if (solution.placements() != null || !solution.complete()) {
+                return solution;
+            }
+        }
+        return new ExactPacker.Solution(null, true);
+    }
 
-        try (LargestAreaFitFirstPackager packager = LargestAreaFitFirstPackager.newBuilder().build()) {
-            PackagerResult result = packager.newResultBuilder()
-                    .withContainerItems(containerItems)
-                    .withBoxItems(boxItems)
-                    .withMaxContainerCount(1)
-                    .withDeadline(System.currentTimeMillis() + 2000)
-                    .build();
+    /**
+     * Multi-sort search for the free-size box: every sort order × packer runs
+     * as its own task on the packing executor next to the plain library call,
+     * all under one deadline. The tasks share the best result found so far and
+     * stop as soon as one reaches the size-sum lower bound. Returns null when
+     * no task fits a fallback container.
+     * The sort orders pack plush and fashion items at their compressed sizes,
+     * as the search did before it was disabled; the library call packs every
+     * item as listed.
+     * Prefer smaller size sum (L+W+H), then smaller max dimension, then smaller
+     * volume (see {@link #isBetter(PackingScore, PackingScore)}).
+     */
+    private PackingResult searchSortStrategies(PackingContext context, long deadlineMillis) {
+        List<ProductReference> items = context.items();
+        List<Container> containers = new ArrayList<>();
+        for (Container container : getFallbackContainers()) {
+            int[] containerMm = { container.getDx(), container.getDy(), container.getDz() };
+            if (findInfeasibilityReason(context, containerMm, null) == null) {
+                containers.add(container);
+            }
+        }
 
-            if (result.isSuccess() && result.get(0).getStack() != null) {
-                return buildPackingResult(result.get(0), items);
+        List<PackingPortfolio.Strategy<PackingResult>> strategies = new ArrayList<>();
+        // The library call of the non-search path, so the search never does worse.
+        strategies.add((until, stop) -> packWithLibrary(context, until, stop));
+        for (SortStrategy strategy : SORT_STRATEGIES) {
+            List<BoxItem> boxItems = sortCompressedBoxItems(context, strategy.comparator());
+            strategies.add((until, stop) ->
+                    tryPackWithSort(packagerPool.fastLaff(), containers, boxItems, items, until, stop));
+            if (items.size() <= BRUTE_FORCE_ITEM_LIMIT) {
+                strategies.add((until, stop) ->
+                        tryPackWithSort(packagerPool.bruteForce(), containers, boxItems, items, until, stop));
             }
         }
 
-        // Last-resort safeguard only (non-library heuristic, used only on hard
-        // failure).
-        return new PackingResult(basicSum(items), List.of());
+        long lowerBound = (long) Math.ceil(sizeSumLowerBoundMm(context) - 1e-6);
+        return new PackingPortfolio<PackingResult>(portfolioExecutor, this::isBetter,
+                r -> toMm(r.dimensions().getSizeSum()) <= lowerBound)
+                .run(strategies, Math.min(deadlineMillis, System.currentTimeMillis() + strategySearchBudgetMs))
+                .best();
     }
 
     /**
-     * Try packing items with a given sort order in a huge container, then
-     * minimize the resulting bounding box via Extreme Points placement.
-     * Returns compacted PackingResult, or null if packing failed entirely.
+     * Library boxes of the context's groups at their compressed sizes (see
+     * {@link ItemDescriptor#compressedMm()}), ordered by {@code comparator}.
+     * Box ids match {@link PackingContext#boxItems()}, so placement labels
+     * resolve the same way.
      */
-    private PackingResult tryPackWithSortLibrary(List<ProductReference> items,
-            Comparator<ProductReference> comparator) {
-        List<BoxItem> boxItems = comparator != null
-                ? createBoxItemsWithSort(items, comparator)
-                : createBoxItemsOriginalOrder(items);
+    private List<BoxItem> sortCompressedBoxItems(PackingContext context, Comparator<ProductReference> comparator) {
+        List<ItemGroup> groups = context.groups();
+        List<BoxItem> boxItems = createBoxItems(groups, ItemDescriptor::compressedMm);
+        Integer[] order = new Integer[groups.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparator.compare(groups.get(a).product(), groups.get(b).product()));
 
-        PackingResult bestResult = null;
-        PackingScore bestScore = null;
+        List<BoxItem> sorted = new ArrayList<>(order.length);
+        for (Integer index : order) {
+            sorted.add(boxItems.get(index));
+        }
+        return sorted;
+    }
 
-        // Candidate 1: Fast LAFF (fast path)
-        Packager<?> fastPackager = FastLargestAreaFitFirstPackager.newBuilder().build();
-        try {
-            PackagerResult fastResult = tryPackInHugeContainer(fastPackager, boxItems, 1000);
-
-            if (fastResult != null && fastResult.isSuccess()) {
-                PackingResult candidate = compactPlacements(
-                        minimizeBoundingBoxWithExtremePoints(buildPackingResult(fastResult.get(0), items)));
-                PackingScore candidateScore = score(candidate.dimensions());
-                if (candidateScore.volume() > 0) {
-                    bestResult = candidate;
-                    bestScore = candidateScore;
-                }
+    private boolean isHomogeneous(PackingContext context) {
+        return context.groups().size() == 1;
+    }
+
+    /**
+     * Free-size fast path for a cart of one product: the fallback containers are
+     * tried in the same order as the library path, and the best grid in the first
+     * container that takes one wins.
+     *
+     * @return null when the general packer has to decide
+     */
+    private PackingResult packHomogeneousFreeSize(PackingContext context) {
+        for (Container container : getFallbackContainers()) {
+            int[] containerMm = { container.getDx(), container.getDy(), container.getDz() };
+            PackingResult grid = packHomogeneous(context, containerMm);
+            if (grid != null) {
+                return grid;
+            }
+            // No grid fits, but mixed orientations still might: only skip this
+            // container when the lower bounds rule it out.
+            if (findInfeasibilityReason(context, containerMm, null) == null) {
+                return null;
             }
-        } finally {
-            closeQuietly(fastPackager);
         }
+        return null;
+    }
 
-        // Candidate 2: Standard LAFF (slower, can find tighter layouts than fast LAFF)
-        Packager<?> laffPackager = LargestAreaFitFirstPackager.newBuilder().build();
-        try {
-            PackagerResult laffResult = tryPackInHugeContainer(laffPackager, boxItems, 1500);
-
-            if (laffResult != null && laffResult.isSuccess()) {
-                PackingResult candidate = compactPlacements(
-                        minimizeBoundingBoxWithExtremePoints(buildPackingResult(laffResult.get(0), items)));
-                PackingScore candidateScore = score(candidate.dimensions());
-                if (candidateScore.volume() > 0
-                        && (bestScore == null || isBetter(candidateScore, bestScore))) {
-                    bestResult = candidate;
-                    bestScore = candidateScore;
-                }
+    /**
+     * Best grid arrangement (by {@link PackingScore}) of a one-product cart in the
+     * given container, or null if no grid fits.
+     */
+    private PackingResult packHomogeneous(PackingContext context, int[] containerMm) {
+        ItemGroup group = context.groups().get(0);
+        ProductReference item = group.product();
+        int[] unitMm = group.descriptor().sizeMm();
+
+        HomogeneousPacker.Arrangement best = null;
+        PackingScore bestScore = null;
+        for (HomogeneousPacker.Arrangement arrangement
+                : HomogeneousPacker.arrangements(unitMm, group.quantity(), containerMm)) {
+            PackingScore candidate = score(new Dimensions(toCm(arrangement.lengthMm()),
+                    toCm(arrangement.widthMm()), toCm(arrangement.heightMm()), 0, 0));
+            if (bestScore == null || isBetter(candidate, bestScore)) {
+                best = arrangement;
+                bestScore = candidate;
             }
-        } finally {
-            closeQuietly(laffPackager);
+        }
+        if (best == null) {
+            return null;
         }
 
-        // Candidate 3: Brute-force for small item counts (more optimal placements)
-        if (items.size() <= BRUTE_FORCE_ITEM_LIMIT) {
-            Packager<?> brutePackager = FastBruteForcePackager.newBuilder().build();
-            try {
-                PackagerResult bruteResult = tryPackInHugeContainer(brutePackager, boxItems, 1500);
-
-                if (bruteResult != null && bruteResult.isSuccess()) {
-                    PackingResult candidate = compactPlacements(
-                            minimizeBoundingBoxWithExtremePoints(buildPackingResult(bruteResult.get(0), items)));
-                    PackingScore candidateScore = score(candidate.dimensions());
-                    if (candidateScore.volume() > 0
-                            && (bestScore == null || isBetter(candidateScore, bestScore))) {
-                        bestResult = candidate;
-                        bestScore = candidateScore;
-                    }
-                }
-            } finally {
-                closeQuietly(brutePackager);
-            }
+        List<PlacementInfo> placements = new ArrayList<>(group.quantity());
+        for (int i = 0; i < group.quantity(); i++) {
+            int[] origin = best.position(i);
+            placements.add(new PlacementInfo(item.getName(), origin[0], origin[1], origin[2],
+                    best.a(), best.b(), best.c(), PLACEMENT_COLORS[0]));
         }
+        Dimensions dims = new Dimensions(toCm(best.lengthMm()), toCm(best.widthMm()), toCm(best.heightMm()),
+                item.getWeightG() * group.quantity(), group.quantity());
+        return new PackingResult(dims, placements);
+    }
 
-        return bestResult;
+    private record SortStrategy(String name, Comparator<ProductReference> comparator) {
     }
 
-    /**
-     * Try packing items with a given sort order into a single carrier container.
-     * Returns best compacted result from multiple packers, or null if no fit.
-     */
-    private PackingResult tryPackWithSortForCarrier(List<ProductReference> items,
-            Container container, Comparator<ProductReference> comparator) {
-        List<BoxItem> boxItems = comparator != null
-                ? createBoxItemsWithSort(items, comparator)
-                : createBoxItemsOriginalOrder(items);
+    private record PackingScore(double sizeSum, double footprintAspect, double maxDim, double volume) {
+    }
 
-        List<ContainerItem> containerItems = ContainerItem.newListBuilder()
-                .withContainer(container)
-                .build();
+    private PackingScore score(Dimensions dims) {
+        double length = dims.getLengthCm();
+        double width = dims.getWidthCm();
+        double height = dims.getHeightCm();
+        double sizeSum = length + width + height;
+        double footprintAspect = aspectRatio(length, width);
+        double maxDim = Math.max(length, Math.max(width, height));
+        double volume = length * width * height;
+        return new PackingScore(sizeSum, footprintAspect, maxDim, volume);
+    }
 
-        PackingResult bestResult = null;
-        PackingScore bestScore = null;
+    /** Portfolio ordering: a result with an empty bounding box never wins. */
+    private boolean isBetter(PackingResult candidate, PackingResult best) {
+        PackingScore candidateScore = score(candidate.dimensions());
+        return candidateScore.volume() > 0 && (best == null || isBetter(candidateScore, score(best.dimensions())));
+    }
 
-        Packager<?> fastPackager = FastLargestAreaFitFirstPackager.newBuilder().build();
-        try {
-            PackingResult candidate = tryCarrierPackCandidate(
-                    fastPackager, containerItems, boxItems, items, 700);
-            if (candidate != null) {
-                PackingScore candidateScore = score(candidate.dimensions());
-                if (candidateScore.volume() > 0) {
-                    bestResult = candidate;
-                    bestScore = candidateScore;
-                }
+    /**
+     * Smallest L+W+H (mm) any packing of the items could have; a result that
+     * reaches it cannot be beaten on size sum.
+     */
+    private double sizeSumLowerBoundMm(PackingContext context) {
+        List<int[]> sortedDims = context.sortedDimsMm();
+        return PackingLowerBounds.minSizeSumMm(maxSortedMm(sortedDims), volumeMm(sortedDims));
+    }
+
+    /** Largest side per sorted position (short, middle, long) over all items. */
+    private static int[] maxSortedMm(List<int[]> sortedDims) {
+        int[] maxSorted = new int[3];
+        for (int[] dims : sortedDims) {
+            for (int k = 0; k < 3; k++) {
+                maxSorted[k] = Math.max(maxSorted[k], dims[k]);
             }
-        } finally {
-            closeQuietly(fastPackager);
         }
+        return maxSorted;
+    }
 
-        Packager<?> laffPackager = LargestAreaFitFirstPackager.newBuilder().build();
-        try {
-            PackingResult candidate = tryCarrierPackCandidate(
-                    laffPackager, containerItems, boxItems, items, 1200);
-            if (candidate != null) {
-                PackingScore candidateScore = score(candidate.dimensions());
-                if (candidateScore.volume() > 0
-                        && (bestScore == null || isBetter(candidateScore, bestScore))) {
-                    bestResult = candidate;
-                    bestScore = candidateScore;
-                }
-            }
-        } finally {
-            closeQuietly(laffPackager);
+    private static long volumeMm(List<int[]> sortedDims) {
+        long volume = 0;
+        for (int[] dims : sortedDims) {
+            volume += (long) dims[0] * dims[1] * dims[2];
         }
+        return volume;
+    }
 
-        if (items.size() <= BRUTE_FORCE_ITEM_LIMIT) {
-            Packager<?> brutePackager = FastBruteForcePackager.newBuilder().build();
-            try {
-                PackingResult candidate = tryCarrierPackCandidate(
-                        brutePackager, containerItems, boxItems, items, 1500);
-                if (candidate != null) {
-                    PackingScore candidateScore = score(candidate.dimensions());
-                    if (candidateScore.volume() > 0
-                            && (bestScore == null || isBetter(candidateScore, bestScore))) {
-                        bestResult = candidate;
-                        bestScore = candidateScore;
-                    }
+    private boolean isBetter(PackingScore candidate, PackingScore best) {
+        return isBetter(candidate.sizeSum(), candidate.footprintAspect(), candidate.maxDim(), candidate.volume(),
+                best.sizeSum(), best.footprintAspect(), best.maxDim(), best.volume());
+    }
+
+    private boolean isBetter(double sizeSum, double footprintAspect, double maxDim, double volume,
+            double bestSizeSum, double bestFootprintAspect, double bestMaxDim, double bestVolume) {
+        final double eps = 1e-6;
+        if (sizeSum < bestSizeSum - eps) {
+            return true;
+        }
+        if (Math.abs(sizeSum - bestSizeSum) <= eps) {
+            if (footprintAspect < bestFootprintAspect - eps) {
+                return true;
+            }
+            if (Math.abs(footprintAspect - bestFootprintAspect) <= eps) {
+                if (maxDim < bestMaxDim - eps) {
+                    return true;
+                }
+                if (Math.abs(maxDim - bestMaxDim) <= eps) {
+                    return volume < bestVolume - eps;
                 }
-            } finally {
-                closeQuietly(brutePackager);
             }
         }
-
-        return bestResult;
+        return false;
     }
 
-    private PackingResult tryCarrierPackCandidate(Packager<?> packager, List<ContainerItem> containerItems,
-            List<BoxItem> boxItems, List<ProductReference> items, long timeoutMs) {
-        PackagerResult result = packager.newResultBuilder()
-                .withContainerItems(containerItems)
-                .withBoxItems(boxItems)
-                .withMaxContainerCount(1)
-                .withDeadline(System.currentTimeMillis() + timeoutMs)
-                .build();
-
-        if (!result.isSuccess()) {
-            return null;
+    private double aspectRatio(double a, double b) {
+        double min = Math.min(a, b);
+        double max = Math.max(a, b);
+        if (min <= 0) {
+            return Double.POSITIVE_INFINITY;
         }
+        return max / min;
+    }
 
-        Container packedContainer = result.get(0);
-        if (packedContainer.getStack() == null) {
+    /**
+     * Packs the boxes in the given order into the first container that takes
+     * them.
+     *
+     * @return the thin-compacted result, or null if none fits or packing was stopped
+     */
+    private PackingResult tryPackWithSort(PackagerPool.Lease<? extends Packager<?>> lease,
+            List<Container> containers, List<BoxItem> boxItems, List<ProductReference> items,
+            long deadlineMillis, BooleanSupplier stop) {
+        try (lease) {
+            Packager<?> packager = lease.packager();
+            for (Container container : containers) {
+                if (stop.getAsBoolean()) {
+                    return null;
+                }
+                PackagerResult result = packInContainer(packager, container, boxItems, deadlineMillis, stop);
+                if (result.isSuccess() && result.get(0).getStack() != null) {
+                    return extractPackingResult(result.get(0), items, stop);
+                }
+            }
             return null;
         }
+    }
 
-        return compactPlacements(buildPackingResult(packedContainer, items));
+    private PackingResult calculatePackedResultLibrary(PackingContext context, long deadlineMillis) {
+        // A cancelled request interrupts this thread; LAFF stops instead of running out its 2 s.
+        return packWithLibrary(context, Math.min(deadlineMillis, System.currentTimeMillis() + 2000),
+                Thread.currentThread()::isInterrupted);
     }
 
-    private PackagerResult tryPackInHugeContainer(Packager<?> packager, List<BoxItem> boxItems, long timeoutMs) {
-        Container huge = Container.newBuilder()
-                .withDescription("Huge")
-                .withSize(3000, 3000, 3000)
-                .withEmptyWeight(0)
-                .withMaxLoadWeight(100_000_000)
+    /** LAFF over the fallback containers; null when nothing fits in time. */
+    private PackingResult packWithLibrary(PackingContext context, long deadlineMillis, BooleanSupplier stop) {
+        List<ContainerItem> containerItems = ContainerItem.newListBuilder()
+                .withContainers(getFallbackContainers())
                 .build();
 
-        PackagerResult hugeResult = packager.newResultBuilder()
-                .withContainerItems(ContainerItem.newListBuilder().withContainer(huge).build())
-                .withBoxItems(boxItems)
-                .withMaxContainerCount(1)
-                .withDeadline(System.currentTimeMillis() + timeoutMs)
-                .build();
+        try (PackagerPool.Lease<LargestAreaFitFirstPackager> laff = packagerPool.laff()) {
+            PackagerResult result = laff.packager().newResultBuilder()
+                    .withContainerItems(containerItems)
+                    .withBoxItems(context.boxItems())
+                    .withMaxContainerCount(1)
+                    .withDeadline(deadlineMillis)
+                    .withInterrupt(stop)
+                    .build();
 
-        return hugeResult.isSuccess() ? hugeResult : null;
+            if (result.isSuccess() && result.get(0).getStack() != null) {
+                return buildPackingResult(result.get(0), context.items());
+            }
+        }
+        return null;
     }
 
     private PackagerResult packInContainer(Packager<?> packager, Container container,
-            List<BoxItem> boxItems, long timeoutMs) {
+            List<BoxItem> boxItems, long deadlineMillis, BooleanSupplier stop) {
         List<ContainerItem> containerItems = ContainerItem.newListBuilder()
                 .withContainer(container)
                 .build();
@@ -478,183 +947,179 @@ public class PackingService {
                 .withContainerItems(containerItems)
                 .withBoxItems(boxItems)
                 .withMaxContainerCount(1)
-                .withDeadline(System.currentTimeMillis() + timeoutMs)
+                .withDeadline(deadlineMillis)
+                .withInterrupt(stop)
                 .build();
     }
 
-    private PackagerResult returnIfSuccess(Packager<?> packager, Container container,
-            List<BoxItem> boxItems, long timeoutMs) {
-        PackagerResult result = packInContainer(packager, container, boxItems, timeoutMs);
-        return result;
-    }
-
-    private PackingCandidate considerCandidate(PackingCandidate currentBest, PackagerResult result,
-            List<ProductReference> items) {
-        if (result == null || !result.isSuccess()) {
-            return currentBest;
-        }
-        Container packedContainer = result.get(0);
-        if (packedContainer.getStack() == null) {
-            return currentBest;
-        }
-        PackingResult packingResult = extractPackingResult(packedContainer, items);
-        PackingScore score = score(packingResult.dimensions());
-        PackingCandidate candidate = new PackingCandidate(packingResult, score);
-
-        if (currentBest == null || isBetter(candidate.score(), currentBest.score())) {
-            return candidate;
-        }
-        return currentBest;
-    }
-
-    private record PackingCandidate(PackingResult result, PackingScore score) {
-    }
-
-    private void closeQuietly(Packager<?> packager) {
-        if (packager == null) {
-            return;
-        }
-        try {
-            packager.close();
-        } catch (Exception ignored) {
-            // ignore cleanup errors
-        }
-    }
-
-    private PackingResult extractPackingResult(Container packedContainer, List<ProductReference> items) {
+    /**
+     * Library layout shrunk for the free-size box. Small carts (see
+     * {@link #COMPACTION_MAX_ITEMS}) are rebuilt at extreme points, keeping the
+     * rebuild only when it beats the library layout, and then run through the
+     * compaction passes; every layout ends with thin-item compaction.
+     */
+    private PackingResult extractPackingResult(Container packedContainer, List<ProductReference> items,
+            BooleanSupplier stop) {
         PackingResult packed = buildPackingResult(packedContainer, items);
+        if (items.size() <= COMPACTION_MAX_ITEMS) {
+            PackingResult rebuilt = minimizeBoundingBoxWithExtremePoints(packed, stop);
+            if (isBetter(rebuilt, packed)) {
+                packed = rebuilt;
+            }
+            packed = compactPlacements(packed, stop);
+        }
         return compactThinPlacements(packed);
     }
 
     private PackingResult compactPlacements(PackingResult packed) {
+        return compactPlacements(packed, Thread.currentThread()::isInterrupted);
+    }
+
+    /**
+     * Improves a layout pass by pass. Every move keeps the layout valid, so when
+     * {@code stop} turns true (checked per item) the passes end and the layout
+     * so far is returned.
+     */
+    private PackingResult compactPlacements(PackingResult packed, BooleanSupplier stop) {
         List<PlacementInfo> placements = packed.placements();
         if (placements.size() < 2) {
             return packed;
         }
 
-        List<MutablePlacement> current = new ArrayList<>(placements.size());
-        for (PlacementInfo p : placements) {
-            current.add(new MutablePlacement(p));
-        }
+        // Struct-of-arrays model: trial moves are scored from the incremental
+        // bounding box (boundsIfMoved) without touching the layout, so the inner
+        // loops allocate nothing and each score is O(1).
+        PlacementArrays current = PlacementArrays.of(placements);
+        int count = current.size();
+        int[] bounds = new int[6];
 
         boolean movedAny = false;
 
         // Pass 0: Defensive relocation — first priority
         // Find items that are on the bounding box edge (extending total size).
-        // Try to relocate them into positions that do NOT increase the size sum
-        // beyond the bounding box of the remaining items.
-        for (int pass = 0; pass < COMPACTION_PASSES; pass++) {
-            Dimensions fullDims = dimensionsFromPlacements(toPlacementInfos(current),
-                    packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-            PackingScore fullScore = score(fullDims);
-
-            MoveCandidate bestDefensiveMove = null;
-
-            for (int i = 0; i < current.size(); i++) {
-                MutablePlacement item = current.get(i);
-
+        // Try to relocate them into positions that do NOT increase the size sum
+        // beyond the bounding box of the remaining items.
+        for (int pass = 0; pass < COMPACTION_PASSES && !stop.getAsBoolean(); pass++) {
+            current.bounds(PlacementArrays.NONE, bounds);
+            int fullL = bounds[3] - bounds[0] + 1;
+            int fullW = bounds[4] - bounds[1] + 1;
+            int fullH = bounds[5] - bounds[2] + 1;
+            double fullSizeSum = toCm(fullL) + toCm(fullW) + toCm(fullH);
+
+            int bestIndex = -1;
+            int bestX = 0, bestY = 0, bestZ = 0;
+            int bestL = 0, bestW = 0, bestH = 0;
+
+            for (int i = 0; i < count && !stop.getAsBoolean(); i++) {
                 // Check if this item is on the bounding box edge
                 // (i.e., removing it would shrink the bounding box)
-                Dimensions dimsWithout = dimensionsWithout(current, i,
-                        packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-                PackingScore scoreWithout = score(dimsWithout);
-                if (scoreWithout.sizeSum() >= fullScore.sizeSum() - 1e-6) {
+                current.bounds(i, bounds);
+                double sizeSumWithout = toCm(bounds[3] - bounds[0]) + toCm(bounds[4] - bounds[1])
+                        + toCm(bounds[5] - bounds[2]);
+                if (sizeSumWithout >= fullSizeSum - 1e-6) {
                     continue;
                 }
 
                 // This item extends the bounding box. Try to relocate it to a
                 // position that keeps size sum ≤ sizeSum of other items' bbox.
-                // Generate candidate positions: on top of each support + floor-level gaps
-                List<int[]> candidates = generateDefensiveCandidates(item, current, i);
-
-                for (int[] pos : candidates) {
-                    int cx = pos[0], cy = pos[1], cz = pos[2];
-
-                    if (cx == item.x && cy == item.y && cz == item.z) {
-                        continue;
-                    }
+                // Candidate positions: every combination of edge/surface anchors.
+                int[][] anchors = defensiveAnchors(current, i);
+                int ix = current.x[i], iy = current.y[i], iz = current.z[i];
+
+                for (int cx : anchors[0]) {
+                    for (int cy : anchors[1]) {
+                        for (int cz : anchors[2]) {
+                            if (cx == ix && cy == iy && cz == iz) {
+                                continue;
+                            }
 
-                    // Collision-free check
-                    List<PlacementInfo> candidateList = toPlacementInfos(current);
-                    candidateList.set(i, new PlacementInfo(item.name, cx, cy, cz,
-                            item.width, item.depth, item.height, item.color));
-                    if (wouldOverlap(i, cx, cy, cz, candidateList)) {
-                        continue;
-                    }
+                            // Collision-free check
+                            if (current.overlapsAny(i, cx, cy, cz, current.w[i], current.d[i], current.h[i])) {
+                                continue;
+                            }
 
-                    // Check if size sum doesn't increase beyond other items' bbox
-                    Dimensions candidateDims = dimensionsFromPlacements(candidateList,
-                            packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-                    PackingScore candidateScore = score(candidateDims);
+                            // Check if size sum doesn't increase beyond other items' bbox
+                            current.boundsIfMoved(i, cx, cy, cz, bounds);
+                            int l = bounds[3] - bounds[0] + 1;
+                            int w = bounds[4] - bounds[1] + 1;
+                            int h = bounds[5] - bounds[2] + 1;
 
-                    // Defensive gate: must not worsen the score
-                    if (!isBetter(candidateScore, fullScore)) {
-                        continue;
-                    }
+                            // Defensive gate: must not worsen the score
+                            if (!isBetterBox(l, w, h, fullL, fullW, fullH)) {
+                                continue;
+                            }
 
-                    if (bestDefensiveMove == null || isBetter(candidateScore, bestDefensiveMove.score)) {
-                        bestDefensiveMove = new MoveCandidate(i, cx, cy, cz, candidateScore);
+                            if (bestIndex < 0 || isBetterBox(l, w, h, bestL, bestW, bestH)) {
+                                bestIndex = i;
+                                bestX = cx;
+                                bestY = cy;
+                                bestZ = cz;
+                                bestL = l;
+                                bestW = w;
+                                bestH = h;
+                            }
+                        }
                     }
                 }
             }
 
-            if (bestDefensiveMove == null) {
+            if (bestIndex < 0) {
                 break;
             }
 
-            MutablePlacement moved = current.get(bestDefensiveMove.index);
-            moved.x = bestDefensiveMove.x;
-            moved.y = bestDefensiveMove.y;
-            moved.z = bestDefensiveMove.z;
+            current.moveTo(bestIndex, bestX, bestY, bestZ);
             movedAny = true;
         }
 
         // Pass 1: Slide toward origin (existing logic)
-        for (int pass = 0; pass < COMPACTION_PASSES; pass++) {
-            Dimensions baseDims = dimensionsFromPlacements(toPlacementInfos(current),
-                    packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-            PackingScore baseScore = score(baseDims);
-
-            MoveCandidate bestMove = null;
-
-            for (int i = 0; i < current.size(); i++) {
-                MutablePlacement item = current.get(i);
-
-                int targetX = maxLeft(current, i);
-                int targetY = maxBack(current, i);
-                int targetZ = maxDown(current, i);
-
-                if (targetX == item.x && targetY == item.y && targetZ == item.z) {
+        for (int pass = 0; pass < COMPACTION_PASSES && !stop.getAsBoolean(); pass++) {
+            current.bounds(PlacementArrays.NONE, bounds);
+            int baseL = bounds[3] - bounds[0] + 1;
+            int baseW = bounds[4] - bounds[1] + 1;
+            int baseH = bounds[5] - bounds[2] + 1;
+
+            int bestIndex = -1;
+            int bestX = 0, bestY = 0, bestZ = 0;
+            int bestL = 0, bestW = 0, bestH = 0;
+
+            for (int i = 0; i < count && !stop.getAsBoolean(); i++) {
+                int targetX = current.maxLeft(i);
+                int targetY = current.maxBack(i);
+                int targetZ = current.maxDown(i);
+                int ix = current.x[i], iy = current.y[i], iz = current.z[i];
+
+                if (targetX == ix && targetY == iy && targetZ == iz) {
                     continue;
                 }
 
-                List<PlacementInfo> candidate = toPlacementInfos(current);
-                candidate.set(i, new PlacementInfo(item.name, targetX, targetY, targetZ,
-                        item.width, item.depth, item.height, item.color));
-                if (wouldOverlap(i, targetX, targetY, targetZ, candidate)) {
+                if (current.overlapsAny(i, targetX, targetY, targetZ, current.w[i], current.d[i], current.h[i])) {
                     continue;
                 }
 
-                Dimensions candidateDims = dimensionsFromPlacements(candidate,
-                        packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-                PackingScore candidateScore = score(candidateDims);
-                if (!isBetter(candidateScore, baseScore)) {
+                current.boundsIfMoved(i, targetX, targetY, targetZ, bounds);
+                int l = bounds[3] - bounds[0] + 1;
+                int w = bounds[4] - bounds[1] + 1;
+                int h = bounds[5] - bounds[2] + 1;
+                if (!isBetterBox(l, w, h, baseL, baseW, baseH)) {
                     continue;
                 }
 
-                if (bestMove == null || isBetter(candidateScore, bestMove.score)) {
-                    bestMove = new MoveCandidate(i, targetX, targetY, targetZ, candidateScore);
+                if (bestIndex < 0 || isBetterBox(l, w, h, bestL, bestW, bestH)) {
+                    bestIndex = i;
+                    bestX = targetX;
+                    bestY = targetY;
+                    bestZ = targetZ;
+                    bestL = l;
+                    bestW = w;
+                    bestH = h;
                 }
             }
 
-            if (bestMove == null) {
+            if (bestIndex < 0) {
                 break;
             }
 
-            MutablePlacement moved = current.get(bestMove.index);
-            moved.x = bestMove.x;
-            moved.y = bestMove.y;
-            moved.z = bestMove.z;
+            current.moveTo(bestIndex, bestX, bestY, bestZ);
             movedAny = true;
         }
 
@@ -663,79 +1128,95 @@ public class PackingService {
         // 1. Item must fit within support's footprint (containment)
         // 2. Placement must be collision-free with all other items
         // 3. Bounding box size sum (L+W+H) must strictly improve
-        Dimensions currentDims = dimensionsFromPlacements(toPlacementInfos(current),
-                packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-        PackingScore currentScore = score(currentDims);
+        current.bounds(PlacementArrays.NONE, bounds);
+        int currentL = bounds[3] - bounds[0] + 1;
+        int currentW = bounds[4] - bounds[1] + 1;
+        int currentH = bounds[5] - bounds[2] + 1;
 
         // Preserve already-flat results for 3cm-class envelopes.
         // Stacking pass is beneficial for generic boxes, but can regress flat-mail
         // use-cases by increasing thickness.
-        if (currentDims.getHeightCm() > 3.0) {
-            for (int pass = 0; pass < COMPACTION_PASSES; pass++) {
-                MoveCandidate bestStackMove = null;
-
-                for (int i = 0; i < current.size(); i++) {
-                    MutablePlacement item = current.get(i);
-
-                    for (int j = 0; j < current.size(); j++) {
+        if (toCm(currentH) > 3.0) {
+            for (int pass = 0; pass < COMPACTION_PASSES && !stop.getAsBoolean(); pass++) {
+                int bestIndex = -1;
+                int bestX = 0, bestY = 0, bestZ = 0;
+                int bestL = 0, bestW = 0, bestH = 0;
+
+                for (int i = 0; i < count && !stop.getAsBoolean(); i++) {
+                    int ix = current.x[i], iy = current.y[i], iz = current.z[i];
+                    int iw = current.w[i], id = current.d[i], ih = current.h[i];
+                    int[][] edgeAnchors = topAnchors(current, i);
+
+                    for (int j = 0; j < count; j++) {
                         if (i == j)
                             continue;
-                        MutablePlacement support = current.get(j);
 
                         // Gate 1: Item must fit entirely within support's footprint
-                        if (item.width > support.width || item.depth > support.depth) {
+                        if (iw > current.w[j] || id > current.d[j]) {
                             continue;
                         }
 
-                        int candidateZ = support.z + support.height;
-                        List<XYAnchor> topAnchors = generateTopAnchors(item, support, current, i);
-                        for (XYAnchor anchor : topAnchors) {
-                            int candidateX = anchor.x;
-                            int candidateY = anchor.y;
-
-                            // Skip if position is unchanged
-                            if (candidateX == item.x && candidateY == item.y && candidateZ == item.z) {
-                                continue;
-                            }
-
-                            // Gate 2: Collision-free check
-                            List<PlacementInfo> candidateList = toPlacementInfos(current);
-                            candidateList.set(i, new PlacementInfo(item.name, candidateX, candidateY, candidateZ,
-                                    item.width, item.depth, item.height, item.color));
-                            if (wouldOverlap(i, candidateX, candidateY, candidateZ, candidateList)) {
-                                continue;
-                            }
+                        int supportX2 = current.x[j] + current.w[j];
+                        int supportY2 = current.y[j] + current.d[j];
+                        int candidateZ = current.z[j] + current.h[j];
 
-                            // Gate 3: Bounding box score must strictly improve
-                            Dimensions candidateDims = dimensionsFromPlacements(candidateList,
-                                    packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-                            PackingScore candidateScore = score(candidateDims);
-                            if (!isBetter(candidateScore, currentScore)) {
+                        // Support corners and opposite edges first, then edges of other boxes.
+                        for (int xi = -2; xi < edgeAnchors[0].length; xi++) {
+                            int candidateX = xi == -2 ? current.x[j] : xi == -1 ? supportX2 - iw : edgeAnchors[0][xi];
+                            if (candidateX < current.x[j] || candidateX + iw > supportX2) {
                                 continue;
                             }
-
-                            if (bestStackMove == null || isBetter(candidateScore, bestStackMove.score)) {
-                                bestStackMove = new MoveCandidate(i, candidateX, candidateY, candidateZ,
-                                        candidateScore);
+                            for (int yi = -2; yi < edgeAnchors[1].length; yi++) {
+                                int candidateY = yi == -2 ? current.y[j]
+                                        : yi == -1 ? supportY2 - id : edgeAnchors[1][yi];
+                                if (candidateY < current.y[j] || candidateY + id > supportY2) {
+                                    continue;
+                                }
+
+                                // Skip if position is unchanged
+                                if (candidateX == ix && candidateY == iy && candidateZ == iz) {
+                                    continue;
+                                }
+
+                                // Gate 2: Collision-free check
+                                if (current.overlapsAny(i, candidateX, candidateY, candidateZ, iw, id, ih)) {
+                                    continue;
+                                }
+
+                                // Gate 3: Bounding box score must strictly improve
+                                current.boundsIfMoved(i, candidateX, candidateY, candidateZ, bounds);
+                                int l = bounds[3] - bounds[0] + 1;
+                                int w = bounds[4] - bounds[1] + 1;
+                                int h = bounds[5] - bounds[2] + 1;
+                                if (!isBetterBox(l, w, h, currentL, currentW, currentH)) {
+                                    continue;
+                                }
+
+                                if (bestIndex < 0 || isBetterBox(l, w, h, bestL, bestW, bestH)) {
+                                    bestIndex = i;
+                                    bestX = candidateX;
+                                    bestY = candidateY;
+                                    bestZ = candidateZ;
+                                    bestL = l;
+                                    bestW = w;
+                                    bestH = h;
+                                }
                             }
                         }
                     }
                 }
 
-                if (bestStackMove == null) {
+                if (bestIndex < 0) {
                     break;
                 }
 
-                MutablePlacement moved = current.get(bestStackMove.index);
-                moved.x = bestStackMove.x;
-                moved.y = bestStackMove.y;
-                moved.z = bestStackMove.z;
+                current.moveTo(bestIndex, bestX, bestY, bestZ);
                 movedAny = true;
 
                 // Update baseline for next pass
-                currentDims = dimensionsFromPlacements(toPlacementInfos(current),
-                        packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-                currentScore = score(currentDims);
+                currentL = bestL;
+                currentW = bestW;
+                currentH = bestH;
             }
         }
 
@@ -743,17 +1224,16 @@ public class PackingService {
             return packed;
         }
 
-        return normalizeResult(toPlacementInfos(current), packed.dimensions().getWeightG(),
+        return normalizeResult(current.toPlacementInfos(), packed.dimensions().getWeightG(),
                 packed.dimensions().getItemCount());
     }
 
-    private record ExtremePoint(int x, int y, int z) {
+    /** Chosen position plus the resulting bounding box extents (mm). */
+    private record ExtremePlacementCandidate(int x, int y, int z, int length, int width, int height) {
     }
 
-    private record ExtremePlacementCandidate(int x, int y, int z, PackingScore score) {
-    }
-
-    private PackingResult minimizeBoundingBoxWithExtremePoints(PackingResult packed) {
+    /** Rebuilds the layout at extreme points; returns {@code packed} unchanged once {@code stop} is true. */
+    private PackingResult minimizeBoundingBoxWithExtremePoints(PackingResult packed, BooleanSupplier stop) {
         List<PlacementInfo> source = packed.placements();
         if (source.size() < 2) {
             return packed;
@@ -776,361 +1256,140 @@ public class PackingService {
             return Integer.compare(b.height(), a.height());
         });
 
-        List<PlacementInfo> rebuilt = new ArrayList<>(source.size());
-        java.util.LinkedHashSet<ExtremePoint> extremePoints = new java.util.LinkedHashSet<>();
-        extremePoints.add(new ExtremePoint(0, 0, 0));
+        PlacementArrays rebuilt = new PlacementArrays(source.size());
+        ExtremePointStore extremePoints = new ExtremePointStore(source.size());
 
         int weightG = packed.dimensions().getWeightG();
         int itemCount = packed.dimensions().getItemCount();
         int baseHeightMm = toMm(packed.dimensions().getHeightCm());
         boolean preserveFlatProfile = baseHeightMm <= 30;
+        int[] bounds = new int[6];
 
         for (PlacementInfo item : remaining) {
+            if (stop.getAsBoolean()) {
+                return packed;
+            }
+            // The placed set is fixed while this item is scored, so its extents are
+            // computed once and each candidate costs O(1) for the bounding box.
+            rebuilt.bounds(PlacementArrays.NONE, bounds);
             ExtremePlacementCandidate best = findBestExtremePointCandidate(
-                    item, rebuilt, extremePoints, weightG, itemCount, preserveFlatProfile, baseHeightMm, true);
+                    item, rebuilt, bounds, extremePoints, preserveFlatProfile, baseHeightMm, true);
             if (best == null) {
                 best = findBestExtremePointCandidate(
-                        item, rebuilt, extremePoints, weightG, itemCount, preserveFlatProfile, baseHeightMm, false);
+                        item, rebuilt, bounds, extremePoints, preserveFlatProfile, baseHeightMm, false);
             }
 
             if (best == null) {
-                int fallbackX = 0;
-                for (PlacementInfo placed : rebuilt) {
-                    fallbackX = Math.max(fallbackX, placed.x() + placed.width());
-                }
-                best = new ExtremePlacementCandidate(
-                        fallbackX,
-                        0,
-                        0,
-                        score(dimensionsFromPlacedAndCandidate(rebuilt, fallbackX, 0, 0,
-                                item.width(), item.depth(), item.height(), weightG, itemCount)));
+                int fallbackX = bounds[3];
+                best = new ExtremePlacementCandidate(fallbackX, 0, 0,
+                        Math.max(bounds[3], fallbackX + item.width()),
+                        Math.max(bounds[4], item.depth()),
+                        Math.max(bounds[5], item.height()));
             }
 
-            PlacementInfo placedItem = new PlacementInfo(
-                    item.name(),
-                    best.x(),
-                    best.y(),
-                    best.z(),
-                    item.width(),
-                    item.depth(),
-                    item.height(),
-                    item.color());
-            rebuilt.add(placedItem);
-            addExtremePoints(extremePoints, placedItem);
-            extremePoints = pruneExtremePoints(extremePoints, rebuilt);
+            rebuilt.add(item, best.x(), best.y(), best.z());
+            extremePoints.place(rebuilt, rebuilt.size() - 1);
         }
 
-        return normalizeResult(rebuilt, weightG, itemCount);
+        return normalizeResult(rebuilt.toPlacementInfos(), weightG, itemCount);
     }
 
-    private ExtremePlacementCandidate findBestExtremePointCandidate(PlacementInfo item, List<PlacementInfo> placed,
-            java.util.Set<ExtremePoint> extremePoints, int weightG, int itemCount,
+    private ExtremePlacementCandidate findBestExtremePointCandidate(PlacementInfo item, PlacementArrays placed,
+            int[] placedBounds, ExtremePointStore extremePoints,
             boolean preserveFlatProfile, int baseHeightMm, boolean requireSupport) {
         ExtremePlacementCandidate best = null;
+        int itemSum = item.width() + item.depth() + item.height();
 
-        for (ExtremePoint point : new ArrayList<>(extremePoints)) {
-            int x = point.x();
-            int y = point.y();
-            int z = point.z();
+        for (int p = 0; p < extremePoints.size(); p++) {
+            // Points are sorted by x+y+z, and no placement at a point can have a
+            // size sum below that plus the item's own; past the best, stop.
+            if (best != null && extremePoints.sum(p) + itemSum > best.length() + best.width() + best.height()) {
+                break;
+            }
 
-            if (x < 0 || y < 0 || z < 0) {
+            int x = extremePoints.x(p);
+            int y = extremePoints.y(p);
+            int z = extremePoints.z(p);
+
+            if (!extremePoints.admits(p, item.width(), item.depth(), item.height())) {
                 continue;
             }
 
-            if (requireSupport && !hasSupportAt(placed, x, y, z, item.width(), item.depth())) {
+            if (requireSupport && !placed.hasSupportAt(x, y, z, item.width(), item.depth())) {
                 continue;
             }
 
-            if (overlapsAnyPlacement(placed, x, y, z, item.width(), item.depth(), item.height())) {
+            if (placed.overlapsAny(PlacementArrays.NONE, x, y, z, item.width(), item.depth(), item.height())) {
                 continue;
             }
 
-            Dimensions candidateDims = dimensionsFromPlacedAndCandidate(
-                    placed, x, y, z, item.width(), item.depth(), item.height(), weightG, itemCount);
+            int length = Math.max(placedBounds[3], x + item.width());
+            int width = Math.max(placedBounds[4], y + item.depth());
+            int height = Math.max(placedBounds[5], z + item.height());
 
-            if (preserveFlatProfile && toMm(candidateDims.getHeightCm()) > baseHeightMm) {
+            if (preserveFlatProfile && height > baseHeightMm) {
                 continue;
             }
 
-            ExtremePlacementCandidate candidate = new ExtremePlacementCandidate(x, y, z, score(candidateDims));
-            if (isBetterExtremePlacement(candidate, best)) {
-                best = candidate;
+            if (isBetterExtremePlacement(x, y, z, length, width, height, best)) {
+                best = new ExtremePlacementCandidate(x, y, z, length, width, height);
             }
         }
 
         return best;
     }
 
-    private boolean isBetterExtremePlacement(ExtremePlacementCandidate candidate, ExtremePlacementCandidate best) {
+    private boolean isBetterExtremePlacement(int x, int y, int z, int length, int width, int height,
+            ExtremePlacementCandidate best) {
         if (best == null) {
             return true;
         }
-        if (isBetter(candidate.score(), best.score())) {
+        if (isBetterBox(length, width, height, best.length(), best.width(), best.height())) {
             return true;
         }
-        if (isBetter(best.score(), candidate.score())) {
+        if (isBetterBox(best.length(), best.width(), best.height(), length, width, height)) {
             return false;
         }
 
-        if (candidate.z() != best.z()) {
-            return candidate.z() < best.z();
+        if (z != best.z()) {
+            return z < best.z();
         }
 
-        int candidateSpread = candidate.x() + candidate.y();
+        int candidateSpread = x + y;
         int bestSpread = best.x() + best.y();
         if (candidateSpread != bestSpread) {
             return candidateSpread < bestSpread;
         }
 
-        if (candidate.x() != best.x()) {
-            return candidate.x() < best.x();
-        }
-
-        return candidate.y() < best.y();
-    }
-
-    private void addExtremePoints(java.util.Set<ExtremePoint> points, PlacementInfo placed) {
-        int x1 = placed.x();
-        int y1 = placed.y();
-        int z1 = placed.z();
-        int x2 = x1 + placed.width();
-        int y2 = y1 + placed.depth();
-        int z2 = z1 + placed.height();
-
-        points.add(new ExtremePoint(x2, y1, z1));
-        points.add(new ExtremePoint(x1, y2, z1));
-        points.add(new ExtremePoint(x1, y1, z2));
-        points.add(new ExtremePoint(x2, y2, z1));
-        points.add(new ExtremePoint(x2, y1, z2));
-        points.add(new ExtremePoint(x1, y2, z2));
-        points.add(new ExtremePoint(x2, y2, z2));
-    }
-
-    private java.util.LinkedHashSet<ExtremePoint> pruneExtremePoints(java.util.Set<ExtremePoint> points,
-            List<PlacementInfo> placed) {
-        java.util.LinkedHashSet<ExtremePoint> pruned = new java.util.LinkedHashSet<>();
-        for (ExtremePoint point : points) {
-            if (point.x() < 0 || point.y() < 0 || point.z() < 0) {
-                continue;
-            }
-            if (!isInsideAnyPlacement(point, placed)) {
-                pruned.add(point);
-            }
-        }
-        return pruned;
-    }
-
-    private boolean isInsideAnyPlacement(ExtremePoint point, List<PlacementInfo> placed) {
-        for (PlacementInfo p : placed) {
-            boolean inside = point.x() >= p.x() && point.x() < p.x() + p.width() &&
-                    point.y() >= p.y() && point.y() < p.y() + p.depth() &&
-                    point.z() >= p.z() && point.z() < p.z() + p.height();
-            if (inside) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean hasSupportAt(List<PlacementInfo> placed, int x, int y, int z, int width, int depth) {
-        if (z == 0) {
-            return true;
-        }
-        for (PlacementInfo p : placed) {
-            if (p.z() + p.height() != z) {
-                continue;
-            }
-            if (overlaps(x, width, p.x(), p.width()) && overlaps(y, depth, p.y(), p.depth())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean overlapsAnyPlacement(List<PlacementInfo> placed, int x, int y, int z, int width, int depth,
-            int height) {
-        for (PlacementInfo other : placed) {
-            boolean separated = x + width <= other.x() ||
-                    other.x() + other.width() <= x ||
-                    y + depth <= other.y() ||
-                    other.y() + other.depth() <= y ||
-                    z + height <= other.z() ||
-                    other.z() + other.height() <= z;
-            if (!separated) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private Dimensions dimensionsFromPlacedAndCandidate(List<PlacementInfo> placed,
-            int x, int y, int z, int width, int depth, int height, int weightG, int itemCount) {
-        int maxX = x + width;
-        int maxY = y + depth;
-        int maxZ = z + height;
-
-        for (PlacementInfo p : placed) {
-            maxX = Math.max(maxX, p.x() + p.width());
-            maxY = Math.max(maxY, p.y() + p.depth());
-            maxZ = Math.max(maxZ, p.z() + p.height());
-        }
-
-        return new Dimensions(toCm(maxX), toCm(maxY), toCm(maxZ), weightG, itemCount);
-    }
-
-    private List<PlacementInfo> toPlacementInfos(List<MutablePlacement> placements) {
-        List<PlacementInfo> infos = new ArrayList<>(placements.size());
-        for (MutablePlacement p : placements) {
-            infos.add(p.toPlacementInfo());
-        }
-        return infos;
-    }
-
-    private double volumeCm3(Dimensions dims) {
-        return dims.getLengthCm() * dims.getWidthCm() * dims.getHeightCm();
-    }
-
-    private int maxLeft(List<MutablePlacement> placements, int index) {
-        MutablePlacement moving = placements.get(index);
-        int limit = 0;
-        for (int i = 0; i < placements.size(); i++) {
-            if (i == index) {
-                continue;
-            }
-            MutablePlacement other = placements.get(i);
-            if (!overlaps(moving.y, moving.depth, other.y, other.depth)) {
-                continue;
-            }
-            if (!overlaps(moving.z, moving.height, other.z, other.height)) {
-                continue;
-            }
-            int otherEnd = other.x + other.width;
-            if (otherEnd <= moving.x) {
-                limit = Math.max(limit, otherEnd);
-            }
-        }
-        return limit;
-    }
-
-    private int maxBack(List<MutablePlacement> placements, int index) {
-        MutablePlacement moving = placements.get(index);
-        int limit = 0;
-        for (int i = 0; i < placements.size(); i++) {
-            if (i == index) {
-                continue;
-            }
-            MutablePlacement other = placements.get(i);
-            if (!overlaps(moving.x, moving.width, other.x, other.width)) {
-                continue;
-            }
-            if (!overlaps(moving.z, moving.height, other.z, other.height)) {
-                continue;
-            }
-            int otherEnd = other.y + other.depth;
-            if (otherEnd <= moving.y) {
-                limit = Math.max(limit, otherEnd);
-            }
-        }
-        return limit;
-    }
-
-    private int maxDown(List<MutablePlacement> placements, int index) {
-        MutablePlacement moving = placements.get(index);
-        int limit = 0;
-        for (int i = 0; i < placements.size(); i++) {
-            if (i == index) {
-                continue;
-            }
-            MutablePlacement other = placements.get(i);
-            if (!overlaps(moving.x, moving.width, other.x, other.width)) {
-                continue;
-            }
-            if (!overlaps(moving.y, moving.depth, other.y, other.depth)) {
-                continue;
-            }
-            int otherEnd = other.z + other.height;
-            if (otherEnd <= moving.z) {
-                limit = Math.max(limit, otherEnd);
-            }
-        }
-        return limit;
-    }
-
-    private boolean overlaps(int aStart, int aSize, int bStart, int bSize) {
-        int aEnd = aStart + aSize;
-        int bEnd = bStart + bSize;
-        return aStart < bEnd && bStart < aEnd;
-    }
-
-    private static class MutablePlacement {
-        private final String name;
-        private int x;
-        private int y;
-        private int z;
-        private final int width;
-        private final int depth;
-        private final int height;
-        private final String color;
-
-        private MutablePlacement(PlacementInfo info) {
-            this.name = info.name();
-            this.x = info.x();
-            this.y = info.y();
-            this.z = info.z();
-            this.width = info.width();
-            this.depth = info.depth();
-            this.height = info.height();
-            this.color = info.color();
+        if (x != best.x()) {
+            return x < best.x();
         }
 
-        private PlacementInfo toPlacementInfo() {
-            return new PlacementInfo(name, x, y, z, width, depth, height, color);
-        }
-    }
-
-    private record MoveCandidate(int index, int x, int y, int z, PackingScore score) {
+        return y < best.y();
     }
 
     /**
-     * Compute bounding box dimensions excluding item at given index.
-     * Used by Pass 0 to check if an item is on the bounding box edge.
+     * Same ordering as {@code isBetter(score(dims), score(bestDims))} for boxes
+     * given as mm extents, without building Dimensions or PackingScore records.
      */
-    private Dimensions dimensionsWithout(List<MutablePlacement> placements, int excludeIndex,
-            int weightG, int itemCount) {
-        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
-        int maxX = 0, maxY = 0, maxZ = 0;
-        boolean hasAny = false;
-
-        for (int i = 0; i < placements.size(); i++) {
-            if (i == excludeIndex)
-                continue;
-            MutablePlacement p = placements.get(i);
-            minX = Math.min(minX, p.x);
-            minY = Math.min(minY, p.y);
-            minZ = Math.min(minZ, p.z);
-            maxX = Math.max(maxX, p.x + p.width);
-            maxY = Math.max(maxY, p.y + p.depth);
-            maxZ = Math.max(maxZ, p.z + p.height);
-            hasAny = true;
-        }
-
-        if (!hasAny) {
-            return new Dimensions(0, 0, 0, weightG, itemCount);
-        }
-
-        return new Dimensions(
-                toCm(maxX - minX), toCm(maxY - minY), toCm(maxZ - minZ),
-                weightG, itemCount);
+    private boolean isBetterBox(int length, int width, int height, int bestLength, int bestWidth, int bestHeight) {
+        double l = toCm(length);
+        double w = toCm(width);
+        double h = toCm(height);
+        double bl = toCm(bestLength);
+        double bw = toCm(bestWidth);
+        double bh = toCm(bestHeight);
+        return isBetter(l + w + h, aspectRatio(l, w), Math.max(l, Math.max(w, h)), l * w * h,
+                bl + bw + bh, aspectRatio(bl, bw), Math.max(bl, Math.max(bw, bh)), bl * bw * bh);
     }
 
     /**
-     * Generate ALL candidate positions for defensive relocation of an edge item.
-     * Uses x/y/z anchor points from ALL items' edges and surfaces.
-     * No footprint constraint — collision detection handles physical validity.
+     * Distinct x/y/z anchors (in first-seen order, non-negative) for defensive
+     * relocation of item {@code moving}: the origin plus every edge and surface
+     * of the other items. No footprint constraint — collision detection handles
+     * physical validity.
      */
-    private List<int[]> generateDefensiveCandidates(MutablePlacement item,
-            List<MutablePlacement> placements, int movingIndex) {
-        // Collect anchor points from all axis-aligned edges of every item
+    private int[][] defensiveAnchors(PlacementArrays placements, int moving) {
         java.util.LinkedHashSet<Integer> xAnchors = new java.util.LinkedHashSet<>();
         java.util.LinkedHashSet<Integer> yAnchors = new java.util.LinkedHashSet<>();
         java.util.LinkedHashSet<Integer> zAnchors = new java.util.LinkedHashSet<>();
@@ -1140,93 +1399,55 @@ public class PackingService {
         zAnchors.add(0);
 
         for (int k = 0; k < placements.size(); k++) {
-            if (k == movingIndex)
+            if (k == moving)
                 continue;
-            MutablePlacement other = placements.get(k);
 
             // Left/right edges
-            xAnchors.add(other.x);
-            xAnchors.add(other.x + other.width);
-            xAnchors.add(other.x - item.width); // right-align against left edge
+            xAnchors.add(placements.x[k]);
+            xAnchors.add(placements.x[k] + placements.w[k]);
+            xAnchors.add(placements.x[k] - placements.w[moving]); // right-align against left edge
 
             // Front/back edges
-            yAnchors.add(other.y);
-            yAnchors.add(other.y + other.depth);
-            yAnchors.add(other.y - item.depth);
+            yAnchors.add(placements.y[k]);
+            yAnchors.add(placements.y[k] + placements.d[k]);
+            yAnchors.add(placements.y[k] - placements.d[moving]);
 
             // Top/bottom surfaces (critical for finding shelf positions)
-            zAnchors.add(other.z);
-            zAnchors.add(other.z + other.height);
-            zAnchors.add(other.z - item.height);
+            zAnchors.add(placements.z[k]);
+            zAnchors.add(placements.z[k] + placements.h[k]);
+            zAnchors.add(placements.z[k] - placements.h[moving]);
         }
 
-        // Build all (x, y, z) combinations from the anchor sets
-        List<int[]> candidates = new ArrayList<>();
-        for (int x : xAnchors) {
-            if (x < 0)
+        return new int[][] { nonNegative(xAnchors), nonNegative(yAnchors), nonNegative(zAnchors) };
+    }
+
+    /**
+     * Distinct x and y anchors around the other boxes (edges and right/back
+     * alignment against them) used to discover gap placements on a support.
+     */
+    private int[][] topAnchors(PlacementArrays placements, int moving) {
+        java.util.LinkedHashSet<Integer> xAnchors = new java.util.LinkedHashSet<>();
+        java.util.LinkedHashSet<Integer> yAnchors = new java.util.LinkedHashSet<>();
+        for (int k = 0; k < placements.size(); k++) {
+            if (k == moving) {
                 continue;
-            for (int y : yAnchors) {
-                if (y < 0)
-                    continue;
-                for (int z : zAnchors) {
-                    if (z < 0)
-                        continue;
-                    candidates.add(new int[] { x, y, z });
-                }
             }
+            xAnchors.add(placements.x[k]);
+            xAnchors.add(placements.x[k] + placements.w[k]);
+            xAnchors.add(placements.x[k] - placements.w[moving]);
+            yAnchors.add(placements.y[k]);
+            yAnchors.add(placements.y[k] + placements.d[k]);
+            yAnchors.add(placements.y[k] - placements.d[moving]);
         }
-
-        return candidates;
+        return new int[][] { toIntArray(xAnchors), toIntArray(yAnchors) };
     }
 
-    private record XYAnchor(int x, int y) {
+    private int[] nonNegative(java.util.Set<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).filter(v -> v >= 0).toArray();
     }
 
-    private List<XYAnchor> generateTopAnchors(MutablePlacement item, MutablePlacement support,
-            List<MutablePlacement> placements, int movingIndex) {
-        List<Integer> xCandidates = new ArrayList<>();
-        List<Integer> yCandidates = new ArrayList<>();
-
-        // Support corners and opposite edges are always good anchors.
-        xCandidates.add(support.x);
-        xCandidates.add(support.x + support.width - item.width);
-        yCandidates.add(support.y);
-        yCandidates.add(support.y + support.depth - item.depth);
-
-        // Add edge-aligned anchors around other boxes to discover gap placements.
-        for (int k = 0; k < placements.size(); k++) {
-            if (k == movingIndex) {
-                continue;
-            }
-            MutablePlacement other = placements.get(k);
-            xCandidates.add(other.x);
-            xCandidates.add(other.x + other.width);
-            xCandidates.add(other.x - item.width);
-            yCandidates.add(other.y);
-            yCandidates.add(other.y + other.depth);
-            yCandidates.add(other.y - item.depth);
-        }
-
-        List<XYAnchor> anchors = new ArrayList<>();
-        java.util.LinkedHashSet<Long> seen = new java.util.LinkedHashSet<>();
-        int supportX2 = support.x + support.width;
-        int supportY2 = support.y + support.depth;
-
-        for (int x : xCandidates) {
-            if (x < support.x || x + item.width > supportX2) {
-                continue;
-            }
-            for (int y : yCandidates) {
-                if (y < support.y || y + item.depth > supportY2) {
-                    continue;
-                }
-                long key = (((long) x) << 32) ^ (y & 0xffffffffL);
-                if (seen.add(key)) {
-                    anchors.add(new XYAnchor(x, y));
-                }
-            }
-        }
-        return anchors;
+    private int[] toIntArray(java.util.Set<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
     }
 
     private PackingResult buildPackingResult(Container packedContainer, List<ProductReference> items) {
@@ -1237,7 +1458,7 @@ public class PackingService {
         int minY = Integer.MAX_VALUE;
         int minZ = Integer.MAX_VALUE;
         List<PlacementInfo> placements = new ArrayList<>();
-        String[] colors = { "#4ade80", "#60a5fa", "#f472b6", "#facc15", "#a78bfa", "#fb923c" };
+        String[] colors = PLACEMENT_COLORS;
         int colorIndex = 0;
 
         List<Placement> rawPlacements = packedContainer.getStack().getPlacements();
@@ -1329,68 +1550,68 @@ public class PackingService {
             return packed;
         }
 
-        List<PlacementInfo> current = new ArrayList<>(placements);
-        PackingScore bestScore = score(dimensionsFromPlacements(current, packed.dimensions().getWeightG(),
-                packed.dimensions().getItemCount()));
+        PlacementArrays current = PlacementArrays.of(placements);
+        int count = current.size();
+        int[] bounds = new int[6];
+        current.bounds(PlacementArrays.NONE, bounds);
+        int bestL = bounds[3] - bounds[0] + 1;
+        int bestW = bounds[4] - bounds[1] + 1;
+        int bestH = bounds[5] - bounds[2] + 1;
 
         boolean improved = false;
         double baseHeightCm = packed.dimensions().getHeightCm();
-        for (int i = 0; i < current.size(); i++) {
-            PlacementInfo thin = current.get(i);
-            if (thin.height() > THIN_ITEM_HEIGHT_MM) {
+        for (int i = 0; i < count; i++) {
+            if (current.h[i] > THIN_ITEM_HEIGHT_MM) {
                 continue;
             }
 
-            PlacementInfo bestPlacement = null;
-            PackingScore bestPlacementScore = bestScore;
+            boolean found = false;
+            int placeX = 0, placeY = 0, placeZ = 0;
+            int placeL = bestL, placeW = bestW, placeH = bestH;
 
-            for (int j = 0; j < current.size(); j++) {
+            for (int j = 0; j < count; j++) {
                 if (i == j) {
                     continue;
                 }
-                PlacementInfo support = current.get(j);
-                if (thin.width() > support.width() || thin.depth() > support.depth()) {
+                if (current.w[i] > current.w[j] || current.d[i] > current.d[j]) {
                     continue;
                 }
 
-                int candidateX = support.x();
-                int candidateY = support.y();
-                int candidateZ = support.z() + support.height();
+                int candidateX = current.x[j];
+                int candidateY = current.y[j];
+                int candidateZ = current.z[j] + current.h[j];
 
-                if (wouldOverlap(i, candidateX, candidateY, candidateZ, current)) {
+                if (current.overlapsAny(i, candidateX, candidateY, candidateZ,
+                        current.w[i], current.d[i], current.h[i])) {
                     continue;
                 }
 
-                List<PlacementInfo> candidateList = new ArrayList<>(current);
-                candidateList.set(i, new PlacementInfo(
-                        thin.name(),
-                        candidateX,
-                        candidateY,
-                        candidateZ,
-                        thin.width(),
-                        thin.depth(),
-                        thin.height(),
-                        thin.color()));
-
-                Dimensions candidateDims = dimensionsFromPlacements(candidateList,
-                        packed.dimensions().getWeightG(),
-                        packed.dimensions().getItemCount());
-                PackingScore candidateScore = score(candidateDims);
-                double candidateHeightCm = candidateDims.getHeightCm();
+                current.boundsIfMoved(i, candidateX, candidateY, candidateZ, bounds);
+                int l = bounds[3] - bounds[0] + 1;
+                int w = bounds[4] - bounds[1] + 1;
+                int h = bounds[5] - bounds[2] + 1;
+                double candidateHeightCm = toCm(h);
 
                 // Tight rule: prefer stacking thin items even if score doesn't improve,
                 // as long as height increase is minimal.
                 boolean heightIncreaseOk = candidateHeightCm <= baseHeightCm + 1.0;
 
-                if (isBetter(candidateScore, bestPlacementScore) || heightIncreaseOk) {
-                    bestPlacementScore = candidateScore;
-                    bestPlacement = candidateList.get(i);
+                if (isBetterBox(l, w, h, placeL, placeW, placeH) || heightIncreaseOk) {
+                    found = true;
+                    placeX = candidateX;
+                    placeY = candidateY;
+                    placeZ = candidateZ;
+                    placeL = l;
+                    placeW = w;
+                    placeH = h;
                 }
             }
 
-            if (bestPlacement != null) {
-                current.set(i, bestPlacement);
-                bestScore = bestPlacementScore;
+            if (found) {
+                current.moveTo(i, placeX, placeY, placeZ);
+                bestL = placeL;
+                bestW = placeW;
+                bestH = placeH;
                 improved = true;
             }
         }
@@ -1399,59 +1620,8 @@ public class PackingService {
             return packed;
         }
 
-        return normalizeResult(current, packed.dimensions().getWeightG(), packed.dimensions().getItemCount());
-    }
-
-    private boolean wouldOverlap(int movingIndex, int x, int y, int z, List<PlacementInfo> placements) {
-        PlacementInfo moving = placements.get(movingIndex);
-        int w = moving.width();
-        int d = moving.depth();
-        int h = moving.height();
-
-        for (int k = 0; k < placements.size(); k++) {
-            if (k == movingIndex) {
-                continue;
-            }
-            PlacementInfo other = placements.get(k);
-
-            boolean separated = x + w <= other.x() ||
-                    other.x() + other.width() <= x ||
-                    y + d <= other.y() ||
-                    other.y() + other.depth() <= y ||
-                    z + h <= other.z() ||
-                    other.z() + other.height() <= z;
-
-            if (!separated) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    private Dimensions dimensionsFromPlacements(List<PlacementInfo> placements, int weightG, int itemCount) {
-        int minX = Integer.MAX_VALUE;
-        int minY = Integer.MAX_VALUE;
-        int minZ = Integer.MAX_VALUE;
-        int maxX = 0;
-        int maxY = 0;
-        int maxZ = 0;
-
-        for (PlacementInfo p : placements) {
-            minX = Math.min(minX, p.x());
-            minY = Math.min(minY, p.y());
-            minZ = Math.min(minZ, p.z());
-            maxX = Math.max(maxX, p.x() + p.width());
-            maxY = Math.max(maxY, p.y() + p.depth());
-            maxZ = Math.max(maxZ, p.z() + p.height());
-        }
-
-        return new Dimensions(
-                toCm(maxX - minX + 1),
-                toCm(maxY - minY + 1),
-                toCm(maxZ - minZ + 1),
-                weightG,
-                itemCount);
+        return normalizeResult(current.toPlacementInfos(), packed.dimensions().getWeightG(),
+                packed.dimensions().getItemCount());
     }
 
     private PackingResult normalizeResult(List<PlacementInfo> placements, int weightG, int itemCount) {
@@ -1494,52 +1664,11 @@ public class PackingService {
         return new PackingResult(dims, normalized);
     }
 
-    private List<Container> getStandardContainers() {
-        List<Container> containers = new ArrayList<>();
-        containers.addAll(getCarrierContainers());
-        containers.addAll(getFallbackContainers());
-
-        containers.sort(Comparator
-                .comparingInt((Container c) -> c.getDx() + c.getDy() + c.getDz())
-                .thenComparingInt(c -> Math.max(c.getDx(), Math.max(c.getDy(), c.getDz())))
-                .thenComparingLong(c -> (long) c.getDx() * c.getDy() * c.getDz()));
-
-        return containers;
-    }
-
-    private List<Container> getCarrierContainers() {
-        if (carrierRepository == null) {
-            return List.of();
-        }
-
-        List<ShippingCarrier> carriers = carrierRepository.findAll();
-        if (carriers.isEmpty()) {
-            return List.of();
-        }
-
-        List<ShippingCarrier> sized = carriers.stream()
-                .filter(c -> c.getMaxLength() != null && c.getMaxWidth() != null && c.getMaxHeight() != null)
-                .filter(c -> !isSizeSumOnlyCarrier(c))
-                .toList();
-
-        if (sized.isEmpty()) {
-            return List.of();
-        }
-
-        List<ShippingCarrier> sorted = new ArrayList<>(sized);
-        sorted.sort(Comparator
-                .comparingDouble((ShippingCarrier c) -> c.getMaxLength() + c.getMaxWidth() + c.getMaxHeight())
-                .thenComparingDouble(c -> Math.max(c.getMaxLength(), Math.max(c.getMaxWidth(), c.getMaxHeight())))
-                .thenComparingDouble(c -> c.getMaxLength() * c.getMaxWidth() * c.getMaxHeight()));
-
-        List<Container> containers = new ArrayList<>();
-        for (ShippingCarrier carrier : sorted) {
-            containers.add(createContainer(carrier));
-        }
-        return containers;
+    private List<Container> getFallbackContainers() {
+        return FALLBACK_CONTAINERS;
     }
 
-    private List<Container> getFallbackContainers() {
+    private static List<Container> buildFallbackContainers() {
         // Geometry-only containers for dimension estimation.
         // Weight constraints are evaluated separately in ShippingMatcher.
         final int GEOMETRY_ONLY_MAX_LOAD = 100_000_000;
@@ -1576,150 +1705,52 @@ public class PackingService {
                         .withMaxLoadWeight(GEOMETRY_ONLY_MAX_LOAD).build());
     }
 
-    private boolean isSizeSumOnlyCarrier(ShippingCarrier carrier) {
-        if (carrier.getSizeSumLimit() == null) {
-            return false;
-        }
-        double limit = carrier.getSizeSumLimit();
-        return Math.abs(carrier.getMaxLength() - limit) < 0.0001 &&
-                Math.abs(carrier.getMaxWidth() - limit) < 0.0001 &&
-                Math.abs(carrier.getMaxHeight() - limit) < 0.0001;
-    }
-
+    /**
+     * The catalog's compiled container for the carrier; carriers outside the
+     * catalog (tests, manual input) are compiled once into a bounded local map.
+     */
     private Container createContainer(ShippingCarrier carrier) {
-        return Container.newBuilder()
-                .withDescription(carrier.getFullName())
-                .withSize(toMm(carrier.getMaxLength()), toMm(carrier.getMaxWidth()), toMm(carrier.getMaxHeight()))
-                .withEmptyWeight(0)
-                .withMaxLoadWeight(carrier.getMaxWeightG() != null ? carrier.getMaxWeightG() : 100_000)
-                .build();
-    }
-
-    private List<BoxItem> createBoxItems(List<ProductReference> items) {
-        // Sort items by VOLUME ASCENDING (smallest items first)
-        // Small items fill gaps first, then large items are placed in remaining space
-        // This can help reduce overall footprint by fitting small items into corners
-        List<ProductReference> sortedItems = new ArrayList<>(items);
-        sortedItems.sort((a, b) -> Double.compare(a.getVolumeCm3(), b.getVolumeCm3()));
-
-        List<BoxItem> boxItems = new ArrayList<>();
-        for (ProductReference item : sortedItems) {
-            CompressedSize size = getCompressedSize(item);
-
-            Box box = Box.newBuilder()
-                    .withId(item.getName())
-                    .withSize(toMm(size.lengthCm()), toMm(size.widthCm()), toMm(size.heightCm()))
-                    .withWeight(item.getWeightG())
-                    .withRotate3D()
-                    .build();
-            boxItems.add(new BoxItem(box, 1));
+        Container compiled = carrierCatalog != null ? carrierCatalog.snapshot().container(carrier) : null;
+        if (compiled != null) {
+            return compiled;
         }
-        return boxItems;
-    }
-
-    private List<BoxItem> createBoxItemsLibraryNative(List<ProductReference> items) {
-        List<BoxItem> boxItems = new ArrayList<>();
-        for (int i = 0; i < items.size(); i++) {
-            ProductReference item = items.get(i);
-            Box box = Box.newBuilder()
-                    .withId(LIB_BOX_ID_PREFIX + i)
-                    .withSize(toMm(item.getLengthCm()), toMm(item.getWidthCm()), toMm(item.getHeightCm()))
-                    .withWeight(item.getWeightG())
-                    .withRotate3D()
-                    .build();
-            boxItems.add(new BoxItem(box, 1));
+        String key = CartFingerprint.containerKey(carrier);
+        Container container = carrierContainers.get(key);
+        if (container != null) {
+            return container;
         }
-        return boxItems;
-    }
-
-    private List<BoxItem> createBoxItemsOriginalOrder(List<ProductReference> items) {
-        List<BoxItem> boxItems = new ArrayList<>();
-        for (ProductReference item : items) {
-            CompressedSize size = getCompressedSize(item);
-
-            Box box = Box.newBuilder()
-                    .withId(item.getName())
-                    .withSize(toMm(size.lengthCm()), toMm(size.widthCm()), toMm(size.heightCm()))
-                    .withWeight(item.getWeightG())
-                    .withRotate3D()
-                    .build();
-            boxItems.add(new BoxItem(box, 1));
+        if (carrierContainers.size() >= MAX_CARRIER_CONTAINERS) {
+            carrierContainers.clear();
         }
-        return boxItems;
+        return carrierContainers.computeIfAbsent(key, k -> CarrierCatalog.compileContainer(carrier));
     }
 
-    private List<BoxItem> createBoxItemsWithSort(List<ProductReference> items,
-            java.util.Comparator<ProductReference> comparator) {
-        List<ProductReference> sortedItems = new ArrayList<>(items);
-        sortedItems.sort(comparator);
-
-        List<BoxItem> boxItems = new ArrayList<>();
-        for (ProductReference item : sortedItems) {
-            CompressedSize size = getCompressedSize(item);
+    /**
+     * One library box per group, packed {@code quantity} times. The box id holds
+     * the index of the group's first unit in {@link PackingContext#items()}, so
+     * placement labels resolve back to the group's product.
+     */
+    private List<BoxItem> createBoxItemsLibraryNative(List<ItemGroup> groups) {
+        return createBoxItems(groups, ItemDescriptor::sizeMm);
+    }
 
+    private List<BoxItem> createBoxItems(List<ItemGroup> groups, Function<ItemDescriptor, int[]> size) {
+        List<BoxItem> boxItems = new ArrayList<>(groups.size());
+        int firstUnit = 0;
+        for (ItemGroup group : groups) {
+            int[] sizeMm = size.apply(group.descriptor());
             Box box = Box.newBuilder()
-                    .withId(item.getName())
-                    .withSize(toMm(size.lengthCm()), toMm(size.widthCm()), toMm(size.heightCm()))
-                    .withWeight(item.getWeightG())
+                    .withId(LIB_BOX_ID_PREFIX + firstUnit)
+                    .withSize(sizeMm[0], sizeMm[1], sizeMm[2])
+                    .withWeight(group.descriptor().weightG())
                     .withRotate3D()
                     .build();
-            boxItems.add(new BoxItem(box, 1));
+            boxItems.add(new BoxItem(box, group.quantity()));
+            firstUnit += group.quantity();
         }
         return boxItems;
     }
 
-    private record CompressedSize(double lengthCm, double widthCm, double heightCm) {
-    }
-
-    private CompressedSize getCompressedSize(ProductReference item) {
-        double l = item.getLengthCm();
-        double w = item.getWidthCm();
-        double h = item.getHeightCm();
-
-        if (isPlushItem(item)) {
-            // Plush toys (ぬいぐるみ/ちびぐるみ/plush) can be compressed to 60%
-            l *= PLUSH_ITEM_COMPRESSION;
-            w *= PLUSH_ITEM_COMPRESSION;
-            h *= PLUSH_ITEM_COMPRESSION;
-        } else if (isFashionItem(item)) {
-            h *= SOFT_ITEM_COMPRESSION;
-        }
-
-        return new CompressedSize(l, w, h);
-    }
-
-    private boolean isPlushItem(ProductReference item) {
-        return containsPlushKeyword(item.getName()) || containsPlushKeyword(item.getNameJp());
-    }
-
-    private boolean containsPlushKeyword(String value) {
-        if (value == null || value.isBlank()) {
-            return false;
-        }
-        String lower = value.toLowerCase(Locale.ROOT);
-        return lower.contains("plush") || value.contains("ぬいぐるみ") || value.contains("ちびぐるみ");
-    }
-
-    private boolean isFashionItem(ProductReference item) {
-        String category = item.getCategory();
-        if (category == null || category.isBlank()) {
-            return false;
-        }
-        return "fashion".equalsIgnoreCase(category) || category.contains("ファッション");
-    }
-
-    private Dimensions basicSum(List<ProductReference> items) {
-        double l = 0, w = 0, h = 0;
-        int weight = 0;
-        for (ProductReference item : items) {
-            l = Math.max(l, item.getLengthCm());
-            w = Math.max(w, item.getWidthCm());
-            h += item.getHeightCm();
-            weight += item.getWeightG();
-        }
-        return new Dimensions(l, w, h, weight, items.size());
-    }
-
     private int toMm(double cm) {
         return (int) Math.round(cm * 10);
     }
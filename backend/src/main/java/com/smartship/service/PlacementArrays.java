@@ -0,0 +1,618 @@
+package com.smartship.service;
+
+import com.smartship.dto.PlacementInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Struct-of-arrays placement model for the free-size layout stages in
+ * {@code PackingService}: the extreme-point rebuild, the compaction passes and
+ * thin-item compaction.
+ *
+ * Coordinates and sizes (mm) live in parallel {@code int[]} arrays, so a trial
+ * move is a write to three ints followed by a rollback, and the collision,
+ * support, slide, ray and bounding-box queries scan primitives without
+ * allocating.
+ * Labels and colours are carried along untouched for the final
+ * {@link PlacementInfo} list.
+ *
+ * Once {@value #INDEX_MIN_SIZE} or more boxes are held, a uniform grid over
+ * the occupied space is built and kept up to date by {@link #add} and
+ * {@link #moveTo}; collision, support and slide queries then only look at
+ * the boxes registered in the cells they touch instead of every placement.
+ */
+final class PlacementArrays {
+
+    /** Sentinel for "skip no placement" in the {@code skip} parameters. */
+    static final int NONE = -1;
+
+    /** Below this many boxes a linear scan is cheaper than maintaining the grid. */
+    static final int INDEX_MIN_SIZE = 16;
+
+    private static final int MAX_CELLS_PER_AXIS = 32;
+
+    final int[] x;
+    final int[] y;
+    final int[] z;
+    final int[] w;
+    final int[] d;
+    final int[] h;
+    private final String[] names;
+    private final String[] colors;
+    private int size;
+
+    // Uniform grid, built lazily by ensureIndex(). Cells past the edges are
+    // clamped into the border cells, so boxes moved outside the extent seen at
+    // build time are still found (the border cells just get busier).
+    private int[][] cells;
+    private int[] cellCounts;
+    private int cellW;
+    private int cellD;
+    private int cellH;
+    private int nx;
+    private int ny;
+    private int nz;
+    // Per-placement stamp of the last query that visited it, so a box that
+    // spans several cells is tested once per query without a visited set.
+    private int[] visited;
+    private int query;
+
+    // Best and runner-up value per face (min faces negated so all six are
+    // maximised) and the placement owning the best; see bounds().
+    private final int[] faceBest = new int[6];
+    private final int[] faceRunnerUp = new int[6];
+    private final int[] faceOwner = new int[6];
+    private boolean facesValid;
+
+    PlacementArrays(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        z = new int[capacity];
+        w = new int[capacity];
+        d = new int[capacity];
+        h = new int[capacity];
+        names = new String[capacity];
+        colors = new String[capacity];
+    }
+
+    static PlacementArrays of(List<PlacementInfo> placements) {
+        PlacementArrays arrays = new PlacementArrays(placements.size());
+        for (PlacementInfo p : placements) {
+            arrays.add(p, p.x(), p.y(), p.z());
+        }
+        return arrays;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Appends {@code info}'s box at the given position. */
+    void add(PlacementInfo info, int px, int py, int pz) {
+        int i = size++;
+        x[i] = px;
+        y[i] = py;
+        z[i] = pz;
+        w[i] = info.width();
+        d[i] = info.depth();
+        h[i] = info.height();
+        names[i] = info.name();
+        colors[i] = info.color();
+        facesValid = false;
+        if (cells != null) {
+            register(i);
+        } else {
+            ensureIndex();
+        }
+    }
+
+    void moveTo(int i, int px, int py, int pz) {
+        facesValid = false;
+        if (cells == null) {
+            x[i] = px;
+            y[i] = py;
+            z[i] = pz;
+            return;
+        }
+        if (cellX(px) == cellX(x[i]) && cellX(px + w[i] - 1) == cellX(x[i] + w[i] - 1)
+                && cellY(py) == cellY(y[i]) && cellY(py + d[i] - 1) == cellY(y[i] + d[i] - 1)
+                && cellZ(pz) == cellZ(z[i]) && cellZ(pz + h[i] - 1) == cellZ(z[i] + h[i] - 1)) {
+            x[i] = px;
+            y[i] = py;
+            z[i] = pz;
+            return;
+        }
+        unregister(i);
+        x[i] = px;
+        y[i] = py;
+        z[i] = pz;
+        register(i);
+    }
+
+    /** True when a w×d×h box at (px, py, pz) intersects any placement other than {@code skip}. */
+    boolean overlapsAny(int skip, int px, int py, int pz, int bw, int bd, int bh) {
+        if (cells == null) {
+            for (int k = 0; k < size; k++) {
+                if (k != skip && intersects(k, px, py, pz, bw, bd, bh)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int stamp = nextQuery();
+        for (int cx = cellX(px), cx1 = cellX(px + bw - 1); cx <= cx1; cx++) {
+            for (int cy = cellY(py), cy1 = cellY(py + bd - 1); cy <= cy1; cy++) {
+                for (int cz = cellZ(pz), cz1 = cellZ(pz + bh - 1); cz <= cz1; cz++) {
+                    int cell = cellIndex(cx, cy, cz);
+                    int[] members = cells[cell];
+                    for (int m = 0, n = cellCounts[cell]; m < n; m++) {
+                        int k = members[m];
+                        if (k != skip && visited[k] != stamp) {
+                            visited[k] = stamp;
+                            if (intersects(k, px, py, pz, bw, bd, bh)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** True on the floor, or when some top face at height {@code pz} touches the footprint. */
+    boolean hasSupportAt(int px, int py, int pz, int bw, int bd) {
+        if (pz == 0) {
+            return true;
+        }
+        if (cells == null) {
+            for (int k = 0; k < size; k++) {
+                if (z[k] + h[k] == pz && overlaps(px, bw, x[k], w[k]) && overlaps(py, bd, y[k], d[k])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        // A box whose top face is at pz occupies the 1 mm slab just below it.
+        int stamp = nextQuery();
+        int cz = cellZ(pz - 1);
+        for (int cx = cellX(px), cx1 = cellX(px + bw - 1); cx <= cx1; cx++) {
+            for (int cy = cellY(py), cy1 = cellY(py + bd - 1); cy <= cy1; cy++) {
+                int cell = cellIndex(cx, cy, cz);
+                int[] members = cells[cell];
+                for (int m = 0, n = cellCounts[cell]; m < n; m++) {
+                    int k = members[m];
+                    if (visited[k] != stamp) {
+                        visited[k] = stamp;
+                        if (z[k] + h[k] == pz && overlaps(px, bw, x[k], w[k]) && overlaps(py, bd, y[k], d[k])) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    boolean isInsideAny(int px, int py, int pz) {
+        if (cells == null) {
+            for (int k = 0; k < size; k++) {
+                if (contains(k, px, py, pz)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int cell = cellIndex(cellX(px), cellY(py), cellZ(pz));
+        int[] members = cells[cell];
+        for (int m = 0, n = cellCounts[cell]; m < n; m++) {
+            if (contains(members[m], px, py, pz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Furthest x placement {@code i} can slide toward the origin without a collision. */
+    int maxLeft(int i) {
+        return slideLimit(i, 0);
+    }
+
+    int maxBack(int i) {
+        return slideLimit(i, 1);
+    }
+
+    int maxDown(int i) {
+        return slideLimit(i, 2);
+    }
+
+    /**
+     * Largest far face (on {@code axis}) among the boxes that lie wholly before
+     * placement {@code i} on that axis and overlap it on the other two; 0 when
+     * nothing blocks the slide.
+     */
+    private int slideLimit(int i, int axis) {
+        int start = axis == 0 ? x[i] : axis == 1 ? y[i] : z[i];
+        if (start <= 0) {
+            return 0;
+        }
+        int limit = 0;
+        if (cells == null) {
+            for (int k = 0; k < size; k++) {
+                if (k != i) {
+                    limit = Math.max(limit, blockingEnd(i, k, axis, start));
+                }
+            }
+            return limit;
+        }
+        // Only the slab between the origin and the box on the slide axis can block it.
+        int px = axis == 0 ? 0 : x[i];
+        int py = axis == 1 ? 0 : y[i];
+        int pz = axis == 2 ? 0 : z[i];
+        int ex = axis == 0 ? start : x[i] + w[i];
+        int ey = axis == 1 ? start : y[i] + d[i];
+        int ez = axis == 2 ? start : z[i] + h[i];
+        int stamp = nextQuery();
+        for (int cx = cellX(px), cx1 = cellX(ex - 1); cx <= cx1; cx++) {
+            for (int cy = cellY(py), cy1 = cellY(ey - 1); cy <= cy1; cy++) {
+                for (int cz = cellZ(pz), cz1 = cellZ(ez - 1); cz <= cz1; cz++) {
+                    int cell = cellIndex(cx, cy, cz);
+                    int[] members = cells[cell];
+                    for (int m = 0, n = cellCounts[cell]; m < n; m++) {
+                        int k = members[m];
+                        if (k != i && visited[k] != stamp) {
+                            visited[k] = stamp;
+                            limit = Math.max(limit, blockingEnd(i, k, axis, start));
+                        }
+                    }
+                }
+            }
+        }
+        return limit;
+    }
+
+    /** Far face of {@code k} on {@code axis} if it blocks {@code i}'s slide, else 0. */
+    private int blockingEnd(int i, int k, int axis, int start) {
+        int end;
+        if (axis == 0) {
+            if (!overlaps(y[i], d[i], y[k], d[k]) || !overlaps(z[i], h[i], z[k], h[k])) {
+                return 0;
+            }
+            end = x[k] + w[k];
+        } else if (axis == 1) {
+            if (!overlaps(x[i], w[i], x[k], w[k]) || !overlaps(z[i], h[i], z[k], h[k])) {
+                return 0;
+            }
+            end = y[k] + d[k];
+        } else {
+            if (!overlaps(x[i], w[i], x[k], w[k]) || !overlaps(y[i], d[i], y[k], d[k])) {
+                return 0;
+            }
+            end = z[k] + h[k];
+        }
+        return end <= start ? end : 0;
+    }
+
+    /**
+     * Where a point at (px, py, pz) lands when pushed toward the origin along
+     * {@code axis} (0 = x, 1 = y, 2 = z): the largest far face, at or before the
+     * point, of the boxes its ray passes through, or 0 at the wall.
+     */
+    int projectBack(int px, int py, int pz, int axis) {
+        int start = axis == 0 ? px : axis == 1 ? py : pz;
+        int limit = 0;
+        if (start <= 0) {
+            return 0;
+        }
+        if (cells == null) {
+            for (int k = 0; k < size; k++) {
+                int end = rayHit(k, px, py, pz, axis, false);
+                if (end <= start) {
+                    limit = Math.max(limit, end);
+                }
+            }
+            return limit;
+        }
+        int stamp = nextQuery();
+        int from = cellOnAxis(0, axis);
+        int to = cellOnAxis(start - 1, axis);
+        for (int c = from; c <= to; c++) {
+            int cell = rayCell(px, py, pz, axis, c);
+            int[] members = cells[cell];
+            for (int m = 0, n = cellCounts[cell]; m < n; m++) {
+                int k = members[m];
+                if (visited[k] != stamp) {
+                    visited[k] = stamp;
+                    int end = rayHit(k, px, py, pz, axis, false);
+                    if (end <= start) {
+                        limit = Math.max(limit, end);
+                    }
+                }
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Free distance from (px, py, pz) along {@code axis} to the nearest box
+     * face ahead of it; {@link Integer#MAX_VALUE} when the ray is open.
+     */
+    int freeAhead(int px, int py, int pz, int axis) {
+        int start = axis == 0 ? px : axis == 1 ? py : pz;
+        int free = Integer.MAX_VALUE;
+        if (cells == null) {
+            for (int k = 0; k < size; k++) {
+                int near = rayHit(k, px, py, pz, axis, true);
+                if (near >= start) {
+                    free = Math.min(free, near - start);
+                }
+            }
+            return free;
+        }
+        int stamp = nextQuery();
+        int axisCells = axis == 0 ? nx : axis == 1 ? ny : nz;
+        for (int c = cellOnAxis(start, axis); c < axisCells; c++) {
+            int cell = rayCell(px, py, pz, axis, c);
+            int[] members = cells[cell];
+            for (int m = 0, n = cellCounts[cell]; m < n; m++) {
+                int k = members[m];
+                if (visited[k] != stamp) {
+                    visited[k] = stamp;
+                    int near = rayHit(k, px, py, pz, axis, true);
+                    if (near >= start) {
+                        free = Math.min(free, near - start);
+                    }
+                }
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Near ({@code near = true}) or far face of box {@code k} on {@code axis}
+     * when the axis-parallel line through the point crosses it, else a value
+     * that fails both callers' range checks.
+     */
+    private int rayHit(int k, int px, int py, int pz, int axis, boolean near) {
+        boolean crosses = switch (axis) {
+            case 0 -> py >= y[k] && py < y[k] + d[k] && pz >= z[k] && pz < z[k] + h[k];
+            case 1 -> px >= x[k] && px < x[k] + w[k] && pz >= z[k] && pz < z[k] + h[k];
+            default -> px >= x[k] && px < x[k] + w[k] && py >= y[k] && py < y[k] + d[k];
+        };
+        if (!crosses) {
+            return near ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+        return switch (axis) {
+            case 0 -> near ? x[k] : x[k] + w[k];
+            case 1 -> near ? y[k] : y[k] + d[k];
+            default -> near ? z[k] : z[k] + h[k];
+        };
+    }
+
+    private int cellOnAxis(int v, int axis) {
+        return axis == 0 ? cellX(v) : axis == 1 ? cellY(v) : cellZ(v);
+    }
+
+    private int rayCell(int px, int py, int pz, int axis, int c) {
+        return switch (axis) {
+            case 0 -> cellIndex(c, cellY(py), cellZ(pz));
+            case 1 -> cellIndex(cellX(px), c, cellZ(pz));
+            default -> cellIndex(cellX(px), cellY(py), c);
+        };
+    }
+
+    /**
+     * Writes {minX, minY, minZ, maxX, maxY, maxZ} over all placements except
+     * {@code skip} into {@code out}; all zero when nothing is left. The max
+     * faces never go below 0.
+     *
+     * O(1) once the face extremes are known: each face keeps its best and
+     * runner-up value, and leaving out the owner of the best just falls back
+     * to the runner-up. The extremes are rebuilt in O(n) after the first
+     * query that follows an {@link #add} or {@link #moveTo}.
+     */
+    void bounds(int skip, int[] out) {
+        ensureFaces();
+        if (size - (skip >= 0 && skip < size ? 1 : 0) == 0) {
+            Arrays.fill(out, 0, 6, 0);
+            return;
+        }
+        for (int f = 0; f < 6; f++) {
+            int value = faceOwner[f] == skip ? faceRunnerUp[f] : faceBest[f];
+            out[f] = f < 3 ? -value : Math.max(0, value);
+        }
+    }
+
+    /**
+     * Same as {@link #bounds} for the layout where placement {@code i} sits at
+     * (px, py, pz) instead, without moving it.
+     */
+    void boundsIfMoved(int i, int px, int py, int pz, int[] out) {
+        bounds(i, out);
+        int maxX = Math.max(0, px + w[i]);
+        int maxY = Math.max(0, py + d[i]);
+        int maxZ = Math.max(0, pz + h[i]);
+        if (size == 1) {
+            out[0] = px;
+            out[1] = py;
+            out[2] = pz;
+            out[3] = maxX;
+            out[4] = maxY;
+            out[5] = maxZ;
+            return;
+        }
+        out[0] = Math.min(out[0], px);
+        out[1] = Math.min(out[1], py);
+        out[2] = Math.min(out[2], pz);
+        out[3] = Math.max(out[3], maxX);
+        out[4] = Math.max(out[4], maxY);
+        out[5] = Math.max(out[5], maxZ);
+    }
+
+    PlacementInfo toPlacementInfo(int i) {
+        return new PlacementInfo(names[i], x[i], y[i], z[i], w[i], d[i], h[i], colors[i]);
+    }
+
+    List<PlacementInfo> toPlacementInfos() {
+        List<PlacementInfo> infos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            infos.add(toPlacementInfo(i));
+        }
+        return infos;
+    }
+
+    private boolean intersects(int k, int px, int py, int pz, int bw, int bd, int bh) {
+        return px < x[k] + w[k] && x[k] < px + bw
+                && py < y[k] + d[k] && y[k] < py + bd
+                && pz < z[k] + h[k] && z[k] < pz + bh;
+    }
+
+    private boolean contains(int k, int px, int py, int pz) {
+        return px >= x[k] && px < x[k] + w[k]
+                && py >= y[k] && py < y[k] + d[k]
+                && pz >= z[k] && pz < z[k] + h[k];
+    }
+
+    private static boolean overlaps(int aStart, int aSize, int bStart, int bSize) {
+        return aStart < bStart + bSize && bStart < aStart + aSize;
+    }
+
+    private void ensureFaces() {
+        if (facesValid) {
+            return;
+        }
+        Arrays.fill(faceBest, Integer.MIN_VALUE);
+        Arrays.fill(faceRunnerUp, Integer.MIN_VALUE);
+        Arrays.fill(faceOwner, NONE);
+        for (int k = 0; k < size; k++) {
+            for (int f = 0; f < 6; f++) {
+                int value = faceValue(k, f);
+                if (value > faceBest[f]) {
+                    faceRunnerUp[f] = faceBest[f];
+                    faceBest[f] = value;
+                    faceOwner[f] = k;
+                } else if (value > faceRunnerUp[f]) {
+                    faceRunnerUp[f] = value;
+                }
+            }
+        }
+        facesValid = true;
+    }
+
+    private int faceValue(int k, int face) {
+        return switch (face) {
+            case 0 -> -x[k];
+            case 1 -> -y[k];
+            case 2 -> -z[k];
+            case 3 -> x[k] + w[k];
+            case 4 -> y[k] + d[k];
+            default -> z[k] + h[k];
+        };
+    }
+
+    // ---- grid ----
+
+    /**
+     * Builds the grid once the placement count reaches {@link #INDEX_MIN_SIZE}.
+     * Cell edges follow the mean box size per axis and the grid covers twice
+     * the current extent, capped at {@value #MAX_CELLS_PER_AXIS} cells per axis.
+     */
+    private void ensureIndex() {
+        if (cells != null || size < INDEX_MIN_SIZE) {
+            return;
+        }
+        long sumW = 0;
+        long sumD = 0;
+        long sumH = 0;
+        int maxX = 1;
+        int maxY = 1;
+        int maxZ = 1;
+        for (int k = 0; k < size; k++) {
+            sumW += w[k];
+            sumD += d[k];
+            sumH += h[k];
+            maxX = Math.max(maxX, x[k] + w[k]);
+            maxY = Math.max(maxY, y[k] + d[k]);
+            maxZ = Math.max(maxZ, z[k] + h[k]);
+        }
+        cellW = (int) Math.max(1, sumW / size);
+        cellD = (int) Math.max(1, sumD / size);
+        cellH = (int) Math.max(1, sumH / size);
+        nx = Math.min(MAX_CELLS_PER_AXIS, 2 * maxX / cellW + 1);
+        ny = Math.min(MAX_CELLS_PER_AXIS, 2 * maxY / cellD + 1);
+        nz = Math.min(MAX_CELLS_PER_AXIS, 2 * maxZ / cellH + 1);
+        cells = new int[nx * ny * nz][];
+        cellCounts = new int[nx * ny * nz];
+        visited = new int[x.length];
+        for (int k = 0; k < size; k++) {
+            register(k);
+        }
+    }
+
+    private void register(int k) {
+        for (int cx = cellX(x[k]), cx1 = cellX(x[k] + w[k] - 1); cx <= cx1; cx++) {
+            for (int cy = cellY(y[k]), cy1 = cellY(y[k] + d[k] - 1); cy <= cy1; cy++) {
+                for (int cz = cellZ(z[k]), cz1 = cellZ(z[k] + h[k] - 1); cz <= cz1; cz++) {
+                    int cell = cellIndex(cx, cy, cz);
+                    int[] members = cells[cell];
+                    int n = cellCounts[cell];
+                    if (members == null) {
+                        members = cells[cell] = new int[4];
+                    } else if (n == members.length) {
+                        members = cells[cell] = Arrays.copyOf(members, n * 2);
+                    }
+                    members[n] = k;
+                    cellCounts[cell] = n + 1;
+                }
+            }
+        }
+    }
+
+    private void unregister(int k) {
+        for (int cx = cellX(x[k]), cx1 = cellX(x[k] + w[k] - 1); cx <= cx1; cx++) {
+            for (int cy = cellY(y[k]), cy1 = cellY(y[k] + d[k] - 1); cy <= cy1; cy++) {
+                for (int cz = cellZ(z[k]), cz1 = cellZ(z[k] + h[k] - 1); cz <= cz1; cz++) {
+                    int cell = cellIndex(cx, cy, cz);
+                    int[] members = cells[cell];
+                    int n = cellCounts[cell];
+                    for (int m = 0; m < n; m++) {
+                        if (members[m] == k) {
+                            members[m] = members[n - 1];
+                            cellCounts[cell] = n - 1;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int nextQuery() {
+        if (++query == 0) {
+            Arrays.fill(visited, 0);
+            query = 1;
+        }
+        return query;
+    }
+
+    private int cellIndex(int cx, int cy, int cz) {
+        return (cx * ny + cy) * nz + cz;
+    }
+
+    private int cellX(int v) {
+        return clamp(Math.floorDiv(v, cellW), nx);
+    }
+
+    private int cellY(int v) {
+        return clamp(Math.floorDiv(v, cellD), ny);
+    }
+
+    private int cellZ(int v) {
+        return clamp(Math.floorDiv(v, cellH), nz);
+    }
+
+    private static int clamp(int cell, int cellsOnAxis) {
+        return cell < 0 ? 0 : Math.min(cell, cellsOnAxis - 1);
+    }
+}
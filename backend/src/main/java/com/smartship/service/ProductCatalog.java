@@ -0,0 +1,241 @@
+package com.smartship.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartship.dto.response.ProductResponse;
+import com.smartship.entity.ProductReference;
+import com.smartship.repository.ProductRepository;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory copy of the product reference table.
+ *
+ * The catalog is read-mostly, so each load builds an immutable
+ * {@link Snapshot}: products by id with their compiled
+ * {@link ItemDescriptor}s for cart calculation, and the product list
+ * responses (all products, each category, the category names) already
+ * serialized to JSON and gzip with strong ETags. Loading and swapping follow
+ * {@link CarrierCatalog}.
+ */
+@Component
+public class ProductCatalog {
+
+    /** A response body serialized once per snapshot, plain and gzip-encoded. */
+    public record Payload(byte[] json, String etag, byte[] gzip, String gzipEtag) {
+    }
+
+    /** One version of the product table. Products must be treated as read-only. */
+    public static final class Snapshot {
+
+        private final long version;
+        private final byte[] checksum;
+        private final Instant loadedAt;
+        private final Map<Integer, CompiledProduct> products;
+        private final Payload allProducts;
+        private final Map<String, Payload> productsByCategory;
+        private final Payload categories;
+        private final Payload empty;
+
+        private Snapshot(long version, byte[] checksum, Instant loadedAt, List<ProductReference> rows,
+                ObjectMapper objectMapper) {
+            this.version = version;
+            this.checksum = checksum;
+            this.loadedAt = loadedAt;
+            List<ProductReference> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(ProductReference::getCategory)
+                    .thenComparing(ProductReference::getName));
+
+            Map<Integer, CompiledProduct> byId = new HashMap<>();
+            Map<String, List<ProductResponse>> grouped = new LinkedHashMap<>();
+            Map<String, String> categoryNames = new LinkedHashMap<>();
+            List<ProductResponse> all = new ArrayList<>(sorted.size());
+            for (ProductReference product : sorted) {
+                byId.put(product.getId(), CompiledProduct.of(product));
+                ProductResponse response = toResponse(product);
+                all.add(response);
+                String key = categoryKey(product.getCategory());
+                grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(response);
+                categoryNames.putIfAbsent(product.getCategory(), product.getCategory());
+            }
+            this.products = Map.copyOf(byId);
+            this.allProducts = payload(objectMapper, all);
+            Map<String, Payload> byCategory = new HashMap<>();
+            for (Map.Entry<String, List<ProductResponse>> entry : grouped.entrySet()) {
+                // Categories differing only in case share one list; keep it sorted by name.
+                entry.getValue().sort(Comparator.comparing(ProductResponse::name));
+                byCategory.put(entry.getKey(), payload(objectMapper, entry.getValue()));
+            }
+            this.productsByCategory = Map.copyOf(byCategory);
+            this.categories = payload(objectMapper, List.copyOf(categoryNames.keySet()));
+            this.empty = payload(objectMapper, List.of());
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public Instant loadedAt() {
+            return loadedAt;
+        }
+
+        public int size() {
+            return products.size();
+        }
+
+        /** The product with its compiled descriptor, or null if the id is unknown. */
+        public CompiledProduct product(int id) {
+            return products.get(id);
+        }
+
+        /** Product list sorted by category and name; a blank category means all products. */
+        public Payload products(String category) {
+            if (category == null || category.isBlank()) {
+                return allProducts;
+            }
+            return productsByCategory.getOrDefault(categoryKey(category), empty);
+        }
+
+        /** Distinct category names, sorted. */
+        public Payload categories() {
+            return categories;
+        }
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    public ProductCatalog(ProductRepository productRepository, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /** The current snapshot; loads the table on first use if startup has not yet. */
+    public Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot : reload();
+    }
+
+    /** Reads the table and swaps in a new snapshot, even if nothing changed. */
+    public synchronized Snapshot reload() {
+        List<ProductReference> products = productRepository.findAll(Sort.by("id"));
+        return swap(products, checksum(products));
+    }
+
+    /** Scheduled version check: swaps only when the rows differ from the current snapshot. */
+    @Scheduled(initialDelayString = "${app.products.refresh-ms:300000}",
+            fixedDelayString = "${app.products.refresh-ms:300000}")
+    public synchronized void refreshIfChanged() {
+        try {
+            List<ProductReference> products = productRepository.findAll(Sort.by("id"));
+            byte[] checksum = checksum(products);
+            Snapshot previous = current.get();
+            if (previous == null || !MessageDigest.isEqual(previous.checksum, checksum)) {
+                swap(products, checksum);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Product catalog refresh failed; keeping the current snapshot", e);
+        }
+    }
+
+    private Snapshot swap(List<ProductReference> products, byte[] checksum) {
+        Snapshot previous = current.get();
+        Snapshot next = new Snapshot(previous == null ? 1 : previous.version + 1, checksum, Instant.now(),
+                products, objectMapper);
+        current.set(next);
+        log.info("Product catalog v{} loaded: {} products", next.version, next.size());
+        return next;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Product catalog could not be loaded at startup; retrying on first use", e);
+        }
+    }
+
+    private static ProductResponse toResponse(ProductReference product) {
+        return new ProductResponse(
+                product.getId().longValue(),
+                product.getCategory(),
+                product.getName(),
+                product.getNameJp(),
+                product.getLengthCm(),
+                product.getWidthCm(),
+                product.getHeightCm(),
+                product.getWeightG(),
+                product.getImageIcon(),
+                "reference");
+    }
+
+    private static String categoryKey(String category) {
+        return category.toLowerCase(Locale.ROOT);
+    }
+
+    private static Payload payload(ObjectMapper objectMapper, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] gzip = gzip(json);
+            return new Payload(json, etag(json, ""), gzip, etag(json, "-gz"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the product catalog", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /** Strong ETag from the JSON content; the suffix tells the gzip representation apart. */
+    private static String etag(byte[] json, String suffix) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + suffix + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** SHA-256 of every product field, as {@link CarrierCatalog} checks its rows. */
+    private static byte[] checksum(List<ProductReference> products) {
+        RowDigest digest = new RowDigest();
+        for (ProductReference p : products) {
+            digest.add(p.getId()).add(p.getCategory()).add(p.getName()).add(p.getNameJp())
+                    .add(p.getLengthCm()).add(p.getWidthCm()).add(p.getHeightCm()).add(p.getWeightG())
+                    .add(p.getImageIcon());
+        }
+        return digest.finish();
+    }
+}
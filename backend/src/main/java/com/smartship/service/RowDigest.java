@@ -0,0 +1,41 @@
+package com.smartship.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 over table rows, for the catalogs' scheduled change checks.
+ *
+ * Each field is fed as a null marker or its length and UTF-8 text, so moving
+ * characters between neighbouring fields changes the digest.
+ */
+final class RowDigest {
+
+    private final MessageDigest digest;
+
+    RowDigest() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    RowDigest add(Object field) {
+        if (field == null) {
+            digest.update((byte) 0);
+            return this;
+        }
+        byte[] text = String.valueOf(field).getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(text.length).array());
+        digest.update(text);
+        return this;
+    }
+
+    byte[] finish() {
+        return digest.digest();
+    }
+}
@@ -0,0 +1,113 @@
+package com.smartship.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-account cache of saved products compiled for packing.
+ *
+ * Each account has one entry holding the saved products resolved so far,
+ * least recently used accounts are evicted first and entries expire after a
+ * TTL. Changing an account's saved products drops its entry. A load that was
+ * already running when the entry was dropped writes into the dropped entry, so
+ * it cannot bring back a deleted product.
+ */
+@Component
+public class SavedProductCache {
+
+    private static final int DEFAULT_MAX_ACCOUNTS = 1024;
+    private static final long DEFAULT_TTL_MS = 5 * 60 * 1000L;
+
+    private final int maxAccounts;
+    private final long ttlMs;
+    private final Map<Long, AccountEntry> entries;
+
+    @Autowired
+    public SavedProductCache(
+            @Value("${app.saved-products.cache.max-accounts:1024}") int maxAccounts,
+            @Value("${app.saved-products.cache.ttl-ms:300000}") long ttlMs) {
+        this.maxAccounts = Math.max(1, maxAccounts);
+        this.ttlMs = ttlMs;
+        this.entries = newLruMap();
+    }
+
+    // For tests or non-spring usage
+    SavedProductCache() {
+        this(DEFAULT_MAX_ACCOUNTS, DEFAULT_TTL_MS);
+    }
+
+    private Map<Long, AccountEntry> newLruMap() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AccountEntry> eldest) {
+                return size() > maxAccounts;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached products among {@code ids} and loads the rest with a
+     * single {@code loader} call. Ids the loader does not return are left out
+     * of the result.
+     */
+    public Map<Long, CompiledProduct> getAll(Long accountId, Collection<Long> ids,
+            Function<Set<Long>, Map<Long, CompiledProduct>> loader) {
+        Map<Long, CompiledProduct> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        AccountEntry entry;
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entry = entries.get(accountId);
+            if (entry == null || entry.expiresAtMs <= now) {
+                entry = new AccountEntry(now + ttlMs);
+                entries.put(accountId, entry);
+            }
+            for (Long id : ids) {
+                CompiledProduct product = entry.products.get(id);
+                if (product != null) {
+                    found.put(id, product);
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        Map<Long, CompiledProduct> loaded = loader.apply(missing);
+        found.putAll(loaded);
+        synchronized (entries) {
+            entry.products.putAll(loaded);
+        }
+        return found;
+    }
+
+    public void invalidate(Long accountId) {
+        synchronized (entries) {
+            entries.remove(accountId);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static final class AccountEntry {
+        private final Map<Long, CompiledProduct> products = new HashMap<>();
+        private final long expiresAtMs;
+
+        private AccountEntry(long expiresAtMs) {
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
@@ -4,11 +4,21 @@ import com.smartship.dto.Dimensions;
 import com.smartship.dto.PackingResult;
 import com.smartship.entity.ProductReference;
 import com.smartship.entity.ShippingCarrier;
-import com.smartship.repository.ShippingCarrierRepository;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -21,12 +31,23 @@ public class ShippingMatcher {
             String reason) {
     }
 
-    private final ShippingCarrierRepository carrierRepository;
-    private final PackingService packingService;
+    private static final Logger log = LoggerFactory.getLogger(ShippingMatcher.class);
+    // Extra wait after the shared deadline so packers can hand back their result.
+    private static final long RESULT_GRACE_MS = 250;
 
-    public ShippingMatcher(ShippingCarrierRepository carrierRepository, PackingService packingService) {
-        this.carrierRepository = carrierRepository;
+    private final CarrierCatalog carrierCatalog;
+    private final PackingService packingService;
+    private final ExecutorService packingExecutor;
+    private final long requestDeadlineMs;
+
+    public ShippingMatcher(CarrierCatalog carrierCatalog,
+            PackingService packingService,
+            @Qualifier("packingExecutor") ExecutorService packingExecutor,
+            @Value("${app.packing.request-deadline-ms:2000}") long requestDeadlineMs) {
+        this.carrierCatalog = carrierCatalog;
         this.packingService = packingService;
+        this.packingExecutor = packingExecutor;
+        this.requestDeadlineMs = requestDeadlineMs;
     }
 
     /**
@@ -47,42 +68,139 @@ public class ShippingMatcher {
      * @return List of shipping options, cheapest fitting first
      */
     public List<ShippingMatch> findBestOptions(List<ProductReference> items, Dimensions dims) {
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return findBestOptions(packingService.newContext(items), dims);
+    }
+
+    /**
+     * Same as {@link #findBestOptions(List, Dimensions)}, sharing the request's
+     * packing context so carriers reuse the cart model and any packing already
+     * done for this request (e.g. the free-size estimate behind {@code dims}).
+     */
+    public List<ShippingMatch> findBestOptions(PackingContext context, Dimensions dims) {
         List<ShippingMatch> results = new ArrayList<>();
 
-        if (items == null || items.isEmpty()) {
+        if (context == null || context.isEmpty()) {
             return results;
         }
+        List<ProductReference> items = context.items();
 
-        // Get all carriers sorted by price (cheapest first)
-        List<ShippingCarrier> allCarriers = carrierRepository.findAllByOrderByPriceYenAsc();
+        // All carriers sorted by price (cheapest first), from one catalog version
+        CarrierCatalog.Snapshot catalog = carrierCatalog.snapshot();
+        List<ShippingCarrier> allCarriers = catalog.carriers();
         List<ShippingCarrier> fittingCarriers = new ArrayList<>();
         List<ShippingCarrier> notFitting = new ArrayList<>();
         Map<ShippingCarrier, Dimensions> fittingDimsByCarrier = new HashMap<>();
         Map<ShippingCarrier, String> notFitReasonByCarrier = new HashMap<>();
 
-        // First pass: Try ACTUAL 3D packing for each carrier (not just dimension check)
-        for (ShippingCarrier carrier : allCarriers) {
-            // Quick pre-check 1: weight must fit (no packing can fix overweight)
-            if (carrier.getMaxWeightG() != null && dims.getWeightG() > carrier.getMaxWeightG()) {
-                notFitting.add(carrier);
-                notFitReasonByCarrier.put(carrier,
-                        String.format("重量超過 (%dg > %dg)", dims.getWeightG(), carrier.getMaxWeightG()));
-                continue;
+        // First pass: Try ACTUAL 3D packing for each carrier (not just dimension check).
+        // Carriers are packed in parallel on the packing executor under one shared
+        // request deadline, so latency tracks the slowest carrier, not the sum.
+        // The dominance DAG lets one finished packing settle other carriers:
+        // a fit carries over to every larger carrier, a misfit to every smaller one.
+        int carrierCount = allCarriers.size();
+        CarrierDominance dominance = catalog.dominance();
+        PackingResult[] packedByIndex = new PackingResult[carrierCount];
+        boolean[] resolved = new boolean[carrierCount];
+        List<Future<CarrierPacking>> pending = new ArrayList<>(carrierCount);
+        for (int i = 0; i < carrierCount; i++) {
+            pending.add(null);
+        }
+
+        long deadline = System.currentTimeMillis() + requestDeadlineMs;
+        CompletionService<CarrierPacking> completion = new ExecutorCompletionService<>(packingExecutor);
+        int outstanding = 0;
+        try {
+            for (int i = 0; i < carrierCount; i++) {
+                ShippingCarrier carrier = allCarriers.get(i);
+                // Quick pre-check 1: weight must fit (no packing can fix overweight)
+                if (carrier.getMaxWeightG() != null && dims.getWeightG() > carrier.getMaxWeightG()) {
+                    notFitReasonByCarrier.put(carrier,
+                            String.format("重量超過 (%dg > %dg)", dims.getWeightG(), carrier.getMaxWeightG()));
+                    resolved[i] = true;
+                    continue;
+                }
+
+                // Quick pre-check 2: provable geometric bounds reject hopeless
+                // carriers before the packer searches until its deadline.
+                String boundReason = packingService.findInfeasibilityReason(context, carrier);
+                if (boundReason != null) {
+                    notFitReasonByCarrier.put(carrier, boundReason);
+                    resolved[i] = true;
+                    continue;
+                }
+
+                // Carrier-specific packing result (single container). This prevents
+                // false rejections from using only global packed dimensions.
+                int index = i;
+                pending.set(i, completion.submit(() -> new CarrierPacking(index,
+                        packingService.calculatePackedResultForCarrier(context, carrier, deadline))));
+                outstanding++;
             }
 
-            // Carrier-specific packing result (single container). This prevents
-            // false rejections from using only global packed dimensions.
-            PackingResult packedForCarrier = packingService.calculatePackedResultForCarrier(items, carrier);
+            while (outstanding > 0) {
+                long remainingMs = Math.max(0, deadline - System.currentTimeMillis()) + RESULT_GRACE_MS;
+                Future<CarrierPacking> done = completion.poll(remainingMs, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    log.warn("Carrier packing exceeded the request deadline; {} carrier(s) unresolved", outstanding);
+                    break;
+                }
+                outstanding--;
+                if (done.isCancelled()) {
+                    continue;
+                }
+
+                CarrierPacking packing = awaitPacking(done);
+                if (packing == null || resolved[packing.index()]) {
+                    continue;
+                }
+                int index = packing.index();
+                resolved[index] = true;
+                packedByIndex[index] = packing.result();
+
+                if (packing.result() != null && packing.result().dimensions() != null) {
+                    Dimensions packedDims = packing.result().dimensions();
+                    if (fitsSizeSum(allCarriers.get(index), packedDims)) {
+                        for (int larger : dominance.dominatorsOf(index)) {
+                            if (!resolved[larger] && fitsSizeSum(allCarriers.get(larger), packedDims)) {
+                                resolved[larger] = true;
+                                packedByIndex[larger] = packing.result();
+                                cancel(pending.get(larger));
+                            }
+                        }
+                    }
+                } else if (packingService.isKnownInfeasible(items, allCarriers.get(index))) {
+                    for (int smaller : dominance.dominatedBy(index)) {
+                        if (!resolved[smaller]) {
+                            resolved[smaller] = true;
+                            cancel(pending.get(smaller));
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Cancel stragglers (deadline exceeded or request thread interrupted).
+            pending.forEach(this::cancel);
+        }
+
+        ShippingCarrier recommended = null;
+        for (int i = 0; i < carrierCount; i++) {
+            ShippingCarrier carrier = allCarriers.get(i);
+            PackingResult packedForCarrier = packedByIndex[i];
             if (packedForCarrier == null || packedForCarrier.dimensions() == null) {
                 notFitting.add(carrier);
-                notFitReasonByCarrier.put(carrier, "形状的に箱に入りません (3D Packing)");
+                notFitReasonByCarrier.putIfAbsent(carrier, "形状的に箱に入りません (3D Packing)");
                 continue;
             }
 
             Dimensions carrierDims = packedForCarrier.dimensions();
 
             // Apply size-sum rule using carrier-specific packed dimensions.
-            if (carrier.getSizeSumLimit() != null && carrierDims.getSizeSum() > carrier.getSizeSumLimit()) {
+            if (!fitsSizeSum(carrier, carrierDims)) {
                 notFitting.add(carrier);
                 notFitReasonByCarrier.put(carrier,
                         String.format("サイズ超過 (3辺合計 %.1fcm > %dcm)",
@@ -92,21 +210,16 @@ public class ShippingMatcher {
 
             fittingCarriers.add(carrier);
             fittingDimsByCarrier.put(carrier, carrierDims);
+            // First trackable fit (already sorted by price) is the cheapest trackable
+            if (recommended == null && catalog.hasTracking(i)) {
+                recommended = carrier;
+            }
         }
 
         if (fittingCarriers.isEmpty()) {
             return results;
         }
 
-        // Find the cheapest TRACKABLE option for recommendation
-        ShippingCarrier recommended = null;
-        for (ShippingCarrier carrier : fittingCarriers) {
-            if (Boolean.TRUE.equals(carrier.getHasTracking())) {
-                recommended = carrier;
-                break; // First trackable (already sorted by price) is cheapest trackable
-            }
-        }
-
         // If no trackable option found, use the cheapest overall
         if (recommended == null) {
             recommended = fittingCarriers.get(0);
@@ -144,6 +257,33 @@ public class ShippingMatcher {
         return results;
     }
 
+    private record CarrierPacking(int index, PackingResult result) {
+    }
+
+    private CarrierPacking awaitPacking(Future<CarrierPacking> done) {
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (CancellationException | ExecutionException e) {
+            log.warn("Carrier packing failed", e);
+            return null;
+        }
+    }
+
+    // A cancelled task is still queued on the completion service, so the
+    // outstanding count is settled when it is polled.
+    private void cancel(Future<CarrierPacking> future) {
+        if (future != null && !future.isDone()) {
+            future.cancel(true);
+        }
+    }
+
+    private boolean fitsSizeSum(ShippingCarrier carrier, Dimensions dims) {
+        return carrier.getSizeSumLimit() == null || dims.getSizeSum() <= carrier.getSizeSumLimit();
+    }
+
     private boolean checkDimensionsFit(ShippingCarrier carrier, Dimensions dims) {
         // 1. Check Weight
         if (carrier.getMaxWeightG() != null && dims.getWeightG() > carrier.getMaxWeightG()) {
@@ -0,0 +1,95 @@
+package com.smartship.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key.
+ *
+ * The first caller of a key runs the work on its own thread; callers that
+ * arrive while it runs wait and get the same result. Nothing is kept after the
+ * call ends (repeats are for the caches). A result cut short — the leader was
+ * interrupted, or {@code shareable} rejects it — is returned to the leader
+ * only, and the waiting callers run the work again under their own budget.
+ * A caller waits no longer than its own deadline; when that passes first it
+ * stops waiting and runs the work itself, without sharing the result.
+ */
+final class SingleFlight<K, V> {
+
+    /** Marks a call whose result the waiting callers must not take. */
+    private static final class Abandoned extends RuntimeException {
+        private Abandoned() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Abandoned ABANDONED = new Abandoned();
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * @param deadlineMillis how long this caller waits for another caller's run
+     *                       (epoch millis); {@code work} is expected to honour it too
+     * @return the work's result, or null if this caller was interrupted while
+     *         waiting for another caller's run
+     */
+    V run(K key, long deadlineMillis, Supplier<V> work, Predicate<V> shareable) {
+        while (true) {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> running = calls.putIfAbsent(key, call);
+            if (running == null) {
+                return lead(key, call, work, shareable);
+            }
+            try {
+                long remainingMs = deadlineMillis - System.currentTimeMillis();
+                return running.get(Math.max(0, remainingMs), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // As if abandoned, except the leader still holds the key: run alongside it.
+                return work.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Abandoned) {
+                    continue;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /** Number of calls currently running. */
+    int inFlight() {
+        return calls.size();
+    }
+
+    private V lead(K key, CompletableFuture<V> call, Supplier<V> work, Predicate<V> shareable) {
+        V value;
+        try {
+            value = work.get();
+        } catch (RuntimeException | Error e) {
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        // Removed before completing, so a retrying caller never finds this call again.
+        calls.remove(key, call);
+        if (Thread.currentThread().isInterrupted() || !shareable.test(value)) {
+            call.completeExceptionally(ABANDONED);
+        } else {
+            call.complete(value);
+        }
+        return value;
+    }
+}
@@ -10,10 +10,16 @@ import com.smartship.entity.UserSavedProduct;
 import com.smartship.repository.ProductRepository;
 import com.smartship.repository.UserLikedProductRepository;
 import com.smartship.repository.UserSavedProductRepository;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 @Service
@@ -22,14 +28,17 @@ public class UserProductService {
     private final UserSavedProductRepository userSavedProductRepository;
     private final UserLikedProductRepository userLikedProductRepository;
     private final ProductRepository productRepository;
+    private final SavedProductCache savedProductCache;
 
     public UserProductService(
             UserSavedProductRepository userSavedProductRepository,
             UserLikedProductRepository userLikedProductRepository,
-            ProductRepository productRepository) {
+            ProductRepository productRepository,
+            SavedProductCache savedProductCache) {
         this.userSavedProductRepository = userSavedProductRepository;
         this.userLikedProductRepository = userLikedProductRepository;
         this.productRepository = productRepository;
+        this.savedProductCache = savedProductCache;
     }
 
     @Transactional(readOnly = true)
@@ -62,7 +71,9 @@ public class UserProductService {
         product.setHeightCm(request.heightCm());
         product.setWeightG(request.weightG());
         product.setImageIcon("box");
-        return toSavedProductResponse(userSavedProductRepository.save(product));
+        ProductResponse response = toSavedProductResponse(userSavedProductRepository.save(product));
+        invalidateSavedProductsAfterCommit(account);
+        return response;
     }
 
     @Transactional
@@ -70,6 +81,7 @@ public class UserProductService {
         UserSavedProduct product = userSavedProductRepository.findByIdAndAccountId(savedProductId, account.getId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Saved product not found."));
         userSavedProductRepository.delete(product);
+        invalidateSavedProductsAfterCommit(account);
     }
 
     @Transactional
@@ -88,9 +100,47 @@ public class UserProductService {
         userLikedProductRepository.deleteByAccountIdAndProductReferenceId(account.getId(), productId);
     }
 
-    public ProductReference requireSavedProductAsReference(Account account, Long savedProductId) {
-        UserSavedProduct product = userSavedProductRepository.findByIdAndAccountId(savedProductId, account.getId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown saved product ID: " + savedProductId));
+    /**
+     * Resolves the account's saved products for a cart in one query, served
+     * from {@link SavedProductCache} when possible.
+     *
+     * @throws ResponseStatusException 400 if any id is not one of the account's saved products
+     */
+    public Map<Long, CompiledProduct> requireSavedProducts(Account account, Set<Long> savedProductIds) {
+        Map<Long, CompiledProduct> products = savedProductCache.getAll(account.getId(), savedProductIds,
+                missing -> loadSavedProducts(account.getId(), missing));
+        if (products.size() != savedProductIds.size()) {
+            Set<Long> unknown = new HashSet<>(savedProductIds);
+            unknown.removeAll(products.keySet());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown saved product IDs: " + unknown);
+        }
+        return products;
+    }
+
+    private Map<Long, CompiledProduct> loadSavedProducts(Long accountId, Set<Long> savedProductIds) {
+        Map<Long, CompiledProduct> products = new HashMap<>();
+        for (UserSavedProduct product : userSavedProductRepository.findAllByIdInAndAccountId(savedProductIds, accountId)) {
+            products.put(product.getId(), CompiledProduct.of(toPackingReference(product)));
+        }
+        return products;
+    }
+
+    private void invalidateSavedProductsAfterCommit(Account account) {
+        Long accountId = account.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            savedProductCache.invalidate(accountId);
+            return;
+        }
+        // Dropping the entry before commit would let a concurrent read cache the old rows again.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                savedProductCache.invalidate(accountId);
+            }
+        });
+    }
+
+    private ProductReference toPackingReference(UserSavedProduct product) {
         return new ProductReference(
                 0,
                 product.getCategory(),
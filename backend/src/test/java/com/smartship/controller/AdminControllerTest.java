@@ -0,0 +1,56 @@
+package com.smartship.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.smartship.entity.ShippingCarrier;
+import com.smartship.repository.ShippingCarrierRepository;
+import com.smartship.service.CarrierCatalog;
+import com.smartship.service.ProductCatalog;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(controllers = AdminController.class, properties = "app.admin.token=s3cret")
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CarrierCatalog carrierCatalog;
+
+    @MockBean
+    private ProductCatalog productCatalog;
+
+    @Test
+    void reloadRequiresTheAdminToken() throws Exception {
+        mockMvc.perform(post("/api/admin/carriers/reload").header("X-Admin-Token", "wrong"))
+                .andExpect(status().isForbidden());
+
+        verify(carrierCatalog, never()).reload();
+    }
+
+    @Test
+    void reloadReturnsTheNewCatalogVersion() throws Exception {
+        ShippingCarrierRepository repository = mock(ShippingCarrierRepository.class);
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(
+                new ShippingCarrier(1, "Yamato", "Nekopos", 31.2, 22.8, 3.0, 1000, null, 200, null, null)));
+        CarrierCatalog.Snapshot snapshot = new CarrierCatalog(repository).reload();
+        when(carrierCatalog.reload()).thenReturn(snapshot);
+
+        mockMvc.perform(post("/api/admin/carriers/reload").header("X-Admin-Token", "s3cret"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.carrierCount").value(1))
+                .andExpect(jsonPath("$.loadedAt").exists());
+    }
+}
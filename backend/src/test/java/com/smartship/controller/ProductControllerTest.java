@@ -0,0 +1,70 @@
+package com.smartship.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartship.entity.ProductReference;
+import com.smartship.repository.ProductRepository;
+import com.smartship.service.ProductCatalog;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(ProductController.class)
+class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductCatalog productCatalog;
+
+    private ProductCatalog.Snapshot snapshot;
+
+    @BeforeEach
+    void loadCatalog() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(
+                new ProductReference(1, "Books", "Manga", "漫画", 18, 13, 2, 150, null),
+                new ProductReference(2, "Goods", "Mug", "マグカップ", 10, 10, 10, 300, null)));
+        snapshot = new ProductCatalog(repository, new ObjectMapper()).reload();
+        when(productCatalog.snapshot()).thenReturn(snapshot);
+    }
+
+    @Test
+    void getProductsServesTheSerializedListWithAnEtag() throws Exception {
+        mockMvc.perform(get("/api/products").param("category", "books"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", snapshot.products("books").etag()))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Manga"))
+                .andExpect(jsonPath("$[0].source").value("reference"));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        mockMvc.perform(get("/api/products").header("If-None-Match", snapshot.products(null).etag()))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void gzipIsServedWhenAccepted() throws Exception {
+        mockMvc.perform(get("/api/products/categories").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", snapshot.categories().gzipEtag()))
+                .andExpect(content().bytes(snapshot.categories().gzip()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.smartship.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.smartship.service.AsyncCalculations;
+import com.smartship.service.AuthService;
+import com.smartship.service.DimensionCalculator;
+import com.smartship.service.PackingService;
+import com.smartship.service.ProductCatalog;
+import com.smartship.service.ShippingMatcher;
+import com.smartship.service.StatsService;
+import com.smartship.service.UserProductService;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@WebMvcTest(ShippingController.class)
+class ShippingControllerTest {
+
+    private static final String MANUAL_BODY =
+            "{\"lengthCm\":20,\"widthCm\":15,\"heightCm\":3,\"weightG\":300}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProductCatalog productCatalog;
+
+    @MockBean
+    private DimensionCalculator dimensionCalculator;
+
+    @MockBean
+    private ShippingMatcher shippingMatcher;
+
+    @MockBean
+    private PackingService packingService;
+
+    @MockBean
+    private StatsService statsService;
+
+    @MockBean
+    private AuthService authService;
+
+    @MockBean
+    private UserProductService userProductService;
+
+    @MockBean
+    private AsyncCalculations asyncCalculations;
+
+    @BeforeEach
+    void pendingCalculation() {
+        when(asyncCalculations.submit(any(), any())).thenReturn(new DeferredResult<>());
+    }
+
+    @Test
+    void signedInCallsSupersedeOnlyWithinTheAccount() throws Exception {
+        when(authService.getCurrentAccountId(any())).thenReturn(Optional.of(42L));
+
+        mockMvc.perform(post("/api/shipping/calculate/manual")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(MANUAL_BODY)
+                .header("X-Client-Id", "tab-1"));
+
+        verify(asyncCalculations).submit(eq("manual:account:42:tab-1"), any());
+    }
+
+    @Test
+    void anonymousCallsSupersedeOnlyFromTheSameAddress() throws Exception {
+        when(authService.getCurrentAccountId(any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/shipping/calculate/manual")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(MANUAL_BODY)
+                .header("X-Client-Id", "tab-1")
+                .with(request -> {
+                    request.setRemoteAddr("203.0.113.7");
+                    return request;
+                }));
+
+        verify(asyncCalculations).submit(eq("manual:ip:203.0.113.7:tab-1"), any());
+    }
+
+    @Test
+    void callsWithoutAClientIdNeverSupersede() throws Exception {
+        mockMvc.perform(post("/api/shipping/calculate/manual")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(MANUAL_BODY));
+
+        verify(asyncCalculations).submit(isNull(), any());
+    }
+}
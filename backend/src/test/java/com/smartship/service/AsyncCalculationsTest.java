@@ -0,0 +1,94 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+class AsyncCalculationsTest {
+
+    private final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.AbortPolicy());
+    private final AsyncCalculations calculations = new AsyncCalculations(executor, 15_000);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Packs until interrupted, like a packer polling its stop flag. */
+    private String packUntilInterrupted() {
+        started.countDown();
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted.countDown();
+        }
+        return "partial";
+    }
+
+    private static Object awaitResult(DeferredResult<?> deferred) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5_000;
+        while (!deferred.hasResult() && System.currentTimeMillis() < until) {
+            Thread.sleep(1);
+        }
+        return deferred.getResult();
+    }
+
+    private static HttpStatus status(Object result) {
+        assertThat(result).isInstanceOf(ResponseStatusException.class);
+        return HttpStatus.valueOf(((ResponseStatusException) result).getStatusCode().value());
+    }
+
+    @Test
+    void deliversTheResult() throws InterruptedException {
+        DeferredResult<String> deferred = calculations.submit("dimensions:tab-1", () -> "packed");
+
+        assertThat(awaitResult(deferred)).isEqualTo("packed");
+    }
+
+    @Test
+    void newerRequestFromTheSameClientCancelsTheOlder() throws InterruptedException {
+        DeferredResult<String> older = calculations.submit("dimensions:tab-1", this::packUntilInterrupted);
+        started.await();
+
+        DeferredResult<String> newer = calculations.submit("dimensions:tab-1", () -> "packed");
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(status(older.getResult())).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(awaitResult(newer)).isEqualTo("packed");
+    }
+
+    @Test
+    void requestsWithoutAClientKeyDoNotCancelEachOther() throws InterruptedException {
+        DeferredResult<String> first = calculations.submit(null, this::packUntilInterrupted);
+        started.await();
+
+        calculations.submit(null, () -> "packed");
+
+        assertThat(first.hasResult()).isFalse();
+        assertThat(interrupted.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueIsRejectedAsUnavailable() throws InterruptedException {
+        calculations.submit(null, this::packUntilInterrupted);
+        started.await();
+        calculations.submit(null, () -> "queued");
+
+        DeferredResult<String> rejected = calculations.submit(null, () -> "rejected");
+
+        assertThat(status(rejected.getResult())).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BlockPackerTest {
+
+    private static List<int[]> units(int count, int... sortedSides) {
+        List<int[]> units = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            units.add(sortedSides.clone());
+        }
+        return units;
+    }
+
+    private static int[] extent(List<ExactPacker.Placed> placements) {
+        int[] extent = new int[3];
+        for (ExactPacker.Placed p : placements) {
+            extent[0] = Math.max(extent[0], p.x() + p.dx());
+            extent[1] = Math.max(extent[1], p.y() + p.dy());
+            extent[2] = Math.max(extent[2], p.z() + p.dz());
+        }
+        return extent;
+    }
+
+    private static boolean overlap(ExactPacker.Placed a, ExactPacker.Placed b) {
+        return a.x() < b.x() + b.dx() && b.x() < a.x() + a.dx()
+                && a.y() < b.y() + b.dy() && b.y() < a.y() + a.dy()
+                && a.z() < b.z() + b.dz() && b.z() < a.z() + a.dz();
+    }
+
+    @Test
+    void identicalUnitsFormOneCube() {
+        // 1000 cubes of 10 mm make exactly a 100 mm cube.
+        List<ExactPacker.Placed> placements = BlockPacker.pack(units(1000, 10, 10, 10), null);
+
+        assertThat(placements).hasSize(1000);
+        assertThat(extent(placements)).containsExactly(100, 100, 100);
+    }
+
+    @Test
+    void similarUnitsShareABlockAndKeepTheirOwnSize() {
+        List<int[]> items = units(4, 20, 100, 100);
+        items.addAll(units(4, 19, 95, 100));
+
+        List<ExactPacker.Placed> placements = BlockPacker.pack(items, null);
+
+        assertThat(placements).hasSize(8);
+        // One block of eight 20 mm cells in a row; the last unit is 19 mm thin.
+        assertThat(extent(placements)).containsExactlyInAnyOrder(159, 100, 100);
+        for (ExactPacker.Placed p : placements) {
+            int volume = p.dx() * p.dy() * p.dz();
+            assertThat(volume).isEqualTo(p.index() < 4 ? 20 * 100 * 100 : 19 * 95 * 100);
+        }
+        for (int i = 0; i < placements.size(); i++) {
+            for (int j = i + 1; j < placements.size(); j++) {
+                assertThat(overlap(placements.get(i), placements.get(j))).isFalse();
+            }
+        }
+    }
+
+    @Test
+    void shapesTheBlockToTheContainer() {
+        // 60 units of 100x100x10 fill a 300x200x100 box exactly, but only when
+        // the block is turned to stand its 10 mm sides along the 100 mm axis.
+        int[] container = { 300, 200, 100 };
+        List<ExactPacker.Placed> placements = BlockPacker.pack(units(60, 10, 100, 100), container);
+
+        assertThat(placements).hasSize(60);
+        for (ExactPacker.Placed p : placements) {
+            assertThat(p.x() + p.dx()).isLessThanOrEqualTo(300);
+            assertThat(p.y() + p.dy()).isLessThanOrEqualTo(200);
+            assertThat(p.z() + p.dz()).isLessThanOrEqualTo(100);
+        }
+    }
+
+    @Test
+    void returnsNullWhenAUnitDoesNotFitTheContainer() {
+        assertThat(BlockPacker.pack(units(3, 10, 10, 500), new int[] { 400, 400, 400 })).isNull();
+    }
+}
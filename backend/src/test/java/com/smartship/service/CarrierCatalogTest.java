@@ -0,0 +1,92 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.skjolber.packing.api.Container;
+import com.smartship.entity.ShippingCarrier;
+import com.smartship.repository.ShippingCarrierRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CarrierCatalogTest {
+
+    private final ShippingCarrierRepository repository = mock(ShippingCarrierRepository.class);
+    private final CarrierCatalog catalog = new CarrierCatalog(repository);
+
+    private static ShippingCarrier carrier(int id, double l, double w, double h, int priceYen, boolean tracking) {
+        ShippingCarrier carrier = new ShippingCarrier(id, "Carrier", "Service " + id, l, w, h, 1000, null,
+                priceYen, null, null);
+        carrier.setHasTracking(tracking);
+        return carrier;
+    }
+
+    @Test
+    void snapshotHoldsCompiledContainersAndTrackingFlags() {
+        ShippingCarrier small = carrier(1, 31.2, 22.8, 3, 200, false);
+        ShippingCarrier large = carrier(2, 34, 24.8, 7, 600, true);
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(small, large));
+
+        CarrierCatalog.Snapshot snapshot = catalog.snapshot();
+
+        assertThat(snapshot.carriers()).containsExactly(small, large);
+        assertThat(snapshot.hasTracking(0)).isFalse();
+        assertThat(snapshot.hasTracking(1)).isTrue();
+        assertThat(snapshot.dominance().dominatorsOf(0)).containsExactly(1);
+        Container container = snapshot.container(large);
+        assertThat(container.getDx()).isEqualTo(340);
+        assertThat(container.getDy()).isEqualTo(248);
+        assertThat(container.getDz()).isEqualTo(70);
+    }
+
+    @Test
+    void requestsReuseTheLoadedSnapshot() {
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(carrier(1, 31.2, 22.8, 3, 200, false)));
+
+        CarrierCatalog.Snapshot first = catalog.snapshot();
+        CarrierCatalog.Snapshot second = catalog.snapshot();
+
+        assertThat(second).isSameAs(first);
+        verify(repository, times(1)).findAllByOrderByPriceYenAsc();
+    }
+
+    @Test
+    void scheduledCheckSwapsOnlyWhenRowsChange() {
+        ShippingCarrier nekopos = carrier(1, 31.2, 22.8, 3, 200, false);
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(nekopos));
+        CarrierCatalog.Snapshot loaded = catalog.reload();
+
+        catalog.refreshIfChanged();
+        assertThat(catalog.snapshot()).isSameAs(loaded);
+
+        ShippingCarrier repriced = carrier(1, 31.2, 22.8, 3, 230, false);
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(repriced));
+        catalog.refreshIfChanged();
+
+        CarrierCatalog.Snapshot swapped = catalog.snapshot();
+        assertThat(swapped.version()).isEqualTo(loaded.version() + 1);
+        assertThat(swapped.carriers()).containsExactly(repriced);
+        // Holders of the old snapshot keep a consistent view.
+        assertThat(loaded.carriers()).containsExactly(nekopos);
+    }
+
+    @Test
+    void scheduledCheckSeesChangesWithEqualHashCodes() {
+        // "Aa" and "BB" share a String hash code, which a 32-bit row hash could not tell apart.
+        ShippingCarrier before = carrier(1, 31.2, 22.8, 3, 200, false);
+        before.setNotes("Aa");
+        ShippingCarrier after = carrier(1, 31.2, 22.8, 3, 200, false);
+        after.setNotes("BB");
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(before));
+        CarrierCatalog.Snapshot loaded = catalog.reload();
+
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(after));
+        catalog.refreshIfChanged();
+
+        assertThat(catalog.snapshot().version()).isEqualTo(loaded.version() + 1);
+        assertThat(catalog.snapshot().carriers()).containsExactly(after);
+    }
+}
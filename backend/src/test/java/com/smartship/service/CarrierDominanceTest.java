@@ -0,0 +1,40 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.smartship.entity.ShippingCarrier;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CarrierDominanceTest {
+
+    private static ShippingCarrier carrier(int id, double l, double w, double h, Integer maxWeightG) {
+        return new ShippingCarrier(id, "Carrier", "Service " + id, l, w, h, maxWeightG, null, 100 * id, null, null);
+    }
+
+    @Test
+    void largerContainerInAnyRotationDominates() {
+        ShippingCarrier small = carrier(1, 25, 18, 3, 1000);
+        ShippingCarrier large = carrier(2, 7, 34, 24.8, 1000);
+
+        CarrierDominance dominance = CarrierDominance.of(List.of(small, large));
+
+        assertThat(dominance.dominatorsOf(0)).containsExactly(1);
+        assertThat(dominance.dominatedBy(1)).containsExactly(0);
+        assertThat(dominance.dominatorsOf(1)).isEmpty();
+    }
+
+    @Test
+    void lowerWeightLimitBreaksDominance() {
+        ShippingCarrier small = carrier(1, 25, 18, 3, 1000);
+        ShippingCarrier largeButLight = carrier(2, 34, 24.8, 7, 500);
+        ShippingCarrier largeUnlimited = carrier(3, 34, 24.8, 7, null);
+
+        CarrierDominance dominance = CarrierDominance.of(List.of(small, largeButLight, largeUnlimited));
+
+        assertThat(dominance.dominatorsOf(0)).containsExactly(2);
+        assertThat(dominance.dominatorsOf(1)).containsExactly(2);
+        assertThat(dominance.dominatorsOf(2)).isEmpty();
+        assertThat(dominance.dominatedBy(2)).containsExactlyInAnyOrder(0, 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class EnclosingBoxSearchTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Oracle for two 100×100×100 cubes: any box holding 200×100×100 fits, and
+    // the "layout" is the size sum of the box it was packed into.
+    private static EnclosingBoxSearch.Oracle<Integer> twoCubes(AtomicInteger calls) {
+        return (box, until, stop) -> {
+            calls.incrementAndGet();
+            int[] sorted = box.clone();
+            Arrays.sort(sorted);
+            boolean fits = sorted[0] >= 100 && sorted[1] >= 100 && sorted[2] >= 200;
+            return fits ? sorted[0] + sorted[1] + sorted[2] : null;
+        };
+    }
+
+    @Test
+    void shrinksTheSeedToTheTightestBoxTheOracleAccepts() {
+        AtomicInteger calls = new AtomicInteger();
+        EnclosingBoxSearch<Integer> search = new EnclosingBoxSearch<>(executor, twoCubes(calls), r -> r);
+
+        EnclosingBoxSearch.Outcome<Integer> outcome = search.search(new int[] { 100, 100, 100 },
+                2_000_000L, null, 900, System.currentTimeMillis() + 5000);
+
+        assertThat(outcome.best()).isEqualTo(400);
+        assertThat(outcome.sizeSumMm()).isEqualTo(400);
+        assertThat(outcome.closed()).isTrue();
+        assertThat(outcome.lowerBoundMm()).isLessThanOrEqualTo(400);
+        assertThat(outcome.gap()).isGreaterThanOrEqualTo(0.0);
+    }
+
+    @Test
+    void keepsTheSeedWhenTheCapAllowsNothingSmaller() {
+        AtomicInteger calls = new AtomicInteger();
+        EnclosingBoxSearch<Integer> search = new EnclosingBoxSearch<>(executor, twoCubes(calls), r -> r);
+
+        EnclosingBoxSearch.Outcome<Integer> outcome = search.search(new int[] { 100, 100, 100 },
+                2_000_000L, new int[] { 90, 90, 90 }, 500, System.currentTimeMillis() + 5000);
+
+        assertThat(outcome.best()).isEqualTo(500);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void remembersBoxesTheOracleRejected() {
+        AtomicInteger calls = new AtomicInteger();
+        EnclosingBoxSearch<Integer> search = new EnclosingBoxSearch<>(executor, (box, until, stop) -> {
+            calls.incrementAndGet();
+            return null;
+        }, r -> r);
+        int[] maxSorted = { 100, 100, 100 };
+
+        search.search(maxSorted, 2_000_000L, null, 600, System.currentTimeMillis() + 5000);
+        assertThat(calls.get()).isPositive();
+
+        calls.set(0);
+        EnclosingBoxSearch.Outcome<Integer> again = search.search(maxSorted, 2_000_000L, null, 600,
+                System.currentTimeMillis() + 5000);
+        assertThat(again.best()).isEqualTo(600);
+        assertThat(calls).hasValue(0);
+        assertThat(search.shapes(maxSorted, 2_000_000L, null, 550)).isEmpty();
+    }
+}
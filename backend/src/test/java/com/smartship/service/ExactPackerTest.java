@@ -0,0 +1,79 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ExactPackerTest {
+
+    private static ExactPacker.Solution solve(List<int[]> items, int[] container) {
+        return ExactPacker.solve(items, container, false, System.currentTimeMillis() + 5000, () -> false);
+    }
+
+    private static int sizeSum(ExactPacker.Solution solution) {
+        int maxX = 0;
+        int maxY = 0;
+        int maxZ = 0;
+        for (ExactPacker.Placed p : solution.placements()) {
+            maxX = Math.max(maxX, p.x() + p.dx());
+            maxY = Math.max(maxY, p.y() + p.dy());
+            maxZ = Math.max(maxZ, p.z() + p.dz());
+        }
+        return maxX + maxY + maxZ;
+    }
+
+    @Test
+    void stacksWhenThatGivesTheSmallestSizeSum() {
+        // 200x100x50 + 100x100x50: stacked 200x100x100 (400) beats side by side (450).
+        ExactPacker.Solution solution = solve(List.of(new int[] { 200, 100, 50 }, new int[] { 100, 100, 50 }), null);
+
+        assertThat(solution.complete()).isTrue();
+        assertThat(sizeSum(solution)).isEqualTo(400);
+    }
+
+    @Test
+    void respectsTheContainer() {
+        // A 50mm-high container forbids stacking: the best is 300x100x50 or 200x200x50.
+        ExactPacker.Solution solution = solve(List.of(new int[] { 200, 100, 50 }, new int[] { 100, 100, 50 }),
+                new int[] { 300, 300, 50 });
+
+        assertThat(solution.complete()).isTrue();
+        assertThat(sizeSum(solution)).isEqualTo(450);
+        assertThat(solution.placements()).allSatisfy(p -> {
+            assertThat(p.x() + p.dx()).isLessThanOrEqualTo(300);
+            assertThat(p.y() + p.dy()).isLessThanOrEqualTo(300);
+            assertThat(p.z() + p.dz()).isLessThanOrEqualTo(50);
+        });
+    }
+
+    @Test
+    void identicalUnitsFormTheTightestGrid() {
+        int[] cube = { 100, 100, 100 };
+        ExactPacker.Solution solution = solve(List.of(cube, cube, cube, cube), null);
+
+        // 2x2x1 (500) beats a row of four (600).
+        assertThat(solution.complete()).isTrue();
+        assertThat(sizeSum(solution)).isEqualTo(500);
+        assertThat(solution.placements()).extracting(ExactPacker.Placed::index).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void reportsAFinishedSearchWithoutLayoutWhenNothingFits() {
+        int[] cube = { 100, 100, 100 };
+        ExactPacker.Solution solution = solve(List.of(cube, cube), new int[] { 150, 150, 150 });
+
+        assertThat(solution.placements()).isNull();
+        assertThat(solution.complete()).isTrue();
+    }
+
+    @Test
+    void expiredDeadlineIsNotReportedAsComplete() {
+        List<int[]> items = List.of(new int[] { 250, 200, 150 }, new int[] { 300, 200, 150 },
+                new int[] { 180, 120, 90 }, new int[] { 110, 80, 50 }, new int[] { 110, 80, 5 });
+
+        ExactPacker.Solution solution = ExactPacker.solve(items, null, false, 0, () -> false);
+
+        assertThat(solution.complete()).isFalse();
+    }
+}
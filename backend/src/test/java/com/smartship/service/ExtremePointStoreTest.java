@@ -0,0 +1,90 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.smartship.dto.PlacementInfo;
+import org.junit.jupiter.api.Test;
+
+class ExtremePointStoreTest {
+
+    @Test
+    void placingABoxReplacesTheOriginWithItsCornersInSumOrder() {
+        PlacementArrays placed = new PlacementArrays(2);
+        ExtremePointStore points = new ExtremePointStore(2);
+
+        placed.add(new PlacementInfo("a", 0, 0, 0, 100, 50, 20, "#fff"), 0, 0, 0);
+        points.place(placed, 0);
+
+        // The four far corners are dominated by the three primary ones, whose open space reaches as far.
+        assertThat(points.size()).isEqualTo(3);
+        assertThat(points.z(0)).isEqualTo(20);
+        assertThat(points.y(1)).isEqualTo(50);
+        assertThat(points.x(2)).isEqualTo(100);
+        for (int i = 1; i < points.size(); i++) {
+            assertThat(points.sum(i)).isGreaterThanOrEqualTo(points.sum(i - 1));
+        }
+    }
+
+    @Test
+    void cornerBoundedByANeighbourIsNotDominated() {
+        PlacementArrays placed = new PlacementArrays(2);
+        ExtremePointStore points = new ExtremePointStore(2);
+
+        placed.add(new PlacementInfo("a", 0, 0, 0, 30, 30, 30, "#fff"), 0, 0, 0);
+        points.place(placed, 0);
+        placed.add(new PlacementInfo("b", 0, 0, 0, 30, 30, 10, "#fff"), 60, 0, 0);
+        points.place(placed, 1);
+
+        // (30, 0, 0) lies before b's corner (90, 0, 0) but only has 30mm free, so both stay.
+        assertThat(indexOf(points, 30, 0, 0)).isNotEqualTo(-1);
+        assertThat(indexOf(points, 90, 0, 0)).isNotEqualTo(-1);
+    }
+
+    @Test
+    void projectionDropsAnOverhangCornerToTheFloor() {
+        PlacementArrays placed = new PlacementArrays(2);
+        ExtremePointStore points = new ExtremePointStore(2);
+
+        placed.add(new PlacementInfo("base", 0, 0, 0, 20, 20, 10, "#fff"), 0, 0, 0);
+        points.place(placed, 0);
+        placed.add(new PlacementInfo("lid", 0, 0, 0, 50, 50, 10, "#000"), 0, 0, 10);
+        points.place(placed, 1);
+
+        boolean onFloor = false;
+        for (int i = 0; i < points.size(); i++) {
+            if (points.x(i) == 50 && points.y(i) == 0 && points.z(i) == 0) {
+                onFloor = true;
+            }
+        }
+        assertThat(onFloor).isTrue();
+    }
+
+    @Test
+    void residualSpaceRejectsBoxesThatHitTheNextFace() {
+        PlacementArrays placed = new PlacementArrays(2);
+        ExtremePointStore points = new ExtremePointStore(2);
+
+        placed.add(new PlacementInfo("a", 0, 0, 0, 30, 30, 30, "#fff"), 0, 0, 0);
+        points.place(placed, 0);
+        placed.add(new PlacementInfo("b", 0, 0, 0, 30, 30, 30, "#fff"), 60, 0, 0);
+        points.place(placed, 1);
+
+        for (int i = 0; i < points.size(); i++) {
+            if (points.x(i) == 30 && points.y(i) == 0 && points.z(i) == 0) {
+                assertThat(points.admits(i, 30, 10, 10)).isTrue();
+                assertThat(points.admits(i, 31, 10, 10)).isFalse();
+                return;
+            }
+        }
+        throw new AssertionError("corner (30, 0, 0) missing");
+    }
+
+    private static int indexOf(ExtremePointStore points, int x, int y, int z) {
+        for (int i = 0; i < points.size(); i++) {
+            if (points.x(i) == x && points.y(i) == y && points.z(i) == z) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,118 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.smartship.dto.PackingResult;
+import com.smartship.entity.ProductReference;
+import com.smartship.entity.ShippingCarrier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InfeasibleCartCacheTest {
+
+    private static final String BOX = "340x248x70";
+    private static final String OTHER_BOX = "312x228x30";
+
+    private final InfeasibleCartCache cache = new InfeasibleCartCache();
+
+    @Test
+    void cartContainingAKnownMisfitIsInfeasible() {
+        cache.recordInfeasible(BOX, Map.of("a", 2, "b", 1));
+
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("a", 2, "b", 1))).isTrue();
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("a", 3, "b", 1, "c", 4))).isTrue();
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("a", 1, "b", 1))).isFalse();
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("a", 2, "c", 1))).isFalse();
+        assertThat(cache.isKnownInfeasible(OTHER_BOX, Map.of("a", 2, "b", 1))).isFalse();
+    }
+
+    @Test
+    void smallerMisfitReplacesTheCartsContainingIt() {
+        InfeasibleCartCache cache = new InfeasibleCartCache(4, 2, 60_000);
+        cache.recordInfeasible(BOX, Map.of("b", 1));
+        cache.recordInfeasible(BOX, Map.of("a", 3));
+
+        // Drops the stored superset, so the cap of two still keeps "b".
+        cache.recordInfeasible(BOX, Map.of("a", 2));
+
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("a", 2))).isTrue();
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("b", 1))).isTrue();
+    }
+
+    @Test
+    void expiredMisfitsAreForgotten() throws InterruptedException {
+        InfeasibleCartCache cache = new InfeasibleCartCache(4, 4, 20);
+        cache.recordInfeasible(BOX, Map.of("a", 1));
+
+        Thread.sleep(40);
+
+        assertThat(cache.isKnownInfeasible(BOX, Map.of("a", 1))).isFalse();
+    }
+
+    private static ProductReference product(String name, double l, double w, double h) {
+        return new ProductReference(null, "Test", name, name, l, w, h, 100, null);
+    }
+
+    private static ShippingCarrier cube(double side) {
+        return new ShippingCarrier(1, "Carrier", "Box", side, side, side, 10_000, null, 500, null, null);
+    }
+
+    /** Seven mixed items: past the exact solver, so the packer race decides. */
+    private static List<ProductReference> largeCart() {
+        List<ProductReference> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            items.add(product("Cube", 10, 10, 10));
+        }
+        for (int i = 0; i < 3; i++) {
+            items.add(product("Small cube", 9, 9, 9));
+        }
+        return items;
+    }
+
+    @Test
+    void provenMisfitIsRecordedForLargerCarts() {
+        PackingService packingService = new PackingService();
+        ShippingCarrier carrier = cube(15);
+        List<ProductReference> cart = List.of(product("Cube", 10, 10, 10), product("Cube", 10, 10, 10));
+
+        PackingResult packed = packingService.calculatePackedResultForCarrier(
+                packingService.newContext(cart), carrier, System.currentTimeMillis() + 2000);
+
+        assertThat(packed).isNull();
+        List<ProductReference> larger = new ArrayList<>(cart);
+        larger.add(product("Small cube", 9, 9, 9));
+        assertThat(packingService.isKnownInfeasible(larger, carrier)).isTrue();
+    }
+
+    @Test
+    void missAtTheDeadlineIsNotRecorded() {
+        PackingService packingService = new PackingService();
+        ShippingCarrier carrier = cube(15);
+
+        PackingResult packed = packingService.calculatePackedResultForCarrier(
+                packingService.newContext(largeCart()), carrier, System.currentTimeMillis() - 1);
+
+        assertThat(packed).isNull();
+        assertThat(packingService.isKnownInfeasible(largeCart(), carrier)).isFalse();
+    }
+
+    @Test
+    void missOfAnInterruptedCalculationIsNotRecorded() {
+        PackingService packingService = new PackingService();
+        ShippingCarrier carrier = cube(15);
+
+        PackingResult packed;
+        Thread.currentThread().interrupt();
+        try {
+            packed = packingService.calculatePackedResultForCarrier(
+                    packingService.newContext(largeCart()), carrier, System.currentTimeMillis() + 2000);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(packed).isNull();
+        assertThat(packingService.isKnownInfeasible(largeCart(), carrier)).isFalse();
+    }
+}
@@ -0,0 +1,41 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.smartship.entity.ProductReference;
+import org.junit.jupiter.api.Test;
+
+class ItemDescriptorTest {
+
+    private static ProductReference product(String category, String name, String nameJp,
+            double l, double w, double h) {
+        return new ProductReference(1, category, name, nameJp, l, w, h, 150, null);
+    }
+
+    @Test
+    void compilesMillimetreSizesOnce() {
+        ItemDescriptor descriptor = ItemDescriptor.compile(product("Books", "Manga", "漫画", 18, 13, 2));
+
+        assertThat(descriptor.sizeMm()).containsExactly(180, 130, 20);
+        assertThat(descriptor.sortedMm()).containsExactly(20, 130, 180);
+        assertThat(descriptor.weightG()).isEqualTo(150);
+    }
+
+    @Test
+    void keyMatchesTheCartFingerprint() {
+        ProductReference manga = product("Books", "Manga", "漫画", 18, 13, 2);
+
+        assertThat(ItemDescriptor.compile(manga).key()).isEqualTo(CartFingerprint.itemKey(manga));
+    }
+
+    @Test
+    void bakesInTheCompressionRules() {
+        ItemDescriptor plush = ItemDescriptor.compile(product("Goods", "Mascot", "ぬいぐるみ", 20, 10, 10));
+        ItemDescriptor fashion = ItemDescriptor.compile(product("fashion", "T-shirt", "Tシャツ", 30, 20, 5));
+        ItemDescriptor rigid = ItemDescriptor.compile(product("Goods", "Mug", "マグカップ", 10, 10, 10));
+
+        assertThat(plush.compressedMm()).containsExactly(120, 60, 60);
+        assertThat(fashion.compressedMm()).containsExactly(300, 200, 40);
+        assertThat(rigid.compressedMm()).containsExactly(100, 100, 100);
+    }
+}
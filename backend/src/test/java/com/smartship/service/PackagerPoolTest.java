@@ -0,0 +1,42 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.skjolber.packing.packer.laff.LargestAreaFitFirstPackager;
+import org.junit.jupiter.api.Test;
+
+class PackagerPoolTest {
+
+    @Test
+    void returnedPackagerIsReusedByNextBorrower() {
+        PackagerPool pool = new PackagerPool(2);
+
+        LargestAreaFitFirstPackager first;
+        try (PackagerPool.Lease<LargestAreaFitFirstPackager> lease = pool.laff()) {
+            first = lease.packager();
+        }
+        try (PackagerPool.Lease<LargestAreaFitFirstPackager> lease = pool.laff()) {
+            assertThat(lease.packager()).isSameAs(first);
+        }
+    }
+
+    @Test
+    void concurrentLeasesGetDistinctPackagers() {
+        PackagerPool pool = new PackagerPool(2);
+
+        try (PackagerPool.Lease<LargestAreaFitFirstPackager> a = pool.laff();
+                PackagerPool.Lease<LargestAreaFitFirstPackager> b = pool.laff()) {
+            assertThat(a.packager()).isNotSameAs(b.packager());
+        }
+    }
+
+    @Test
+    void leaseCannotBeUsedAfterClose() {
+        PackagerPool pool = new PackagerPool(1);
+        PackagerPool.Lease<LargestAreaFitFirstPackager> lease = pool.laff();
+        lease.close();
+
+        assertThatThrownBy(lease::packager).isInstanceOf(IllegalStateException.class);
+    }
+}
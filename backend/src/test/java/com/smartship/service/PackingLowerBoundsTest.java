@@ -0,0 +1,75 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PackingLowerBoundsTest {
+
+    private static final int[] NEKOPOSU = { 312, 228, 30 };
+
+    @Test
+    void rejectsItemThatCannotFitInAnyOrientation() {
+        String reason = PackingLowerBounds.findInfeasibilityReason(
+                List.of("Figure"), List.<int[]>of(new int[] { 200, 150, 90 }), NEKOPOSU, null);
+
+        assertThat(reason).startsWith("寸法超過");
+    }
+
+    @Test
+    void rejectsCartWhoseVolumeExceedsContainer() {
+        List<String> names = new ArrayList<>();
+        List<int[]> dims = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            names.add("Card " + i);
+            dims.add(new int[] { 110, 80, 25 });
+        }
+
+        String reason = PackingLowerBounds.findInfeasibilityReason(names, dims, NEKOPOSU, null);
+
+        assertThat(reason).startsWith("容量超過");
+    }
+
+    @Test
+    void rejectsWhenSmallestPossibleBoxExceedsSizeSumLimit() {
+        List<int[]> dims = List.of(new int[] { 300, 300, 100 }, new int[] { 300, 300, 100 });
+
+        String reason = PackingLowerBounds.findInfeasibilityReason(
+                List.of("A", "B"), dims, new int[] { 600, 600, 600 }, 60);
+
+        assertThat(reason).startsWith("サイズ超過");
+    }
+
+    @Test
+    void rejectsLargeItemsThatMustStackBeyondHeight() {
+        // Each item covers more than half of the floor, so two of them can only
+        // be stacked, and two 20mm items exceed the 30mm height.
+        List<int[]> dims = List.of(new int[] { 200, 160, 20 }, new int[] { 200, 160, 20 });
+
+        String reason = PackingLowerBounds.findInfeasibilityReason(List.of("A", "B"), dims, NEKOPOSU, null);
+
+        assertThat(reason).isNotNull();
+    }
+
+    @Test
+    void acceptsCartThatFitsSideBySide() {
+        List<int[]> dims = List.of(new int[] { 150, 200, 20 }, new int[] { 150, 200, 20 });
+
+        String reason = PackingLowerBounds.findInfeasibilityReason(List.of("A", "B"), dims, NEKOPOSU, null);
+
+        assertThat(reason).isNull();
+    }
+
+    @Test
+    void minSizeSumRaisesShortSidesToCoverVolume() {
+        // One 10x10x10 cube: no slack, the bound is the cube itself.
+        assertThat(PackingLowerBounds.minSizeSumMm(new int[] { 100, 100, 100 }, 1_000_000L))
+                .isEqualTo(300.0);
+
+        // Eight such cubes need at least a 20x20x20 box.
+        assertThat(PackingLowerBounds.minSizeSumMm(new int[] { 100, 100, 100 }, 8_000_000L))
+                .isBetween(599.0, 601.0);
+    }
+}
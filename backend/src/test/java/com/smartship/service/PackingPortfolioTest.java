@@ -0,0 +1,134 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PackingPortfolioTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private PackingPortfolio<Integer> smallestWins(int unbeatableAt) {
+        return new PackingPortfolio<>(executor, (a, b) -> a < b, r -> r <= unbeatableAt);
+    }
+
+    @Test
+    void keepsTheBestResultOfAllStrategies() {
+        Integer best = smallestWins(0).run(List.of(
+                (until, stop) -> 30,
+                (until, stop) -> 10,
+                (until, stop) -> null,
+                (until, stop) -> 20), System.currentTimeMillis() + 2000).best();
+
+        assertThat(best).isEqualTo(10);
+    }
+
+    @Test
+    void unbeatableResultStopsTheOtherStrategies() {
+        AtomicBoolean sawStop = new AtomicBoolean();
+        CountDownLatch spinning = new CountDownLatch(1);
+        long started = System.currentTimeMillis();
+
+        Integer best = smallestWins(5).run(List.of(
+                (until, stop) -> {
+                    spinning.countDown();
+                    while (!stop.getAsBoolean() && System.currentTimeMillis() < until) {
+                        Thread.onSpinWait();
+                    }
+                    sawStop.set(stop.getAsBoolean());
+                    return 50;
+                },
+                (until, stop) -> {
+                    await(spinning);
+                    return 5;
+                }), started + 5000).best();
+
+        assertThat(best).isEqualTo(5);
+        assertThat(sawStop).isTrue();
+        assertThat(System.currentTimeMillis() - started).isLessThan(4000);
+    }
+
+    @Test
+    void returnsBestSoFarWhenTheDeadlinePasses() {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        long started = System.currentTimeMillis();
+
+        Integer best = smallestWins(0).run(List.of(
+                (until, stop) -> {
+                    await(slowStarted);
+                    return 40;
+                },
+                (until, stop) -> {
+                    slowStarted.countDown();
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 1;
+                }), started + 300).best();
+
+        assertThat(best).isEqualTo(40);
+        assertThat(System.currentTimeMillis() - started).isLessThan(2000);
+    }
+
+    @Test
+    void strategiesThatAllFinishWithoutAResultAreACompleteMiss() {
+        PackingPortfolio.Outcome<Integer> outcome = smallestWins(0).run(List.of(
+                (until, stop) -> null,
+                (until, stop) -> null), System.currentTimeMillis() + 2000);
+
+        assertThat(outcome.best()).isNull();
+        assertThat(outcome.complete()).isTrue();
+    }
+
+    @Test
+    void failedStrategyLeavesTheOutcomeIncomplete() {
+        PackingPortfolio.Outcome<Integer> outcome = smallestWins(0).run(List.of(
+                (until, stop) -> null,
+                (until, stop) -> {
+                    throw new IllegalStateException("packer bug");
+                }), System.currentTimeMillis() + 2000);
+
+        assertThat(outcome.best()).isNull();
+        assertThat(outcome.complete()).isFalse();
+    }
+
+    @Test
+    void errorOnAPoolThreadDoesNotHoldTheCallerUntilTheDeadline() {
+        CountDownLatch failing = new CountDownLatch(1);
+        long started = System.currentTimeMillis();
+
+        PackingPortfolio.Outcome<Integer> outcome = smallestWins(0).run(List.of(
+                (until, stop) -> {
+                    await(failing);
+                    return null;
+                },
+                (until, stop) -> {
+                    failing.countDown();
+                    throw new AssertionError("packer crashed");
+                }), started + 5000);
+
+        assertThat(outcome.complete()).isFalse();
+        assertThat(System.currentTimeMillis() - started).isLessThan(2000);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
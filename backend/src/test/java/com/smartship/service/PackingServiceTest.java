@@ -13,6 +13,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -185,8 +187,8 @@ public class PackingServiceTest {
      * Adding 1 small item should still keep size sum ≤ 80cm
      * because it fits in gaps/on top of existing items.
      * 
-     * This exercises calculatePackedResultLibrary() via calculatePackedResult()
-     * since USE_LIBRARY_ONLY = true.
+     * This exercises the free-size path (heuristics plus enclosing box search)
+     * via calculatePackedResult().
      */
     @Test
     public void testSmallItemDoesNotIncreaseSizeClass() {
@@ -361,6 +363,216 @@ public class PackingServiceTest {
         }
     }
 
+    @Test
+    public void testStrategySearchIsNoWorseThanLibraryCall() {
+        List<ProductReference> items = new ArrayList<>();
+        items.add(createItem("Manga", 18, 13, 2, 200));
+        items.add(createItem("Figure Box", 15, 10, 8, 300));
+        items.add(createItem("Card Box", 9, 6.5, 3, 80));
+        items.add(createItem("Sticker Book", 12, 9, 2, 60));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Exact solver and box search off, so both paths are the plain heuristics.
+            PackingService search = new PackingService(null, new PackingResultCache(), new InfeasibleCartCache(),
+                    new PackagerPool(), executor, true, 2000, 0, 500, 100, 0, 2500);
+            PackingService libraryOnly = new PackingService(null, new PackingResultCache(), new InfeasibleCartCache(),
+                    new PackagerPool(), executor, false, 2000, 0, 500, 100, 0, 2500);
+            PackingResult searched = search.calculatePackedResult(items);
+            PackingResult library = libraryOnly.calculatePackedResult(items);
+
+            assertTrue(searched.placements().size() == items.size(), "Every item should be placed");
+            assertTrue(searched.dimensions().getSizeSum() <= library.dimensions().getSizeSum() + 1e-6,
+                    "Search should never lose to the library call. Got: " + searched.dimensions().getSizeSum()
+                            + " vs " + library.dimensions().getSizeSum());
+            List<PlacementInfo> placements = searched.placements();
+            for (int i = 0; i < placements.size(); i++) {
+                for (int j = i + 1; j < placements.size(); j++) {
+                    assertTrue(!intersects(placements.get(i), placements.get(j)), "Placements must not overlap");
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSmallCartGetsProvenMinimalBox() {
+        // 30x20x10 with two 15x15x10 on top leaves a 30x5x10 strip for the
+        // 10x10x5, so 30 x 20 x 20 (70cm) holds all four; the exact solver proves
+        // nothing smaller exists in its search space.
+        List<ProductReference> items = new ArrayList<>();
+        items.add(createItem("Base", 30, 20, 10, 300));
+        items.add(createItem("Cube", 15, 15, 10, 200));
+        items.add(createItem("Cube", 15, 15, 10, 200));
+        items.add(createItem("Small", 10, 10, 5, 100));
+
+        PackingResult result = packingService.calculatePackedResult(items);
+
+        assertTrue(result.placements().size() == items.size(), "Every item should be placed");
+        assertTrue(Math.abs(result.dimensions().getSizeSum() - 70.0) < 1e-6,
+                "Exact solver should find the 70cm box. Got: " + result.dimensions().getSizeSum());
+        List<PlacementInfo> placements = result.placements();
+        for (int i = 0; i < placements.size(); i++) {
+            for (int j = i + 1; j < placements.size(); j++) {
+                assertTrue(!intersects(placements.get(i), placements.get(j)), "Placements must not overlap");
+            }
+        }
+    }
+
+    @Test
+    public void testBulkCartIsPackedInBlocks() {
+        // 1,500 units in three sizes: far past what the search packers handle
+        // in time, but only three blocks for the block builder.
+        List<ItemGroup> groups = List.of(
+                new ItemGroup(createItem("Manga", 18, 13, 2, 200), 800),
+                new ItemGroup(createItem("Switch Game", 17, 10.5, 1.1, 60), 500),
+                new ItemGroup(createItem("Figure Box", 20, 15, 10, 400), 200));
+        PackingContext context = packingService.newContextForGroups(groups);
+
+        long started = System.currentTimeMillis();
+        PackingResult result = packingService.calculatePackedResult(context);
+
+        assertTrue(System.currentTimeMillis() - started < 2000, "Bulk cart should pack well within the deadline");
+        assertTrue(result.placements().size() == 1500, "Every unit should be placed");
+        double volume = 800 * 18 * 13 * 2 + 500 * 17 * 10.5 * 1.1 + 200 * 20 * 15 * 10;
+        Dimensions dims = result.dimensions();
+        assertTrue(dims.getLengthCm() * dims.getWidthCm() * dims.getHeightCm() < volume * 1.5,
+                "Blocks should stay dense. Got: " + dims.getLengthCm() + "x" + dims.getWidthCm() + "x"
+                        + dims.getHeightCm());
+    }
+
+    @Test
+    public void testReorderedCartIsServedFromResultCache() {
+        List<ProductReference> items = new ArrayList<>();
+        items.add(createItem("Manga", 18, 13, 2, 200));
+        items.add(createItem("Switch Game", 17, 10.5, 1.1, 60));
+        items.add(createItem("Manga", 18, 13, 2, 200));
+
+        PackingResult first = packingService.calculatePackedResult(items);
+
+        List<ProductReference> reordered = new ArrayList<>(items);
+        java.util.Collections.reverse(reordered);
+        PackingResult second = packingService.calculatePackedResult(reordered);
+
+        assertTrue(first == second, "Same cart in a different order should reuse the cached packing result");
+    }
+
+    @Test
+    public void testCarrierReusesFreeSizePackingFromSameRequest() {
+        List<ProductReference> items = new ArrayList<>();
+        items.add(createItem("Manga", 18, 13, 2, 200));
+        items.add(createItem("Sticker", 10, 8, 0.5, 20));
+
+        ShippingCarrier box80 = new ShippingCarrier();
+        box80.setServiceName("Box 80");
+        box80.setMaxLength(35.0);
+        box80.setMaxWidth(25.0);
+        box80.setMaxHeight(20.0);
+        box80.setMaxWeightG(2000);
+        box80.setSizeSumLimit(80);
+
+        PackingContext context = packingService.newContext(items);
+        PackingResult freeSize = packingService.calculatePackedResult(context);
+        PackingResult forCarrier = packingService.calculatePackedResultForCarrier(
+                context, box80, System.currentTimeMillis() + 1000);
+
+        assertTrue(forCarrier == freeSize, "A carrier that holds the free-size box should reuse that packing");
+        assertTrue(packingService.calculatePackedResult(context) == freeSize,
+                "The free-size packing should be computed once per context");
+    }
+
+    @Test
+    public void testFreeSizePackingIsNotReusedForAnOverweightCart() {
+        List<ProductReference> items = new ArrayList<>();
+        items.add(createItem("Manga", 18, 13, 2, 200));
+        items.add(createItem("Sticker", 10, 8, 0.5, 20));
+
+        ShippingCarrier light = new ShippingCarrier();
+        light.setServiceName("Light Box");
+        light.setMaxLength(35.0);
+        light.setMaxWidth(25.0);
+        light.setMaxHeight(20.0);
+        light.setMaxWeightG(200);
+
+        PackingContext context = packingService.newContext(items);
+        packingService.calculatePackedResult(context);
+
+        PackingResult forCarrier = packingService.calculatePackedResultForCarrier(
+                context, light, System.currentTimeMillis() + 1000);
+
+        assertTrue(forCarrier == null, "A 220g cart must not fit a 200g carrier even though its box does");
+    }
+
+    @Test
+    public void testQuantityGroupsPackEveryUnitAndKeepLabels() {
+        List<ItemGroup> lines = new ArrayList<>();
+        lines.add(new ItemGroup(createItem("Card Box", 9, 6.5, 3, 80), 5));
+        lines.add(new ItemGroup(createItem("Manga", 18, 13, 2, 200), 2));
+        lines.add(new ItemGroup(createItem("Card Box", 9, 6.5, 3, 80), 3));
+
+        PackingContext context = packingService.newContextForGroups(lines);
+        PackingResult result = packingService.calculatePackedResult(context);
+
+        assertTrue(context.groups().size() == 2, "Repeated lines of one product should merge into one group");
+        assertTrue(context.items().size() == 10, "The unit view should expose every unit");
+        assertTrue(result.placements().size() == 10, "Every unit should be placed");
+        Map<String, Long> byName = result.placements().stream()
+                .collect(Collectors.groupingBy(PlacementInfo::name, Collectors.counting()));
+        assertTrue(byName.getOrDefault("Card Box", 0L) == 8 && byName.getOrDefault("Manga", 0L) == 2,
+                "Placement labels should map back to their group: " + byName);
+    }
+
+    @Test
+    public void testHomogeneousCartUsesGridWithoutOverlap() {
+        ItemGroup group = new ItemGroup(createItem("Card Sleeve Box", 10, 7, 2.5, 60), 8);
+
+        PackingResult result = packingService.calculatePackedResult(packingService.newContextForGroups(List.of(group)));
+
+        List<PlacementInfo> placements = result.placements();
+        assertTrue(placements.size() == group.quantity(), "Every unit should be placed");
+        for (int i = 0; i < placements.size(); i++) {
+            for (int j = i + 1; j < placements.size(); j++) {
+                assertTrue(!intersects(placements.get(i), placements.get(j)), "Grid placements must not overlap");
+            }
+        }
+        // 8 × 10×7×2.5 lie flat as a 4 x 2 grid (28 x 20 x 2.5) inside Nekoposu.
+        Dimensions dims = result.dimensions();
+        assertTrue(dims.getHeightCm() <= 3.0, "Grid should stay flat for Nekoposu. Got: " + dims.getHeightCm());
+        assertTrue(dims.getSizeSum() <= 50.5 + 1e-6, "Grid should pick the smallest size sum. Got: " + dims.getSizeSum());
+    }
+
+    @Test
+    public void testFlatMailCarrierUsesSingleLayerPacking() {
+        ShippingCarrier nekoposu = new ShippingCarrier();
+        nekoposu.setServiceName("Nekoposu");
+        nekoposu.setMaxLength(31.2);
+        nekoposu.setMaxWidth(22.8);
+        nekoposu.setMaxHeight(3.0);
+        nekoposu.setMaxWeightG(1000);
+
+        // Smallest sides 2 and 2.5cm exceed half of 3cm: nothing can be stacked.
+        List<ProductReference> items = new ArrayList<>();
+        items.add(createItem("Manga", 18, 13, 2, 200));
+        items.add(createItem("Card Box", 9, 6.5, 2.5, 80));
+        items.add(createItem("Card Box", 9, 6.5, 2.5, 80));
+        items.add(createItem("Sticker Book", 12, 9, 2, 60));
+
+        PackingResult result = packingService.calculatePackedResultForCarrier(items, nekoposu);
+
+        assertTrue(result != null, "Four flat items should fit side by side in Nekoposu");
+        assertTrue(result.placements().size() == 4, "Every unit should be placed");
+        assertTrue(result.placements().stream().allMatch(p -> p.z() == 0), "Single-layer packing has no stacking");
+        for (int i = 0; i < result.placements().size(); i++) {
+            for (int j = i + 1; j < result.placements().size(); j++) {
+                assertTrue(!intersects(result.placements().get(i), result.placements().get(j)),
+                        "Placements must not overlap");
+            }
+        }
+        assertTrue(result.dimensions().getHeightCm() <= 3.0 && result.dimensions().getLengthCm() <= 31.2,
+                "Packing should stay inside the envelope");
+    }
+
     private boolean intersects(PlacementInfo a, PlacementInfo b) {
         boolean overlapX = a.x() < b.x() + b.width() && b.x() < a.x() + a.width();
         boolean overlapY = a.y() < b.y() + b.depth() && b.y() < a.y() + a.depth();
@@ -0,0 +1,86 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.smartship.dto.PlacementInfo;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PlacementArraysTest {
+
+    private static PlacementArrays twoBoxes() {
+        return PlacementArrays.of(List.of(
+                new PlacementInfo("a", 0, 0, 0, 100, 50, 20, "#fff"),
+                new PlacementInfo("b", 100, 0, 0, 40, 40, 40, "#000")));
+    }
+
+    @Test
+    void boundsCanSkipOnePlacement() {
+        PlacementArrays arrays = twoBoxes();
+        int[] bounds = new int[6];
+
+        arrays.bounds(PlacementArrays.NONE, bounds);
+        assertThat(bounds).containsExactly(0, 0, 0, 140, 50, 40);
+
+        arrays.bounds(1, bounds);
+        assertThat(bounds).containsExactly(0, 0, 0, 100, 50, 20);
+    }
+
+    @Test
+    void boundsIfMovedMatchesActuallyMoving() {
+        PlacementArrays arrays = twoBoxes();
+        int[] trial = new int[6];
+        int[] moved = new int[6];
+
+        arrays.boundsIfMoved(1, 0, 0, 20, trial);
+        arrays.moveTo(1, 0, 0, 20);
+        arrays.bounds(PlacementArrays.NONE, moved);
+
+        assertThat(trial).containsExactly(0, 0, 0, 100, 50, 60);
+        assertThat(moved).containsExactly(trial);
+    }
+
+    @Test
+    void overlapIgnoresTheMovingPlacementAndTouchingFaces() {
+        PlacementArrays arrays = twoBoxes();
+
+        assertThat(arrays.overlapsAny(1, 0, 0, 20, 40, 40, 40)).isFalse();
+        assertThat(arrays.overlapsAny(1, 60, 0, 0, 40, 40, 40)).isTrue();
+        assertThat(arrays.overlapsAny(0, 60, 0, 0, 40, 40, 20)).isFalse();
+    }
+
+    @Test
+    void moveToIsReflectedInOutput() {
+        PlacementArrays arrays = twoBoxes();
+        arrays.moveTo(1, 0, 0, 20);
+
+        assertThat(arrays.hasSupportAt(0, 0, 20, 40, 40)).isTrue();
+        assertThat(arrays.toPlacementInfos().get(1))
+                .isEqualTo(new PlacementInfo("b", 0, 0, 20, 40, 40, 40, "#000"));
+    }
+
+    @Test
+    void gridIndexFollowsMovedPlacements() {
+        List<PlacementInfo> row = new ArrayList<>();
+        for (int i = 0; i < PlacementArrays.INDEX_MIN_SIZE + 4; i++) {
+            row.add(new PlacementInfo("p" + i, i * 10, 0, 0, 10, 10, 10, "#fff"));
+        }
+        PlacementArrays arrays = PlacementArrays.of(row);
+        int last = row.size() - 1;
+
+        arrays.moveTo(last, 500, 0, 0);
+
+        assertThat(arrays.maxLeft(last)).isEqualTo(last * 10);
+        assertThat(arrays.overlapsAny(PlacementArrays.NONE, last * 10, 0, 0, 10, 10, 10)).isFalse();
+        assertThat(arrays.overlapsAny(PlacementArrays.NONE, 505, 5, 5, 10, 10, 10)).isTrue();
+        assertThat(arrays.isInsideAny(505, 5, 5)).isTrue();
+        assertThat(arrays.hasSupportAt(500, 0, 10, 10, 10)).isTrue();
+
+        arrays.moveTo(last, 0, 0, 10);
+
+        assertThat(arrays.overlapsAny(PlacementArrays.NONE, 505, 5, 5, 10, 10, 10)).isFalse();
+        assertThat(arrays.maxDown(last)).isEqualTo(10);
+        assertThat(arrays.maxLeft(last)).isZero();
+    }
+}
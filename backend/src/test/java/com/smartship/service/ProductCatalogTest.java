@@ -0,0 +1,98 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartship.entity.ProductReference;
+import com.smartship.repository.ProductRepository;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+class ProductCatalogTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+    private final ProductCatalog catalog = new ProductCatalog(repository, new ObjectMapper());
+
+    private static ProductReference product(int id, String category, String name, int weightG) {
+        return new ProductReference(id, category, name, name, 18, 13, 2, weightG, null);
+    }
+
+    private static String json(ProductCatalog.Payload payload) {
+        return new String(payload.json(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void serializesListsSortedByCategoryAndName() {
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(
+                product(1, "Books", "Manga", 150), product(2, "Goods", "Mug", 300),
+                product(3, "Books", "Artbook", 800)));
+
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+
+        assertThat(json(snapshot.products(null))).containsSubsequence("Artbook", "Manga", "Mug");
+        assertThat(json(snapshot.products("books")))
+                .containsSubsequence("Artbook", "Manga")
+                .doesNotContain("Mug");
+        assertThat(json(snapshot.products("Toys"))).isEqualTo("[]");
+        assertThat(json(snapshot.categories())).isEqualTo("[\"Books\",\"Goods\"]");
+    }
+
+    @Test
+    void gzipBodyInflatesToTheJsonWithItsOwnEtag() throws IOException {
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(product(1, "Books", "Manga", 150)));
+
+        ProductCatalog.Payload payload = catalog.snapshot().products(null);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(payload.json());
+        }
+        assertThat(payload.etag()).startsWith("\"").endsWith("\"");
+        assertThat(payload.gzipEtag()).isNotEqualTo(payload.etag());
+    }
+
+    @Test
+    void etagChangesOnlyWithTheContent() {
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(product(1, "Books", "Manga", 150)));
+        String etag = catalog.snapshot().products(null).etag();
+
+        assertThat(catalog.reload().products(null).etag()).isEqualTo(etag);
+
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(product(1, "Books", "Manga", 160)));
+        catalog.refreshIfChanged();
+
+        assertThat(catalog.snapshot().products(null).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void scheduledCheckSeesChangesWithEqualHashCodes() {
+        // "Aa" and "BB" share a String hash code, which a 32-bit row hash could not tell apart.
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(product(1, "Books", "Aa", 150)));
+        long version = catalog.reload().version();
+
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(product(1, "Books", "BB", 150)));
+        catalog.refreshIfChanged();
+
+        assertThat(catalog.snapshot().version()).isEqualTo(version + 1);
+        assertThat(json(catalog.snapshot().products(null))).contains("BB");
+    }
+
+    @Test
+    void resolvesProductsAndDescriptorsById() {
+        ProductReference manga = product(1, "Books", "Manga", 150);
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(manga));
+
+        ProductCatalog.Snapshot snapshot = catalog.snapshot();
+
+        assertThat(snapshot.product(1).product()).isSameAs(manga);
+        assertThat(snapshot.product(1).descriptor().key()).isEqualTo(CartFingerprint.itemKey(manga));
+        assertThat(snapshot.product(2)).isNull();
+    }
+}
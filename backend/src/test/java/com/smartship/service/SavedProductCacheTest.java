@@ -0,0 +1,71 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.smartship.entity.ProductReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class SavedProductCacheTest {
+
+    private static final Long ACCOUNT = 7L;
+
+    private final SavedProductCache cache = new SavedProductCache();
+    private final List<Set<Long>> loads = new ArrayList<>();
+
+    private Function<Set<Long>, Map<Long, CompiledProduct>> loader(Set<Long> existing) {
+        return ids -> {
+            loads.add(Set.copyOf(ids));
+            Map<Long, CompiledProduct> products = new HashMap<>();
+            for (Long id : ids) {
+                if (existing.contains(id)) {
+                    products.put(id, CompiledProduct.of(
+                            new ProductReference(0, "Other", "Box " + id, "Box " + id, 20, 15, 10, 500, "box")));
+                }
+            }
+            return products;
+        };
+    }
+
+    @Test
+    void loadsOnlyTheMissingIdsInOneCall() {
+        Map<Long, CompiledProduct> first = cache.getAll(ACCOUNT, Set.of(1L, 2L), loader(Set.of(1L, 2L, 3L)));
+        Map<Long, CompiledProduct> second = cache.getAll(ACCOUNT, Set.of(1L, 2L, 3L), loader(Set.of(1L, 2L, 3L)));
+
+        assertThat(loads).containsExactly(Set.of(1L, 2L), Set.of(3L));
+        assertThat(second).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(second.get(1L)).isSameAs(first.get(1L));
+    }
+
+    @Test
+    void leavesOutIdsTheLoaderDoesNotReturn() {
+        assertThat(cache.getAll(ACCOUNT, Set.of(1L, 9L), loader(Set.of(1L)))).containsOnlyKeys(1L);
+    }
+
+    @Test
+    void invalidateDropsTheAccount() {
+        cache.getAll(ACCOUNT, Set.of(1L), loader(Set.of(1L)));
+        cache.getAll(8L, Set.of(1L), loader(Set.of(1L)));
+        cache.invalidate(ACCOUNT);
+
+        assertThat(cache.getAll(ACCOUNT, Set.of(1L), loader(Set.of()))).isEmpty();
+        cache.getAll(8L, Set.of(1L), loader(Set.of()));
+        assertThat(loads).hasSize(3);
+    }
+
+    @Test
+    void loadRunningAcrossAnInvalidationIsNotCached() {
+        cache.getAll(ACCOUNT, Set.of(1L), ids -> {
+            // The product is deleted while its row is being read.
+            cache.invalidate(ACCOUNT);
+            return loader(Set.of(1L)).apply(ids);
+        });
+
+        assertThat(cache.getAll(ACCOUNT, Set.of(1L), loader(Set.of()))).isEmpty();
+    }
+}
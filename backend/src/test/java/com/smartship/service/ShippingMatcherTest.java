@@ -0,0 +1,251 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.smartship.dto.Dimensions;
+import com.smartship.dto.PackingResult;
+import com.smartship.entity.ProductReference;
+import com.smartship.entity.ShippingCarrier;
+import com.smartship.repository.ShippingCarrierRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ShippingMatcherTest {
+
+    private static final List<ProductReference> ITEMS =
+            List.of(new ProductReference(null, "Test", "Book", "Book", 20, 15, 2.5, 300, null));
+    private static final Dimensions DIMS = new Dimensions(20, 15, 2.5, 300, 1);
+    private static final long REQUEST_DEADLINE_MS = 5000;
+
+    private final ShippingCarrierRepository repository = mock(ShippingCarrierRepository.class);
+    private final ScriptedPacking packing = new ScriptedPacking();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    /** Packing outcome of one carrier. */
+    @FunctionalInterface
+    private interface Script {
+        PackingResult pack(long deadlineMillis) throws InterruptedException;
+    }
+
+    /** Plays a script per carrier and records which carriers ran to their end, and on which thread. */
+    private static final class ScriptedPacking extends PackingService {
+        private final Map<ShippingCarrier, Script> scripts = new ConcurrentHashMap<>();
+        private final Set<ShippingCarrier> knownInfeasible = ConcurrentHashMap.newKeySet();
+        private final Set<ShippingCarrier> finished = ConcurrentHashMap.newKeySet();
+        private final Map<ShippingCarrier, Thread> packedOn = new ConcurrentHashMap<>();
+
+        @Override
+        public String findInfeasibilityReason(PackingContext context, ShippingCarrier carrier) {
+            return null;
+        }
+
+        @Override
+        public boolean isKnownInfeasible(List<ProductReference> items, ShippingCarrier carrier) {
+            return knownInfeasible.contains(carrier);
+        }
+
+        @Override
+        public PackingResult calculatePackedResultForCarrier(PackingContext context, ShippingCarrier carrier,
+                long deadlineMillis) {
+            packedOn.put(carrier, Thread.currentThread());
+            try {
+                PackingResult result = scripts.get(carrier).pack(deadlineMillis);
+                finished.add(carrier);
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private static ShippingCarrier carrier(int id, double l, double w, double h, Integer sizeSumLimit) {
+        return new ShippingCarrier(id, "Carrier", "Service " + id, l, w, h, 1000, sizeSumLimit,
+                100 * id, null, null);
+    }
+
+    private static PackingResult packed(double l, double w, double h) {
+        return new PackingResult(new Dimensions(l, w, h, 300, 1), List.of());
+    }
+
+    /** A packer that ignores the deadline and only returns when it is cancelled. */
+    private static PackingResult blockUntilCancelled(long deadlineMillis) throws InterruptedException {
+        Thread.sleep(60_000);
+        return null;
+    }
+
+    private ShippingMatcher matcher(ShippingCarrier... carriers) {
+        return matcher(executor, REQUEST_DEADLINE_MS, carriers);
+    }
+
+    private ShippingMatcher matcher(ExecutorService executor, long requestDeadlineMs, ShippingCarrier... carriers) {
+        when(repository.findAllByOrderByPriceYenAsc()).thenReturn(List.of(carriers));
+        return new ShippingMatcher(new CarrierCatalog(repository), packing, executor, requestDeadlineMs);
+    }
+
+    private static PackingContext context() {
+        return new PackingContext(ItemGroup.group(ITEMS), List.of());
+    }
+
+    /**
+     * Waits for every packer to return. A blocking packer returns only when it
+     * is cancelled, so this also checks that none was left running.
+     */
+    private void awaitPackers() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static List<ShippingCarrier> fitting(List<ShippingMatcher.ShippingMatch> matches) {
+        return matches.stream().map(ShippingMatcher.ShippingMatch::carrier).toList();
+    }
+
+    @Test
+    void fitCarriesOverToLargerCarriersWithinTheirSizeSum() throws InterruptedException {
+        ShippingCarrier small = carrier(1, 25, 18, 3, null);
+        ShippingCarrier larger = carrier(2, 34, 24.8, 7, null);
+        ShippingCarrier largeWithRoomySum = carrier(3, 60, 60, 60, 60);
+        ShippingCarrier largeWithTightSum = carrier(4, 60, 60, 60, 30);
+        packing.scripts.put(small, deadline -> packed(20, 15, 2.5));
+        packing.scripts.put(larger, ShippingMatcherTest::blockUntilCancelled);
+        packing.scripts.put(largeWithRoomySum, ShippingMatcherTest::blockUntilCancelled);
+        // 20 + 15 + 2.5 exceeds its 30cm size sum, so the small fit must not settle it.
+        packing.scripts.put(largeWithTightSum, deadline -> {
+            Thread.sleep(300);
+            return null;
+        });
+        ShippingMatcher matcher = matcher(small, larger, largeWithRoomySum, largeWithTightSum);
+
+        long start = System.currentTimeMillis();
+        List<ShippingMatcher.ShippingMatch> matches = matcher.findBestOptions(context(), DIMS);
+        long elapsed = System.currentTimeMillis() - start;
+        awaitPackers();
+
+        assertThat(fitting(matches)).containsExactlyInAnyOrder(small, larger, largeWithRoomySum);
+        assertThat(packing.finished).containsExactlyInAnyOrder(small, largeWithTightSum);
+        assertThat(elapsed).isLessThan(REQUEST_DEADLINE_MS / 2);
+    }
+
+    @Test
+    void knownMisfitCarriesOverToSmallerCarriers() throws InterruptedException {
+        ShippingCarrier small = carrier(1, 25, 18, 3, null);
+        ShippingCarrier large = carrier(2, 34, 24.8, 7, null);
+        packing.scripts.put(small, ShippingMatcherTest::blockUntilCancelled);
+        packing.scripts.put(large, deadline -> null);
+        packing.knownInfeasible.add(large);
+        ShippingMatcher matcher = matcher(small, large);
+
+        long start = System.currentTimeMillis();
+        List<ShippingMatcher.ShippingMatch> matches = matcher.findBestOptions(context(), DIMS);
+        long elapsed = System.currentTimeMillis() - start;
+        awaitPackers();
+
+        assertThat(matches).isEmpty();
+        assertThat(packing.finished).containsExactly(large);
+        assertThat(elapsed).isLessThan(REQUEST_DEADLINE_MS / 2);
+    }
+
+    @Test
+    void unprovenMisfitDoesNotSettleSmallerCarriers() throws InterruptedException {
+        ShippingCarrier small = carrier(1, 25, 18, 3, null);
+        ShippingCarrier large = carrier(2, 34, 24.8, 7, null);
+        packing.scripts.put(small, deadline -> {
+            Thread.sleep(300);
+            return packed(20, 15, 2.5);
+        });
+        // Cut short rather than exhausted: nothing is known about smaller carriers.
+        packing.scripts.put(large, deadline -> null);
+        ShippingMatcher matcher = matcher(small, large);
+
+        List<ShippingMatcher.ShippingMatch> matches = matcher.findBestOptions(context(), DIMS);
+        awaitPackers();
+
+        assertThat(fitting(matches)).containsExactly(small);
+        assertThat(packing.finished).containsExactlyInAnyOrder(small, large);
+    }
+
+    @Test
+    void slowCarrierIsCutOffAtTheRequestDeadline() throws InterruptedException {
+        // Neither box holds the other, so one result says nothing about the other carrier.
+        ShippingCarrier flat = carrier(1, 30, 30, 3, null);
+        ShippingCarrier slow = carrier(2, 40, 10, 10, null);
+        packing.scripts.put(flat, deadline -> packed(20, 15, 2.5));
+        packing.scripts.put(slow, ShippingMatcherTest::blockUntilCancelled);
+        ShippingMatcher matcher = matcher(executor, 300, flat, slow);
+
+        long start = System.currentTimeMillis();
+        List<ShippingMatcher.ShippingMatch> matches = matcher.findBestOptions(context(), DIMS);
+        long elapsed = System.currentTimeMillis() - start;
+        awaitPackers();
+
+        assertThat(fitting(matches)).containsExactly(flat);
+        assertThat(packing.finished).containsExactly(flat);
+        // Deadline plus the 250ms result grace, with room for a loaded machine.
+        assertThat(elapsed).isLessThan(1000);
+    }
+
+    @Test
+    void interruptedRequestCancelsItsPackers() throws InterruptedException {
+        ShippingCarrier small = carrier(1, 25, 18, 3, null);
+        ShippingCarrier large = carrier(2, 34, 24.8, 7, null);
+        packing.scripts.put(small, ShippingMatcherTest::blockUntilCancelled);
+        packing.scripts.put(large, ShippingMatcherTest::blockUntilCancelled);
+        ShippingMatcher matcher = matcher(small, large);
+        AtomicReference<List<ShippingMatcher.ShippingMatch>> matches = new AtomicReference<>();
+
+        Thread request = new Thread(() -> matches.set(matcher.findBestOptions(context(), DIMS)));
+        request.start();
+        Thread.sleep(100);
+        request.interrupt();
+        request.join(1000);
+        awaitPackers();
+
+        assertThat(request.isAlive()).isFalse();
+        assertThat(matches.get()).isEmpty();
+        assertThat(packing.finished).isEmpty();
+    }
+
+    @Test
+    void fullQueueRunsTheCarrierOnTheRequestThread() throws InterruptedException {
+        // One packing thread and one queue slot, rejecting to the caller like the packingExecutor bean.
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.CallerRunsPolicy());
+        ShippingCarrier first = carrier(1, 30, 30, 3, null);
+        ShippingCarrier queued = carrier(2, 40, 10, 10, null);
+        ShippingCarrier overflow = carrier(3, 40, 40, 2, null);
+        for (ShippingCarrier carrier : List.of(first, queued, overflow)) {
+            packing.scripts.put(carrier, deadline -> {
+                Thread.sleep(100);
+                return packed(1, 1, 1);
+            });
+        }
+        ShippingMatcher matcher = matcher(pool, REQUEST_DEADLINE_MS, first, queued, overflow);
+
+        try {
+            List<ShippingMatcher.ShippingMatch> matches = matcher.findBestOptions(context(), DIMS);
+
+            assertThat(fitting(matches)).containsExactlyInAnyOrder(first, queued, overflow);
+            assertThat(packing.packedOn.get(overflow)).isSameAs(Thread.currentThread());
+            assertThat(packing.packedOn.get(first)).isNotSameAs(Thread.currentThread());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.smartship.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+    private final AtomicInteger runs = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private static long later() {
+        return System.currentTimeMillis() + 5000;
+    }
+
+    /** Work that blocks until released; an interrupted run returns a partial result. */
+    private Supplier<String> blockingWork(String result) {
+        return () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "partial";
+            }
+        };
+    }
+
+    private Thread start(Runnable call) {
+        Thread thread = new Thread(call);
+        thread.start();
+        return thread;
+    }
+
+    private Thread startFollower(AtomicReference<Object> outcome) throws InterruptedException {
+        return startFollower(outcome, later());
+    }
+
+    private Thread startFollower(AtomicReference<Object> outcome, long deadlineMillis) throws InterruptedException {
+        Thread follower = start(() -> {
+            try {
+                outcome.set(flight.run("cart", deadlineMillis, () -> {
+                    runs.incrementAndGet();
+                    return "rerun";
+                }, r -> true));
+            } catch (RuntimeException e) {
+                outcome.set(e);
+            }
+        });
+        // Parked on the leader's call.
+        while (follower.getState() != Thread.State.TIMED_WAITING && follower.isAlive()) {
+            Thread.sleep(1);
+        }
+        return follower;
+    }
+
+    @Test
+    void concurrentCallsShareOneRun() throws InterruptedException {
+        AtomicReference<String> leaderResult = new AtomicReference<>();
+        Thread leader = start(() -> leaderResult.set(flight.run("cart", later(), blockingWork("packed"), r -> true)));
+        started.await();
+        AtomicReference<Object> followerResult = new AtomicReference<>();
+        Thread follower = startFollower(followerResult);
+
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertThat(runs).hasValue(1);
+        assertThat(leaderResult).hasValue("packed");
+        assertThat(followerResult).hasValue("packed");
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void interruptedLeaderIsNotShared() throws InterruptedException {
+        AtomicReference<String> leaderResult = new AtomicReference<>();
+        Thread leader = start(() -> leaderResult.set(flight.run("cart", later(), blockingWork("packed"), r -> true)));
+        started.await();
+        AtomicReference<Object> followerResult = new AtomicReference<>();
+        Thread follower = startFollower(followerResult);
+
+        leader.interrupt();
+        leader.join();
+        follower.join();
+
+        assertThat(leaderResult).hasValue("partial");
+        assertThat(followerResult).hasValue("rerun");
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void rejectedResultIsRunAgainByWaitingCallers() throws InterruptedException {
+        Thread leader = start(() ->
+                flight.run("cart", later(), blockingWork("timed out"), r -> !r.equals("timed out")));
+        started.await();
+        AtomicReference<Object> followerResult = new AtomicReference<>();
+        Thread follower = startFollower(followerResult);
+
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertThat(followerResult).hasValue("rerun");
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void failureReachesWaitingCallers() throws InterruptedException {
+        Thread leader = start(() -> {
+            try {
+                flight.run("cart", later(), () -> {
+                    blockingWork("packed").get();
+                    throw new IllegalStateException("packer failed");
+                }, r -> true);
+            } catch (IllegalStateException expected) {
+                // Rethrown to the leader as well.
+            }
+        });
+        started.await();
+        AtomicReference<Object> followerResult = new AtomicReference<>();
+        Thread follower = startFollower(followerResult);
+
+        release.countDown();
+        leader.join();
+        follower.join();
+
+        assertThat(followerResult.get()).isInstanceOf(IllegalStateException.class);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void waitingCallerRunsTheWorkItselfAtItsDeadline() throws InterruptedException {
+        AtomicReference<String> leaderResult = new AtomicReference<>();
+        Thread leader = start(() -> leaderResult.set(flight.run("cart", later(), blockingWork("packed"), r -> true)));
+        started.await();
+        AtomicReference<Object> followerResult = new AtomicReference<>();
+        Thread follower = startFollower(followerResult, System.currentTimeMillis() + 100);
+
+        follower.join(1000);
+        assertThat(follower.isAlive()).isFalse();
+        assertThat(followerResult).hasValue("rerun");
+
+        release.countDown();
+        leader.join();
+        assertThat(leaderResult).hasValue("packed");
+        assertThat(runs).hasValue(2);
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void finishedCallsAreNotReused() {
+        flight.run("cart", later(), () -> "first", r -> true);
+
+        assertThat(flight.run("cart", later(), () -> "second", r -> true)).isEqualTo("second");
+        assertThat(flight.inFlight()).isZero();
+    }
+}
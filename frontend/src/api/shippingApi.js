@@ -1,6 +1,8 @@
 const API_BASE = import.meta.env.VITE_API_URL || '';
 let accessToken = null;
 let refreshPromise = null;
+// Identifies this tab to the backend, which cancels an older calculation when a newer one arrives.
+const CLIENT_ID = globalThis.crypto?.randomUUID?.() ?? `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
 
 const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
 
@@ -86,6 +88,7 @@ const requestJson = async (path, options = {}) => {
     authRequired = false,
     skipAuthRefresh = false,
     skipAuthHeader = false,
+    headers: extraHeaders = {},
     ...fetchOptions
   } = options;
 
@@ -94,7 +97,7 @@ const requestJson = async (path, options = {}) => {
   while (true) {
     const { signal, cleanup } = withTimeoutSignal(externalSignal, timeoutMs);
     try {
-      const headers = { 'Content-Type': 'application/json', ...(fetchOptions.headers || {}) };
+      const headers = { 'Content-Type': 'application/json', ...extraHeaders };
       if (!skipAuthHeader && accessToken) {
         headers.Authorization = `Bearer ${accessToken}`;
       }
@@ -277,6 +280,7 @@ export const unlikeProduct = (productId, options = {}) =>
 export const calculateFromCart = (items, options = {}) =>
   requestJson('/api/shipping/calculate/cart', {
     method: 'POST',
+    headers: { 'X-Client-Id': CLIENT_ID },
     body: JSON.stringify({ items }),
     retry: 1,
     timeoutMs: 12000,
@@ -287,6 +291,7 @@ export const calculateFromCart = (items, options = {}) =>
 export const calculateFromManual = (payload, options = {}) =>
   requestJson('/api/shipping/calculate/manual', {
     method: 'POST',
+    headers: { 'X-Client-Id': CLIENT_ID },
     body: JSON.stringify(payload),
     retry: 1,
     timeoutMs: 12000,
@@ -296,6 +301,7 @@ export const calculateFromManual = (payload, options = {}) =>
 export const calculateDimensions = (items, options = {}) =>
   requestJson('/api/shipping/calculate/dimensions', {
     method: 'POST',
+    headers: { 'X-Client-Id': CLIENT_ID },
     body: JSON.stringify({ items }),
     retry: 2,
     timeoutMs: 12000,